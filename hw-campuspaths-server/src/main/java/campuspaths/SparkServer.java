@@ -28,6 +28,8 @@ public class SparkServer {
 
         // TODO: Create all the Spark Java routes you need here.
         CampusMap campusMap = new CampusMap();
+        // per-query search work, readable from jconsole
+        campusMap.enableMetrics().register("campus paths");
 
 
         Spark.get("/findroute", ((request, response) -> {
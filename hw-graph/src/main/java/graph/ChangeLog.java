@@ -0,0 +1,426 @@
+package graph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * This class keeps a Graph in a directory as a snapshot plus a write-ahead
+ * log of the changes made since, so a long-running process can apply small
+ * deltas and recover its graph after a restart without re-parsing the data
+ * set the graph was built from.
+ *
+ * The directory holds at most one snapshot, snapshot-G.graph, written by
+ * GraphFile, and one log, changes-G.log, holding the changes made after
+ * that snapshot; G is the generation, which compaction advances. Each log
+ * record is the length of its body, the body and a CRC32 of the body. The
+ * body is an operation code followed by the UTF-8 forms of its nodes and
+ * label, each preceded by its length. All numbers are big-endian.
+ *
+ * A change is written to the log when it is made and is durable once
+ * sync() returns. Recovery maps the snapshot, replays the log and cuts off
+ * a record torn by a crash. Compaction writes a new snapshot of the graph
+ * and starts an empty log; if it is interrupted, recovery still finds the
+ * older snapshot and its complete log.
+ *
+ * A ChangeLog is not safe for use by several threads at once, and its
+ * directory must not be shared by two open logs.
+ */
+
+public final class ChangeLog<T,E> implements Closeable {
+
+    // Rep invariant:
+    //     directory, nodes, labels, graph, out, channel != null and generation >= 0
+    //     the snapshot of generation, if any, followed by the records in the
+    //     log of generation, rebuilds graph
+    //     records == the number of records in the log of generation
+
+    // Abstract function:
+    //    AF(this) = the graph this.graph, stored durably as the snapshot and
+    //    log of this.generation in this.directory
+
+    private static final byte ADD_NODE = 1;
+    private static final byte ADD_EDGE = 2;
+    private static final byte REMOVE_NODE = 3;
+    private static final byte REMOVE_EDGE = 4;
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".graph";
+    private static final String LOG_PREFIX = "changes-";
+    private static final String LOG_SUFFIX = ".log";
+
+    private final Path directory;
+    private final GraphFile.Codec<T> nodes;
+    private final GraphFile.Codec<E> labels;
+    private final int compactEvery;
+    private final Graph<T,E> graph;
+    private long generation;
+    private int records;
+    private FileChannel channel;
+    private DataOutputStream out;
+
+    private ChangeLog(Path directory, GraphFile.Codec<T> nodes, GraphFile.Codec<E> labels, int compactEvery,
+                      Graph<T,E> graph, long generation) {
+        this.directory = directory;
+        this.nodes = nodes;
+        this.labels = labels;
+        this.compactEvery = compactEvery;
+        this.graph = graph;
+        this.generation = generation;
+    }
+
+    /**
+     * Opens the change log in directory, recovering the graph it holds, or
+     * starts an empty one if the directory holds none.
+     *
+     * @param directory the directory of the log; created if it does not exist
+     * @param nodes the codec for the data of nodes
+     * @param labels the codec for labels
+     * @param compactEvery compact after this many logged changes, or 0 to compact
+     *                     only when compact() is called
+     * @return the change log in <var>directory</var>
+     * @throws IOException if the snapshot or log can not be read or the log can not be opened
+     * @throws IllegalArgumentException if an argument is null or compactEvery is negative
+     */
+
+    public static <T,E> ChangeLog<T,E> open(Path directory, GraphFile.Codec<T> nodes, GraphFile.Codec<E> labels,
+                                           int compactEvery) throws IOException {
+        if (directory == null || nodes == null || labels == null) {
+            throw new IllegalArgumentException("arguments can not be null");
+        }
+        if (compactEvery < 0) throw new IllegalArgumentException("compactEvery can not be negative");
+        Files.createDirectories(directory);
+        long generation = newestSnapshot(directory);
+        Graph<T,E> graph = generation > 0
+                ? GraphFile.map(directory.resolve(snapshotName(generation)), nodes, labels).toGraph()
+                : new Graph<>(false);
+        ChangeLog<T,E> log = new ChangeLog<>(directory, nodes, labels, compactEvery, graph, generation);
+        Path file = directory.resolve(logName(generation));
+        long valid = Files.exists(file) ? log.replay(file) : 0;
+        log.deleteOtherGenerations();
+        log.openLog(file, valid);
+        return log;
+    }
+
+    /**
+     * Returns the graph kept by this log. Changes must be made through the
+     * log; changes made to the graph directly are not logged.
+     *
+     * @return the graph kept by this log
+     */
+
+    public Graph<T,E> graph() {
+        return graph;
+    }
+
+    /**
+     * Returns the generation of the current snapshot, which starts at 0 and
+     * is advanced by every compaction
+     *
+     * @return the current generation
+     */
+
+    public long generation() {
+        return generation;
+    }
+
+    /**
+     * Returns the number of changes logged since the last snapshot
+     *
+     * @return the number of records in the current log
+     */
+
+    public int pending() {
+        return records;
+    }
+
+    /**
+     * Adds a node to the graph and logs it. See Graph.addNode.
+     *
+     * @param n the node to add
+     * @return true if the node was added
+     * @throws IOException if the change can not be logged
+     * @throws IllegalArgumentException if n is null
+     * @spec.modifies this
+     */
+
+    public boolean addNode(Node<T> n) throws IOException {
+        if (!graph.addNode(n)) {
+            return false;
+        }
+        append(ADD_NODE, nodes.encode(n.getData()));
+        return true;
+    }
+
+    /**
+     * Adds an edge to the graph and logs it. See Graph.addEdge.
+     *
+     * @param parent the parent node of the edge
+     * @param child the child node of the edge
+     * @param label the label of the edge
+     * @return true if the edge was added
+     * @throws IOException if the change can not be logged
+     * @throws IllegalArgumentException if an argument is null
+     * @spec.modifies this
+     */
+
+    public boolean addEdge(Node<T> parent, Node<T> child, E label) throws IOException {
+        if (!graph.addEdge(parent, child, label)) {
+            return false;
+        }
+        append(ADD_EDGE, nodes.encode(parent.getData()), nodes.encode(child.getData()), labels.encode(label));
+        return true;
+    }
+
+    /**
+     * Removes a node and its edges from the graph and logs it. See Graph.removeNode.
+     *
+     * @param n the node to remove
+     * @return true if the node was removed
+     * @throws IOException if the change can not be logged
+     * @throws IllegalArgumentException if n is null
+     * @spec.modifies this
+     */
+
+    public boolean removeNode(Node<T> n) throws IOException {
+        if (!graph.removeNode(n)) {
+            return false;
+        }
+        append(REMOVE_NODE, nodes.encode(n.getData()));
+        return true;
+    }
+
+    /**
+     * Removes an edge from the graph and logs it. See Graph.removeEdge.
+     *
+     * @param parent the parent node of the edge
+     * @param child the child node of the edge
+     * @param label the label of the edge
+     * @return true if the edge was removed
+     * @throws IOException if the change can not be logged
+     * @throws IllegalArgumentException if an argument is null
+     * @spec.modifies this
+     */
+
+    public boolean removeEdge(Node<T> parent, Node<T> child, E label) throws IOException {
+        if (!graph.removeEdge(parent, child, label)) {
+            return false;
+        }
+        append(REMOVE_EDGE, nodes.encode(parent.getData()), nodes.encode(child.getData()), labels.encode(label));
+        return true;
+    }
+
+    /**
+     * Forces every change logged so far to disk
+     *
+     * @throws IOException if the log can not be written
+     */
+
+    public void sync() throws IOException {
+        out.flush();
+        channel.force(false);
+    }
+
+    /**
+     * Writes a snapshot of the graph as the next generation and starts an
+     * empty log for it, deleting the old snapshot and log.
+     *
+     * @throws IOException if the snapshot or new log can not be written
+     * @spec.modifies this
+     * @spec.effects advances the generation and empties the log
+     */
+
+    public void compact() throws IOException {
+        out.flush();
+        long next = generation + 1;
+        Path snapshot = directory.resolve(snapshotName(next));
+        Path partial = directory.resolve(snapshotName(next) + ".tmp");
+        GraphFile.write(graph.freeze(), partial, nodes, labels);
+        try (FileChannel written = FileChannel.open(partial, StandardOpenOption.WRITE)) {
+            written.force(true);
+        }
+        Files.move(partial, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        out.close();
+        generation = next;
+        records = 0;
+        openLog(directory.resolve(logName(next)), 0);
+        deleteOtherGenerations();
+    }
+
+    /**
+     * Syncs and closes the log. The graph stays usable but further changes
+     * can not be logged.
+     *
+     * @throws IOException if the log can not be written
+     */
+
+    @Override
+    public void close() throws IOException {
+        if (channel.isOpen()) {
+            sync();
+            out.close();
+        }
+    }
+
+    /**
+     * Appends one record to the log, compacting if enough have built up
+     */
+    private void append(byte op, String... fields) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bytes);
+        body.writeByte(op);
+        for (String field : fields) {
+            byte[] utf8 = field.getBytes(StandardCharsets.UTF_8);
+            body.writeInt(utf8.length);
+            body.write(utf8);
+        }
+        byte[] record = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        out.writeInt(record.length);
+        out.write(record);
+        out.writeInt((int) crc.getValue());
+        records++;
+        if (compactEvery > 0 && records >= compactEvery) {
+            compact();
+        }
+    }
+
+    /**
+     * Applies the complete records of file to the graph and returns the
+     * length of the part of the file they take up
+     */
+    private long replay(Path file) throws IOException {
+        long size = Files.size(file);
+        long valid = 0;
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            while (valid + Integer.BYTES <= size) {
+                int length = in.readInt();
+                if (length <= 0 || valid + 2L * Integer.BYTES + length > size) {
+                    break;
+                }
+                byte[] record = new byte[length];
+                in.readFully(record);
+                CRC32 crc = new CRC32();
+                crc.update(record);
+                if (in.readInt() != (int) crc.getValue() || !apply(record)) {
+                    break;
+                }
+                valid += 2L * Integer.BYTES + length;
+                records++;
+            }
+        } catch (EOFException e) {
+            // a record cut short by a crash; everything before it is kept
+        }
+        return valid;
+    }
+
+    /**
+     * Applies one record body to the graph, returning false if it is not a
+     * known operation
+     */
+    private boolean apply(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        byte op = in.readByte();
+        switch (op) {
+            case ADD_NODE:
+                graph.addNode(new Node<>(nodes.decode(readField(in))));
+                return true;
+            case REMOVE_NODE:
+                graph.removeNode(new Node<>(nodes.decode(readField(in))));
+                return true;
+            case ADD_EDGE:
+            case REMOVE_EDGE:
+                Node<T> parent = new Node<>(nodes.decode(readField(in)));
+                Node<T> child = new Node<>(nodes.decode(readField(in)));
+                E label = labels.decode(readField(in));
+                if (op == ADD_EDGE) {
+                    graph.addEdge(parent, child, label);
+                } else {
+                    graph.removeEdge(parent, child, label);
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Reads one length-prefixed UTF-8 field of a record
+     */
+    private static String readField(DataInputStream in) throws IOException {
+        byte[] utf8 = new byte[in.readInt()];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Opens file for appending after its first valid bytes, dropping the rest
+     */
+    private void openLog(Path file, long valid) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(valid);
+        channel.position(valid);
+        out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+    }
+
+    /**
+     * Deletes the snapshots and logs of every generation but the current one
+     */
+    private void deleteOtherGenerations() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                boolean ours = name.startsWith(SNAPSHOT_PREFIX) || name.startsWith(LOG_PREFIX);
+                if (ours && !name.equals(snapshotName(generation)) && !name.equals(logName(generation))) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the generation of the newest complete snapshot in directory, or 0 if there is none
+     */
+    private static long newestSnapshot(Path directory) throws IOException {
+        long newest = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String number = name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length());
+                try {
+                    newest = Math.max(newest, Long.parseLong(number));
+                } catch (NumberFormatException e) {
+                    // not one of ours
+                }
+            }
+        }
+        return newest;
+    }
+
+    private static String snapshotName(long generation) {
+        return SNAPSHOT_PREFIX + generation + SNAPSHOT_SUFFIX;
+    }
+
+    private static String logName(long generation) {
+        return LOG_PREFIX + generation + LOG_SUFFIX;
+    }
+}
@@ -0,0 +1,146 @@
+package graph;
+
+import intQueue.IntRingBuffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This class finds shortest paths by breadth first search over the int ids
+ * of a frozen graph, keeping all of its state in primitive arrays.
+ *
+ * Each discovered node records only the node and the edge that first reached
+ * it, and the path is rebuilt from those once dest is found. The arrays and
+ * the queue are made once and reused by every query: instead of clearing the
+ * visited state, each query takes a new mark, and a node counts as visited
+ * only if it holds the current mark.
+ *
+ * The graph is frozen with ids in node order and the edges of every node
+ * sorted by (child id, label), so a node's edges are tried in the order
+ * GraphAlgorithms.bfs tries them with an edge order that compares children
+ * in nodeOrder and then labels in labelOrder, and the same path is returned.
+ *
+ * An instance may answer any number of queries, one at a time.
+ */
+
+public final class CompactBFS<T,E> {
+
+    // Rep invariant:
+    //     graph, parent, parentEdge, marks, queue != null
+    //     parent.length == parentEdge.length == marks.length == graph.size()
+    //     graph was frozen with ids in node order and the edges of every
+    //         node sorted by (child id, label)
+    //     mark > 0 and marks[i] <= mark for every i
+
+    private final ImmutableGraph<T,E> graph;
+    // for every node discovered by the current query, the node and the
+    // index of the edge that first reached it
+    private final int[] parent;
+    private final int[] parentEdge;
+    // marks[i] == mark iff node i has been discovered by the current query
+    private final int[] marks;
+    private int mark;
+    private final IntRingBuffer queue;
+
+    /**
+     * Creates a search engine over a frozen, ordered copy of g.
+     *
+     * @param g the graph to search
+     * @param nodeOrder the order in which children are visited
+     * @param labelOrder the order in which edges to the same child are tried
+     * @spec.requires nodeOrder orders no two distinct nodes as equal
+     * @throws IllegalArgumentException if any argument is null
+     * @spec.effects creates an engine over a snapshot of <var>g</var>; later changes to g are not seen
+     */
+    public CompactBFS(Graph<T,E> g, Comparator<? super T> nodeOrder, Comparator<? super E> labelOrder) {
+        if (g == null) throw new IllegalArgumentException("g can not be null");
+        this.graph = g.freeze(nodeOrder, labelOrder);
+        int n = graph.size();
+        this.parent = new int[n];
+        this.parentEdge = new int[n];
+        this.marks = new int[n];
+        this.mark = 0;
+        this.queue = new IntRingBuffer(n);
+    }
+
+    /**
+     * Finds the shortest path from start to dest whose sequence of
+     * (child, label) steps is the smallest in the engine's order.
+     *
+     * @param start the start node
+     * @param dest the destination node
+     * @return the edges of the path from <var>start</var> to <var>dest</var>, an
+     * empty list if they are the same node, or null if no path exists
+     * @throws IllegalArgumentException if start or dest is null or not in the graph
+     */
+
+    public List<Edge<T,E>> shortestPath(Node<T> start, Node<T> dest) {
+        if (start == null || dest == null) throw new IllegalArgumentException("start and dest cannot be null");
+        int s = graph.indexOf(start);
+        int d = graph.indexOf(dest);
+        if (s < 0 || d < 0) throw new IllegalArgumentException("start and dest must be in the graph");
+        if (s == d) {
+            return new ArrayList<>();
+        }
+        int current = nextMark();
+        queue.clear();
+        queue.enqueue(s);
+        marks[s] = current;
+        while (!queue.isEmpty()) {
+            int u = queue.dequeue();
+            for (int k = graph.edgeStart(u); k < graph.edgeEnd(u); k++) {
+                int v = graph.target(k);
+                if (marks[v] != current) {
+                    marks[v] = current;
+                    parent[v] = u;
+                    parentEdge[v] = k;
+                    // v keeps this edge whatever happens later, so the
+                    // path to dest is settled once dest is discovered
+                    if (v == d) {
+                        return pathTo(s, d);
+                    }
+                    queue.enqueue(v);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of nodes the engine searches over
+     *
+     * @return the number of nodes in the frozen graph
+     */
+
+    public int size() {
+        return graph.size();
+    }
+
+    /**
+     * Returns a mark no node holds yet, clearing the marks once every int
+     * has been used
+     */
+    private int nextMark() {
+        if (mark == Integer.MAX_VALUE) {
+            Arrays.fill(marks, 0);
+            mark = 0;
+        }
+        return ++mark;
+    }
+
+    /**
+     * Follows the parent edges back from v to s
+     */
+    private List<Edge<T,E>> pathTo(int s, int v) {
+        List<Edge<T,E>> edges = new ArrayList<>();
+        while (v != s) {
+            edges.add(new Edge<>(graph.node(v), graph.label(parentEdge[v])));
+            v = parent[v];
+        }
+        Collections.reverse(edges);
+        return edges;
+    }
+}
@@ -0,0 +1,235 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * This class is an index of the weakly connected components of a graph:
+ * the groups of nodes joined by edges when their direction is ignored. Two
+ * nodes in different components have no path between them in either
+ * direction, so a search can answer "no path" without exploring anything.
+ * Nodes in the same component may still lack a directed path.
+ *
+ * Every node records the root of its component directly, and each
+ * component keeps a ring of its members. Adding an edge between two
+ * components relabels the members of the smaller one, so a node is
+ * relabelled at most log n times and a query is two array reads. A
+ * component can not be split that way, so removing nodes or edges marks the
+ * index stale, and the graph rebuilds it once at the end of the change that
+ * removed them, on the thread that made the change.
+ *
+ * Queries only read the index. Any number of threads may query at once, as
+ * long as no thread changes the graph, or the index, meanwhile.
+ */
+
+public final class ComponentIndex<T> {
+
+    // Rep invariant:
+    //     source != null and ids != null
+    //     root.length == next.length == size.length >= ids.size()
+    //     for every 0 <= i < ids.size(): 0 <= root[i] < ids.size() and root[root[i]] == root[i]
+    //     for every 0 <= i < ids.size(): following next from i visits exactly
+    //         the ids j with root[j] == root[i], and comes back to i
+    //     size[r] == the number of ids whose root is r, for every root r
+    //     components == the number of roots
+    //     if !stale, two nodes have the same root iff they are weakly connected in source
+
+    // Abstract function:
+    //    AF(this) = the partition of the nodes of source into weakly connected
+    //    components, where ids.node(i) and ids.node(j) are in the same part iff
+    //    root[i] == root[j]
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final GraphView<T,?> source;
+    private NodeTable<T> ids;
+    // the root of the component of every id
+    private int[] root;
+    // the next member in the ring of every id's component
+    private int[] next;
+    private int[] size;
+    private int components;
+    private boolean stale;
+    private long rebuilds;
+
+    private ComponentIndex(GraphView<T,?> source) {
+        this.source = source;
+        rebuild();
+    }
+
+    /**
+     * Builds an index of the components of g. The index does not follow
+     * later changes to g unless g keeps it up to date itself, as Graph and
+     * DoubleWeightedGraph do once enableComponentIndex has been called.
+     *
+     * @param g the graph to index
+     * @return an index of the weakly connected components of <var>g</var>
+     * @throws IllegalArgumentException if g is null
+     */
+
+    public static <T> ComponentIndex<T> of(GraphView<T,?> g) {
+        if (g == null) throw new IllegalArgumentException("g can not be null");
+        return new ComponentIndex<>(g);
+    }
+
+    /**
+     * Returns true if a and b are in the same weakly connected component.
+     * If they are not, there is no path between them.
+     *
+     * @param a a node
+     * @param b another node
+     * @return true if <var>a</var> and <var>b</var> are both in the graph and
+     * joined by edges, ignoring their direction
+     * @throws IllegalArgumentException if a or b is null
+     */
+
+    public boolean connected(Node<T> a, Node<T> b) {
+        if (a == null || b == null) throw new IllegalArgumentException("nodes can not be null");
+        int i = ids.handleOf(a.getData());
+        int j = ids.handleOf(b.getData());
+        return i >= 0 && j >= 0 && root[i] == root[j];
+    }
+
+    /**
+     * Returns the number of nodes in the component of n
+     *
+     * @param n a node
+     * @return the size of the component holding <var>n</var>, or 0 if n is not in the graph
+     * @throws IllegalArgumentException if n is null
+     */
+
+    public int componentSize(Node<T> n) {
+        if (n == null) throw new IllegalArgumentException("n can not be null");
+        int i = ids.handleOf(n.getData());
+        return i < 0 ? 0 : size[root[i]];
+    }
+
+    /**
+     * Returns the number of weakly connected components
+     *
+     * @return the number of components in the graph
+     */
+
+    public int componentCount() {
+        return components;
+    }
+
+    /**
+     * Records that n was added to the graph
+     *
+     * @param n the new node
+     * @spec.modifies this
+     */
+    void nodeAdded(Node<T> n) {
+        id(n);
+    }
+
+    /**
+     * Records that an edge from parent to child was added to the graph
+     *
+     * @param parent the parent of the new edge
+     * @param child the child of the new edge
+     * @spec.modifies this
+     */
+    void edgeAdded(Node<T> parent, Node<T> child) {
+        union(id(parent), id(child));
+    }
+
+    /**
+     * Returns the number of times the index has been built from the graph,
+     * counting the first build
+     *
+     * @return the number of builds of this index
+     */
+
+    public long rebuilds() {
+        return rebuilds;
+    }
+
+    /**
+     * Records that a node or edge was removed from the graph, which may
+     * have split a component. The index is stale until rebuildIfStale is called.
+     *
+     * @spec.modifies this
+     */
+    void removed() {
+        stale = true;
+    }
+
+    /**
+     * Rebuilds the index if a removal has made it stale. Called once at the
+     * end of every change to the graph that removed something.
+     *
+     * @spec.modifies this
+     */
+    void rebuildIfStale() {
+        if (stale) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Builds the index from the current nodes and edges of source
+     */
+    private void rebuild() {
+        int n = source.size();
+        ids = new NodeTable<>(n);
+        root = new int[Math.max(INITIAL_CAPACITY, n)];
+        next = new int[root.length];
+        size = new int[root.length];
+        components = 0;
+        stale = false;
+        rebuilds++;
+        source.forEachNode(u -> {
+            int i = id(u);
+            source.forEachEdge(u, (child, label) -> union(i, id(child)));
+        });
+    }
+
+    /**
+     * Returns the id of n, making it a component of its own if it has none yet
+     */
+    private int id(Node<T> n) {
+        int before = ids.size();
+        int i = ids.handle(n.getData());
+        if (i == before) {
+            if (i == root.length) {
+                root = Arrays.copyOf(root, root.length * 2);
+                next = Arrays.copyOf(next, next.length * 2);
+                size = Arrays.copyOf(size, size.length * 2);
+            }
+            root[i] = i;
+            next[i] = i;
+            size[i] = 1;
+            components++;
+        }
+        return i;
+    }
+
+    /**
+     * Joins the components holding i and j, relabelling the members of the
+     * smaller one with the root of the larger
+     */
+    private void union(int i, int j) {
+        int a = root[i];
+        int b = root[j];
+        if (a == b) {
+            return;
+        }
+        if (size[a] < size[b]) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        int k = b;
+        do {
+            root[k] = a;
+            k = next[k];
+        } while (k != b);
+        // splice the ring of b into the ring of a
+        int t = next[a];
+        next[a] = next[b];
+        next[b] = t;
+        size[a] += size[b];
+        components--;
+    }
+}
@@ -0,0 +1,376 @@
+package graph;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * This is a thread-safe version of Graph with the same operations. Any number
+ * of threads may add and remove nodes and edges while other threads read the
+ * graph. Readers never block: the adjacency is a ConcurrentHashMap whose values
+ * are concurrent sets, so writers only contend when they touch the same node.
+ *
+ * Single operations are atomic. Every change to the edges of a node is made
+ * inside ConcurrentHashMap.compute on that node's entry, so a change never
+ * lands in a set that a concurrent removeNode has already taken out of the
+ * map. removeNode takes out the node first and then sweeps the edges into
+ * it from every other entry, one entry at a time under that entry's
+ * compute; an edge into the node added while the sweep runs is either
+ * swept or kept as if it were added after removeNode, just as addEdge may
+ * add an edge to a child that is not in the graph.
+ *
+ * Operations that read several nodes, such as getNodes or freeze, are
+ * weakly consistent: they see every change that finished before they
+ * started and may or may not see changes made while they run.
+ */
+
+public class ConcurrentGraph<T,E> implements GraphView<T,E> {
+
+    // Rep invariant:
+    //     graph != null
+    //     The graph does not contain any node or edge of null type.
+
+    // Abstract function:
+    //    AF(this) = directed graph g such that
+    //    {} g is an empty graph
+    //    All Nodes in this = this.graph.keySet()
+    //    All Edges starting from Node n = this.graph.get(n)
+
+    private final ConcurrentHashMap<Node<T>, Set<Edge<T,E>>> graph;
+
+    /**
+     * Constructor that initiates a new graph with no nodes or edges.
+     *
+     * @spec.effects creates an empty graph
+     */
+    public ConcurrentGraph() {
+        this.graph = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Constructor that initiates a new graph with no nodes or edges, sized
+     * for the expected number of nodes.
+     *
+     * @param expectedNodes the number of nodes the graph is expected to hold
+     * @spec.requires expectedNodes &gt;= 0
+     * @spec.effects creates an empty graph
+     */
+    public ConcurrentGraph(int expectedNodes) {
+        if (expectedNodes < 0) throw new IllegalArgumentException("expectedNodes can not be negative");
+        this.graph = new ConcurrentHashMap<>(expectedNodes);
+    }
+
+    /**
+     * Add a node to the graph and return true if the node gets added
+     * successfully, otherwise return false
+     *
+     * @param data: node to be added to the graph
+     * @return boolean: returns true if node is successfully added. false otherwiese
+     * @spec.requires data is not null
+     * @spec.modifies this
+     * @spec.effects adds a new node to the graph if it is not already in the graph
+     */
+
+    public boolean addNode(Node<T> data) {
+        if (data == null) throw new IllegalArgumentException("data can not be null");
+        return graph.putIfAbsent(data, ConcurrentHashMap.newKeySet()) == null;
+    }
+
+    /**
+     * Create an edge between two nodes in the graph, adding the parent node
+     * first if it is not in the graph yet.
+     *
+     * @param parent the parent node where the edge will begin
+     * @param child  the child node to which parent node will be connect through the edge
+     * @param label  the label of the edge being added
+     * @spec.requires start, child and label != null
+     * @spec.effects adds a new edge to the graph that connects <var>parent</var> to <var>child</var>
+     * if either is null, then <code>throw new IllegalArgumentException()</code>
+     * @return boolean: returns true is the edge is successfully added. false otherwise
+     */
+
+    public boolean addEdge(Node<T> parent, Node<T> child, E label) {
+        if (parent == null || child == null) {
+            throw new IllegalArgumentException("Node can not be null");
+        }
+        if (label == null) {
+            throw new IllegalArgumentException("label can not be null");
+        }
+        Edge<T,E> newEdge = new Edge<>(child, label);
+        boolean[] added = new boolean[1];
+        // adding under the entry's lock means a concurrent removeNode(parent)
+        // either runs before, and the entry is made again, or after, and
+        // removes the edge with the node
+        graph.compute(parent, (k, edges) -> {
+            if (edges == null) {
+                edges = ConcurrentHashMap.newKeySet();
+            }
+            added[0] = edges.add(newEdge);
+            return edges;
+        });
+        return added[0];
+    }
+
+    /**
+     * Remove a given node n and all edges related to it. Return true if the node
+     * can be removed and false other wise
+     *
+     * @param n the node 'n' that needs to be removed from the graph
+     * @return boolean: true if specified node successfully gets removed, false otherwise
+     * @spec.requires n != null
+     * @spec.modifies this
+     * @spec.effects delete n from the graph if it is in the graph
+     */
+
+    public boolean removeNode(Node<T> n) {
+        if (n == null) throw new IllegalArgumentException("n can not be null");
+        if (graph.remove(n) == null) {
+            return false;
+        }
+        for (Node<T> parent : graph.keySet()) {
+            graph.computeIfPresent(parent, (k, edges) -> {
+                edges.removeIf(e -> e.getChildNode().equals(n));
+                return edges;
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Remove an edge along with its label starting from parent node and
+     * ending at child node, if the edge exists.
+     *
+     * @param parent starting node where the edge begins
+     * @param child  ending node where the edge ends
+     * @param label  the label of the edge to be removed
+     * @return boolean: true if the edge successfully gets removed, false otherwise
+     * @spec.modifies this
+     * @spec.requires parent != null, child != null, and label != null
+     * @spec.effects remove the edge from the graph indicated by the label, starting node and ending node.
+     */
+
+    public boolean removeEdge(Node<T> parent, Node<T> child, E label) {
+        if (parent == null || child == null) {
+            throw new IllegalArgumentException("node can not be null");
+        }
+        if (label == null) {
+            throw new IllegalArgumentException("label can not be null");
+        }
+        Edge<T,E> edge = new Edge<>(child, label);
+        boolean[] removed = new boolean[1];
+        graph.computeIfPresent(parent, (k, edges) -> {
+            removed[0] = edges.remove(edge);
+            return edges;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Return the set of all node this
+     *
+     * @return set of nodes in this
+     */
+
+    public Set<Node<T>> getNodes() {
+        return new HashSet<>(graph.keySet());
+    }
+
+    /**
+     * Return a read-only live view of all nodes in this
+     *
+     * @return unmodifiable view of the nodes in this
+     */
+
+    public Set<Node<T>> nodeView() {
+        return Collections.unmodifiableSet(graph.keySet());
+    }
+
+    /**
+     * Given a Node n, get a set of all edges connected to it
+     *
+     * @param n Node n to get the edges from
+     * @return returns a set of edges for <var>n</var>
+     * @throws IllegalArgumentException if n is null or not in the graph
+     */
+
+    public HashSet<Edge<T,E>> getEdges(Node<T> n) {
+        return new HashSet<>(edgesOf(n));
+    }
+
+    /**
+     * Given a Node n, return a read-only live view of the edges leaving it
+     *
+     * @param n Node n to get the edges from
+     * @return unmodifiable view of the edges of <var>n</var>
+     * @throws IllegalArgumentException if n is null or not in the graph
+     */
+
+    public Set<Edge<T,E>> edgeView(Node<T> n) {
+        return Collections.unmodifiableSet(edgesOf(n));
+    }
+
+    /**
+     * Calls visitor once for every node in the graph
+     *
+     * @param visitor called with each node
+     * @spec.requires visitor does not modify the graph
+     * @throws IllegalArgumentException if visitor is null
+     */
+
+    public void forEachNode(Consumer<? super Node<T>> visitor) {
+        if (visitor == null) throw new IllegalArgumentException("visitor can not be null");
+        for (Node<T> n : graph.keySet()) {
+            visitor.accept(n);
+        }
+    }
+
+    /**
+     * Calls visitor once for every edge leaving Node n, passing the child
+     * node and the label of the edge.
+     *
+     * @param n Node n to visit the edges of
+     * @param visitor called with (child, label) for each edge of <var>n</var>
+     * @throws IllegalArgumentException if n or visitor is null, or n is not in the graph
+     */
+
+    public void forEachEdge(Node<T> n, BiConsumer<? super Node<T>, ? super E> visitor) {
+        if (visitor == null) throw new IllegalArgumentException("visitor can not be null");
+        for (Edge<T,E> e : edgesOf(n)) {
+            visitor.accept(e.getChildNode(), e.getLabel());
+        }
+    }
+
+    /**
+     * Returns the number of edges leaving Node n
+     *
+     * @param n, a node
+     * @return the out-degree of Node <var>n</var>
+     * @throws IllegalArgumentException if n is null or not in the graph
+     */
+
+    public int degree(Node<T> n) {
+        return edgesOf(n).size();
+    }
+
+    /**
+     * Return data stored in a given Node
+     *  @param n Node to get data of
+     *  @spec.requires n is not null and is in the Graph
+     *  @return the data stored in n
+     */
+
+    public T getData(Node<T> n) {
+        if (n == null) {
+            throw new IllegalArgumentException("Node cannot be null");
+        }
+        if (!graph.containsKey(n)) {
+            throw new IllegalArgumentException("Node is not in the graph");
+        }
+        return n.getData();
+    }
+
+    /**
+     * Given a Node n, return all of its children nodes
+     *
+     * @param n, a node
+     * @return a set of all child nodes of Node <var>n</var>
+     * @throws IllegalArgumentException if the Node <var>n</var> is not in this.nodes
+     * @spec.requires n != null
+     */
+
+    public HashSet<Node<T>> getChildren(Node<T> n) {
+        HashSet<Node<T>> set = new HashSet<>();
+        for (Edge<T,E> e : edgesOf(n)) {
+            set.add(e.getChildNode());
+        }
+        return set;
+    }
+
+    /**
+     * Returns true is the graph is empty
+     *
+     * @return boolean: true is graph is empty, false otherwise
+     */
+
+    public boolean isEmpty() {
+        return graph.isEmpty();
+    }
+
+    /**
+     * Returns true if Node <var>n</var> is in the graph
+     *
+     * @param n the Node to find in the graph
+     * @return boolean: true if Node <var>n</var> is in the graph
+     * @throws IllegalArgumentException if the Node <var>n</var> is null.
+     */
+
+    public boolean containsNode(Node<T> n) {
+        if (n == null) throw new IllegalArgumentException("n cannot be null");
+        return graph.containsKey(n);
+    }
+
+    /**
+     * returns the number of nodes in the graph
+     *
+     * @return number of nodes in the graph
+     */
+
+    public int size() {
+        return graph.size();
+    }
+
+    /**
+     * Compiles the current nodes and edges into a read-only graph in
+     * compressed sparse row form.
+     *
+     * @return a frozen copy of this graph
+     */
+
+    public ImmutableGraph<T,E> freeze() {
+        return new ImmutableGraph<>(copy());
+    }
+
+    /**
+     * Copies the current nodes and edges into a plain, single-threaded Graph.
+     *
+     * @return a Graph with the same nodes and edges as this
+     */
+
+    public Graph<T,E> toGraph() {
+        Graph<T,E> g = new Graph<>(false);
+        for (Map.Entry<Node<T>, HashSet<Edge<T,E>>> entry : copy().entrySet()) {
+            g.addNode(entry.getKey());
+            for (Edge<T,E> e : entry.getValue()) {
+                g.addEdge(entry.getKey(), e.getChildNode(), e.getLabel());
+            }
+        }
+        return g;
+    }
+
+    /**
+     * Returns a private copy of the adjacency, so callers can iterate it twice
+     * and see the same edges both times
+     */
+    private Map<Node<T>, HashSet<Edge<T,E>>> copy() {
+        Map<Node<T>, HashSet<Edge<T,E>>> copy = new HashMap<>();
+        for (Map.Entry<Node<T>, Set<Edge<T,E>>> entry : graph.entrySet()) {
+            copy.put(entry.getKey(), new HashSet<>(entry.getValue()));
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the edge set of n, checking that n is in the graph
+     */
+    private Set<Edge<T,E>> edgesOf(Node<T> n) {
+        if (n == null) throw new IllegalArgumentException("n can not be null");
+        Set<Edge<T,E>> edges = graph.get(n);
+        if (edges == null) throw new IllegalArgumentException("n is not in the graph");
+        return edges;
+    }
+}
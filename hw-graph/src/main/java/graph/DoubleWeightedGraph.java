@@ -0,0 +1,635 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * This class represents a directed graph whose edge labels are primitive
+ * double weights. Nodes are interned into dense int handles and each node
+ * keeps its edges in a pair of parallel arrays, one of child handles and one
+ * of weights, so no Edge or Double object is made per edge. The shortest
+ * path search works on the same primitive arrays and never boxes a weight.
+ *
+ * Like Graph, a node may not have two edges to the same child with the same weight.
+ */
+
+public class DoubleWeightedGraph<T> implements GraphView<T, Double> {
+
+    // Rep invariant:
+    //     nodes, degrees, targets, weights != null
+    //     degrees.length == targets.length == weights.length >= nodes.size()
+    //     for 0 <= i < nodes.size(): targets[i] and weights[i] are non-null
+    //         arrays of the same length >= degrees[i], and
+    //         0 <= targets[i][k] < nodes.size() for every k < degrees[i]
+    //     no weight is NaN or negative
+
+    // Abstract function:
+    //    AF(this) = directed graph g such that
+    //    All Nodes in g = {nodes.node(i) | 0 <= i < nodes.size()}
+    //    All Edges starting from node i =
+    //        {(nodes.node(targets[i][k]), weights[i][k]) | 0 <= k < degrees[i]}
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int INITIAL_DEGREE = 4;
+
+    private final NodeTable<T> nodes;
+    private int[] degrees;
+    private int[][] targets;
+    private double[][] weights;
+    private int edgeCount;
+    // null unless enableComponentIndex() has been called
+    private ComponentIndex<T> components;
+    // null unless enableMetrics() has been called
+    private GraphMetrics metrics;
+
+    /**
+     * Constructor that initiates a new graph with no nodes or edges.
+     *
+     * @spec.effects creates an empty graph
+     */
+    public DoubleWeightedGraph() {
+        this.nodes = new NodeTable<>();
+        this.degrees = new int[INITIAL_CAPACITY];
+        this.targets = new int[INITIAL_CAPACITY][];
+        this.weights = new double[INITIAL_CAPACITY][];
+    }
+
+    /**
+     * Copies a Graph whose labels are Double weights.
+     *
+     * @param g the graph to copy
+     * @return a graph with the same nodes and weighted edges as <var>g</var>
+     * @throws IllegalArgumentException if g is null or has a negative or NaN weight
+     */
+
+    public static <T> DoubleWeightedGraph<T> of(Graph<T, Double> g) {
+        if (g == null) throw new IllegalArgumentException("g can not be null");
+        DoubleWeightedGraph<T> copy = new DoubleWeightedGraph<>();
+        for (Node<T> n : g.nodeView()) {
+            int parent = copy.addNode(n.getData());
+            for (Edge<T, Double> e : g.edgeView(n)) {
+                copy.addEdge(parent, copy.addNode(e.getChildNode().getData()), e.getLabel());
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Copies a memory-mapped graph file whose labels are Double weights.
+     * Handles in the copy are the same as the ids in the file.
+     *
+     * @param g the mapped graph to copy
+     * @return a graph with the same nodes and weighted edges as <var>g</var>
+     * @throws IllegalArgumentException if g is null or has a negative or NaN weight
+     */
+
+    public static <T> DoubleWeightedGraph<T> of(GraphFile.MappedGraph<T, Double> g) {
+        if (g == null) throw new IllegalArgumentException("g can not be null");
+        DoubleWeightedGraph<T> copy = new DoubleWeightedGraph<>();
+        for (int i = 0; i < g.size(); i++) {
+            copy.addNode(g.node(i).getData());
+        }
+        for (int i = 0; i < g.size(); i++) {
+            for (int k = g.edgeStart(i); k < g.edgeEnd(i); k++) {
+                copy.addEdge(i, g.target(k), g.label(k));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Copies this graph into a Graph whose labels are Double weights.
+     *
+     * @return a Graph with the same nodes and weighted edges as this
+     */
+
+    public Graph<T, Double> toGraph() {
+        Graph.Builder<T, Double> builder = new Graph.Builder<>(nodes.size(), edgeCount);
+        for (int i = 0; i < nodes.size(); i++) {
+            builder.addNode(nodes.node(i).getData());
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            for (int k = 0; k < degrees[i]; k++) {
+                builder.addEdge(i, targets[i][k], weights[i][k]);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Adds a node holding data if there is none yet and returns its handle
+     *
+     * @param data the data of the node
+     * @return the handle of the node holding <var>data</var>
+     * @throws IllegalArgumentException if data is null
+     * @spec.modifies this
+     * @spec.effects adds a node holding <var>data</var> if it is not already in the graph
+     */
+
+    public int addNode(T data) {
+        int handle = nodes.handle(data);
+        if (handle >= degrees.length) {
+            int capacity = degrees.length * 2;
+            degrees = Arrays.copyOf(degrees, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
+        if (targets[handle] == null) {
+            targets[handle] = new int[INITIAL_DEGREE];
+            weights[handle] = new double[INITIAL_DEGREE];
+            if (metrics != null) {
+                metrics.nodeAdded();
+            }
+            if (components != null) {
+                components.nodeAdded(nodes.node(handle));
+            }
+        }
+        return handle;
+    }
+
+    /**
+     * Create a weighted edge between two nodes, adding either node if it is
+     * not in the graph yet.
+     *
+     * @param parent the data of the parent node where the edge will begin
+     * @param child  the data of the child node
+     * @param weight the weight of the edge
+     * @throws IllegalArgumentException if parent or child is null, or weight is negative or NaN
+     * @spec.modifies this
+     * @return boolean: returns true is the edge is successfully added. false otherwise
+     */
+
+    public boolean addEdge(T parent, T child, double weight) {
+        return addEdge(addNode(parent), addNode(child), weight);
+    }
+
+    /**
+     * Create a weighted edge between the nodes with the given handles.
+     *
+     * @param parent the handle of the parent node where the edge will begin
+     * @param child  the handle of the child node
+     * @param weight the weight of the edge
+     * @throws IllegalArgumentException if a handle is unknown, or weight is negative or NaN
+     * @spec.modifies this
+     * @return boolean: returns true is the edge is successfully added. false otherwise
+     */
+
+    public boolean addEdge(int parent, int child, double weight) {
+        checkHandle(parent);
+        checkHandle(child);
+        if (!(weight >= 0)) throw new IllegalArgumentException("weight must be a non-negative number");
+        int degree = degrees[parent];
+        int[] ts = targets[parent];
+        double[] ws = weights[parent];
+        for (int k = 0; k < degree; k++) {
+            if (ts[k] == child && ws[k] == weight) {
+                return false;
+            }
+        }
+        if (degree == ts.length) {
+            targets[parent] = ts = Arrays.copyOf(ts, degree * 2);
+            weights[parent] = ws = Arrays.copyOf(ws, degree * 2);
+        }
+        ts[degree] = child;
+        ws[degree] = weight;
+        degrees[parent] = degree + 1;
+        edgeCount++;
+        if (metrics != null) {
+            metrics.edgeAdded(degree);
+        }
+        if (components != null) {
+            components.edgeAdded(nodes.node(parent), nodes.node(child));
+        }
+        return true;
+    }
+
+    /**
+     * Returns the handle of the node holding data
+     *
+     * @param data the data of the node
+     * @return the handle of the node holding <var>data</var>, or -1 if it is not in the graph
+     * @throws IllegalArgumentException if data is null
+     */
+
+    public int handleOf(T data) {
+        if (metrics != null) {
+            metrics.lookup();
+        }
+        return nodes.handleOf(data);
+    }
+
+    /**
+     * Returns the node with the given handle
+     *
+     * @param handle the handle of a node
+     * @return the Node whose handle is <var>handle</var>
+     * @throws IllegalArgumentException if the handle is unknown
+     */
+
+    public Node<T> node(int handle) {
+        return nodes.node(handle);
+    }
+
+    /**
+     * returns the number of nodes in the graph
+     *
+     * @return number of nodes in the graph
+     */
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * returns the number of edges in the graph
+     *
+     * @return number of edges in the graph
+     */
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Returns the number of edges leaving a node
+     *
+     * @param handle the handle of the node
+     * @return the out-degree of the node
+     * @throws IllegalArgumentException if the handle is unknown
+     */
+
+    public int degree(int handle) {
+        checkHandle(handle);
+        return degrees[handle];
+    }
+
+    /**
+     * Returns the child handle of the k-th edge of a node
+     *
+     * @param handle the handle of the node
+     * @param k the position of the edge
+     * @spec.requires 0 &lt;= k &lt; degree(handle)
+     * @return the handle of the child of that edge
+     */
+
+    public int target(int handle, int k) {
+        return targets[handle][k];
+    }
+
+    /**
+     * Returns the weight of the k-th edge of a node
+     *
+     * @param handle the handle of the node
+     * @param k the position of the edge
+     * @spec.requires 0 &lt;= k &lt; degree(handle)
+     * @return the weight of that edge
+     */
+
+    public double weight(int handle, int k) {
+        return weights[handle][k];
+    }
+
+    /**
+     * Returns true if Node <var>n</var> is in the graph
+     *
+     * @param n the Node to find in the graph
+     * @return boolean: true if Node <var>n</var> is in the graph
+     * @throws IllegalArgumentException if the Node <var>n</var> is null.
+     */
+
+    public boolean containsNode(Node<T> n) {
+        if (n == null) throw new IllegalArgumentException("n cannot be null");
+        return nodes.handleOf(n.getData()) >= 0;
+    }
+
+    /**
+     * Calls visitor once for every node in the graph
+     *
+     * @param visitor called with each node
+     * @spec.requires visitor does not modify the graph
+     * @throws IllegalArgumentException if visitor is null
+     */
+
+    public void forEachNode(Consumer<? super Node<T>> visitor) {
+        if (visitor == null) throw new IllegalArgumentException("visitor can not be null");
+        for (int i = 0; i < nodes.size(); i++) {
+            visitor.accept(nodes.node(i));
+        }
+    }
+
+    /**
+     * Calls visitor once for every edge leaving Node n, passing the child
+     * node and the weight of the edge. Each weight is boxed on the way;
+     * use target and weight to walk the edges without boxing.
+     *
+     * @param n Node n to visit the edges of
+     * @param visitor called with (child, weight) for each edge of <var>n</var>
+     * @throws IllegalArgumentException if n or visitor is null, or n is not in the graph
+     */
+
+    public void forEachEdge(Node<T> n, BiConsumer<? super Node<T>, ? super Double> visitor) {
+        if (visitor == null) throw new IllegalArgumentException("visitor can not be null");
+        if (n == null) throw new IllegalArgumentException("n cannot be null");
+        int handle = nodes.handleOf(n.getData());
+        if (handle < 0) throw new IllegalArgumentException("n is not in the graph");
+        for (int k = 0; k < degrees[handle]; k++) {
+            visitor.accept(nodes.node(targets[handle][k]), weights[handle][k]);
+        }
+    }
+
+    /**
+     * Starts counting the nodes and edges added to this graph, handleOf
+     * lookups, and the work done by shortestPath. Until this is called no
+     * counting is done. Does nothing but return the existing metrics if
+     * they are already enabled.
+     *
+     * @return the metrics of this graph
+     * @spec.modifies this
+     */
+
+    public GraphMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new GraphMetrics(this, GraphMetrics.ARRAY_NODE_BYTES, GraphMetrics.ARRAY_EDGE_BYTES);
+        }
+        return metrics;
+    }
+
+    /**
+     * Returns the metrics of this graph
+     *
+     * @return the metrics of this graph, or null if enableMetrics() has not been called
+     */
+
+    public GraphMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Starts keeping an index of the weakly connected components of this
+     * graph, which shortestPath consults before searching. Adding nodes and
+     * edges updates the index. Does nothing but return the existing index if
+     * it is already enabled.
+     *
+     * @return the component index of this graph
+     * @spec.modifies this
+     * @spec.effects builds the component index from the current edges
+     */
+
+    public ComponentIndex<T> enableComponentIndex() {
+        if (components == null) {
+            components = ComponentIndex.of(this);
+        }
+        return components;
+    }
+
+    /**
+     * Returns the component index of this graph
+     *
+     * @return the component index of this graph, or null if enableComponentIndex() has not been called
+     */
+
+    public ComponentIndex<T> components() {
+        return components;
+    }
+
+    /**
+     * Finds the minimum-cost path between two nodes with Dijkstra's algorithm.
+     * If the component index is enabled, nodes in different components are
+     * answered at once without searching. If metrics are enabled, every
+     * search reports the nodes it settled, the peak size of its queue and
+     * the edges it expanded.
+     *
+     * @param start the handle of the start node
+     * @param end the handle of the end node
+     * @return the minimum-cost route from <var>start</var> to <var>end</var>,
+     * or null if no path exists
+     * @throws IllegalArgumentException if either handle is unknown
+     */
+
+    public Route shortestPath(int start, int end) {
+        checkHandle(start);
+        checkHandle(end);
+        if (components != null && !components.connected(nodes.node(start), nodes.node(end))) {
+            // no path exist from start to end
+            return null;
+        }
+        int n = nodes.size();
+        double[] dist = new double[n];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        int[] prev = new int[n];
+        double[] prevWeight = new double[n];
+        boolean[] finished = new boolean[n];
+        DoubleHeap active = new DoubleHeap(Math.max(INITIAL_CAPACITY, n));
+        int settled = 0;
+        int queuePeak = 1;
+        long expanded = 0;
+
+        dist[start] = 0.0;
+        prev[start] = -1;
+        active.add(0.0, start);
+        while (!active.isEmpty()) {
+            double cost = active.minKey();
+            int minDest = active.poll();
+            if (finished[minDest]) {
+                continue;
+            }
+            if (minDest == end) {
+                report(settled, queuePeak, expanded);
+                return Route.of(start, end, prev, prevWeight, cost);
+            }
+            finished[minDest] = true;
+            settled++;
+            int[] ts = targets[minDest];
+            double[] ws = weights[minDest];
+            expanded += degrees[minDest];
+            for (int k = 0; k < degrees[minDest]; k++) {
+                int child = ts[k];
+                double next = cost + ws[k];
+                if (!finished[child] && next < dist[child]) {
+                    dist[child] = next;
+                    prev[child] = minDest;
+                    prevWeight[child] = ws[k];
+                    active.add(next, child);
+                }
+            }
+            queuePeak = Math.max(queuePeak, active.size());
+        }
+        report(settled, queuePeak, expanded);
+        // no path exist from start to end
+        return null;
+    }
+
+    /**
+     * Reports one search to the metrics of this graph, if it keeps any
+     */
+    private void report(int settled, int queuePeak, long expanded) {
+        if (metrics != null) {
+            metrics.recordQuery(settled, queuePeak, expanded);
+        }
+    }
+
+    /**
+     * Throws if no node has the given handle
+     */
+    private void checkHandle(int handle) {
+        if (handle < 0 || handle >= nodes.size()) {
+            throw new IllegalArgumentException("unknown handle " + handle);
+        }
+    }
+
+    /**
+     * This class represents a path found by shortestPath, as the handles of
+     * the nodes along it and the weight of each step.
+     */
+    public static final class Route {
+
+        // Rep invariant:
+        //     nodes.length == steps.length + 1 >= 1
+        //     cost == the sum of steps
+
+        private final int[] nodes;
+        private final double[] steps;
+        private final double cost;
+
+        private Route(int[] nodes, double[] steps, double cost) {
+            this.nodes = nodes;
+            this.steps = steps;
+            this.cost = cost;
+        }
+
+        /**
+         * Walks the predecessor arrays back from end to build a route
+         */
+        private static Route of(int start, int end, int[] prev, double[] prevWeight, double cost) {
+            int length = 0;
+            for (int v = end; v != start; v = prev[v]) {
+                length++;
+            }
+            int[] nodes = new int[length + 1];
+            double[] steps = new double[length];
+            int v = end;
+            for (int i = length; i > 0; i--) {
+                nodes[i] = v;
+                steps[i - 1] = prevWeight[v];
+                v = prev[v];
+            }
+            nodes[0] = start;
+            return new Route(nodes, steps, cost);
+        }
+
+        /**
+         * Returns the number of edges in the route
+         *
+         * @return number of steps from the start to the end
+         */
+
+        public int length() {
+            return steps.length;
+        }
+
+        /**
+         * Returns the handle of the i-th node of the route; node 0 is the start
+         *
+         * @param i the position in the route
+         * @spec.requires 0 &lt;= i &lt;= length()
+         * @return the handle of that node
+         */
+
+        public int node(int i) {
+            return nodes[i];
+        }
+
+        /**
+         * Returns the weight of the i-th step, from node(i) to node(i + 1)
+         *
+         * @param i the position of the step
+         * @spec.requires 0 &lt;= i &lt; length()
+         * @return the weight of that step
+         */
+
+        public double stepCost(int i) {
+            return steps[i];
+        }
+
+        /**
+         * Returns the total weight of the route
+         *
+         * @return the sum of all step weights
+         */
+
+        public double cost() {
+            return cost;
+        }
+    }
+
+    /**
+     * A binary min-heap of (double key, int value) pairs kept in primitive
+     * arrays. Stale entries are left in the heap and skipped by the caller.
+     */
+    private static final class DoubleHeap {
+        private double[] keys;
+        private int[] values;
+        private int size;
+
+        DoubleHeap(int capacity) {
+            keys = new double[capacity];
+            values = new int[capacity];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        double minKey() {
+            return keys[0];
+        }
+
+        void add(double key, int value) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                keys[i] = keys[parent];
+                values[i] = values[parent];
+                i = parent;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        int poll() {
+            int min = values[0];
+            size--;
+            double key = keys[size];
+            int value = values[size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (key <= keys[child]) {
+                    break;
+                }
+                keys[i] = keys[child];
+                values[i] = values[child];
+                i = child;
+            }
+            keys[i] = key;
+            values[i] = value;
+            return min;
+        }
+    }
+}
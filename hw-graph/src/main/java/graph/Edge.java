@@ -1,7 +1,5 @@
 package graph;
 
-import java.util.Objects;
-
 /**
  * This class represents the edge with a string label value within a graph
  * along the childnode connected to this edge.
@@ -66,8 +64,9 @@ public class Edge<T,E> {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Edge<?,?> edges = (Edge<?,?>) o;
-        return childNode.equals(edges.childNode) &&
-                label.equals(edges.label);
+        // labels are often shared instances, see LabelTable
+        return (childNode == edges.childNode || childNode.equals(edges.childNode)) &&
+                (label == edges.label || label.equals(edges.label));
     }
 
     /**
@@ -77,7 +76,8 @@ public class Edge<T,E> {
 
     @Override
     public int hashCode() {
-        return Objects.hash(childNode, label);
+        // same value as Objects.hash(childNode, label), without the varargs array
+        return 31 * (31 + childNode.hashCode()) + label.hashCode();
     }
 
     /**
@@ -1,9 +1,19 @@
 package graph;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * This is the top level class of our graph ADT. It represents a an object with
@@ -12,7 +22,25 @@ import java.util.Set;
  * An Edge is an object with a label stored in it and pointing to a child Node
  */
 
-public class Graph<T,E> {
+public class Graph<T,E> implements GraphView<T,E> {
+
+    /**
+     * How much of the representation invariant a Graph checks.
+     */
+    public enum CheckMode {
+        /** never check */
+        OFF,
+        /**
+         * after each mutation, check only the adjacency sets it touched,
+         * and sweep the whole graph every so many mutations
+         */
+        INCREMENTAL,
+        /** check the whole graph on every call, as new Graph(true) does */
+        FULL
+    }
+
+    // In INCREMENTAL mode with an adaptive sweep, the fewest mutations between sweeps
+    private static final int MIN_SWEEP_INTERVAL = 1024;
 
     // Rep invariant:
     //     graph != null
@@ -24,9 +52,36 @@ public class Graph<T,E> {
     //    {} g is an empty graph
     //    All Nodes in this = this.graph.keySet()
     //    All Edges starting from Node n = this.graph.getKey(n)
+    //    If parents != null, for every edge (p, label) in parents.get(c),
+    //    Edge(c, label) is in graph.get(p), and the other way around.
+    //    If labels != null, c is in labels.get(label).get(p) iff
+    //    Edge(c, label) is in graph.get(p), and no map or set in labels is empty.
+    //    If sorted != null, sorted.get(n) holds the edges of graph.get(n),
+    //    each once, in edgeOrder.
 
     private final Map<Node<T>, HashSet<Edge<T,E>>> graph;
-    boolean checkRep;
+    // incoming edges keyed by child, stored as Edge(parent, label);
+    // null unless enableParentIndex() has been called
+    private Map<Node<T>, HashSet<Edge<T,E>>> parents;
+    // edges keyed by label, then by parent, holding the children;
+    // null unless enableLabelIndex() has been called
+    private Map<E, HashMap<Node<T>, HashSet<Node<T>>>> labels;
+    // canonical nodes handed out by intern(); null until first used
+    private NodeTable<T> handles;
+    // null unless enableMetrics() has been called
+    private GraphMetrics metrics;
+    // null unless enableComponentIndex() has been called
+    private ComponentIndex<T> components;
+    // the edges of every node kept in edgeOrder; both null unless
+    // enableSortedEdges() has been called
+    private Map<Node<T>, ArrayList<Edge<T,E>>> sorted;
+    private Comparator<? super Edge<T,E>> edgeOrder;
+    private final CheckMode checkMode;
+    // INCREMENTAL only: mutations between full sweeps, or 0 to size the gap
+    // by the graph; the mutations since the last sweep; the gap until the next
+    private final int sweepInterval;
+    private int sinceSweep;
+    private int nextSweep;
 
     /**
      * Constructor that initiates a new graph with no nodes or edges.
@@ -35,9 +90,52 @@ public class Graph<T,E> {
      * @param checkRep boolean flag, if true will turn on the checkrep, false otherwise
      */
     public Graph(boolean checkRep) {
-        this.graph = new HashMap<>();
-        this.checkRep = checkRep;
-        checkRep();
+        this(checkRep ? CheckMode.FULL : CheckMode.OFF);
+    }
+
+    /**
+     * Constructor that initiates a new graph with no nodes or edges. In
+     * INCREMENTAL mode the whole graph is swept once the mutations since the
+     * last sweep reach the number of nodes and edges that sweep saw, so the
+     * sweeps cost a constant amount per mutation on average.
+     *
+     * @param checkMode how much of the rep invariant to check
+     * @throws IllegalArgumentException if checkMode is null
+     * @spec.effects creates an empty graph
+     */
+    public Graph(CheckMode checkMode) {
+        this(checkMode, 0);
+    }
+
+    /**
+     * Constructor that initiates a new graph with no nodes or edges, which
+     * in INCREMENTAL mode sweeps the whole graph every sweepInterval mutations.
+     *
+     * @param checkMode how much of the rep invariant to check
+     * @param sweepInterval the number of mutations between full sweeps in
+     *                      INCREMENTAL mode, or 0 to size the gap by the graph
+     * @throws IllegalArgumentException if checkMode is null or sweepInterval is negative
+     * @spec.effects creates an empty graph
+     */
+    public Graph(CheckMode checkMode, int sweepInterval) {
+        this(new HashMap<>(), null, checkMode, sweepInterval);
+    }
+
+    /**
+     * Constructor used by Builder to adopt an already filled adjacency map
+     * and the node table its nodes were interned in.
+     */
+    private Graph(Map<Node<T>, HashSet<Edge<T,E>>> graph, NodeTable<T> handles,
+                  CheckMode checkMode, int sweepInterval) {
+        if (checkMode == null) throw new IllegalArgumentException("checkMode can not be null");
+        if (sweepInterval < 0) throw new IllegalArgumentException("sweepInterval can not be negative");
+        this.graph = graph;
+        this.handles = handles;
+        this.checkMode = checkMode;
+        this.sweepInterval = sweepInterval;
+        if (checkMode != CheckMode.OFF) {
+            sweep();
+        }
     }
 
     /**
@@ -56,7 +154,16 @@ public class Graph<T,E> {
 
         if (!graph.containsKey(data)) {
             graph.put(data, new HashSet<>());
-            checkRep();
+            if (sorted != null) {
+                sorted.put(data, new ArrayList<>());
+            }
+            if (metrics != null) {
+                metrics.nodeAdded();
+            }
+            if (components != null) {
+                components.nodeAdded(data);
+            }
+            checkRep(data);
             return true;
         }
         return false;
@@ -91,7 +198,23 @@ public class Graph<T,E> {
         if (!graph.get(parent).contains(newEdge)) {
             HashSet<Edge<T,E>> edges = graph.get(parent);
             edges.add(newEdge);
-            checkRep();
+            if (metrics != null) {
+                metrics.edgeAdded(edges.size() - 1);
+            }
+            if (parents != null) {
+                parents.computeIfAbsent(child, k -> new HashSet<>()).add(new Edge<>(parent, label));
+            }
+            if (labels != null) {
+                labels.computeIfAbsent(label, k -> new HashMap<>())
+                        .computeIfAbsent(parent, k -> new HashSet<>()).add(child);
+            }
+            if (sorted != null) {
+                insertSorted(parent, newEdge);
+            }
+            if (components != null) {
+                components.edgeAdded(parent, child);
+            }
+            checkRep(parent);
             return true;
         }
         checkRep();
@@ -99,6 +222,70 @@ public class Graph<T,E> {
 
     }
 
+    /**
+     * Returns the int handle of the node holding data, adding the node to
+     * the graph if it is not there yet. All nodes made through handles share
+     * one canonical Node instance per data value.
+     *
+     * @param data the data of the node
+     * @return the handle of the node holding <var>data</var>
+     * @throws IllegalArgumentException if data is null
+     * @spec.modifies this
+     * @spec.effects adds a node holding <var>data</var> if it is not already in the graph
+     */
+
+    public int intern(T data) {
+        if (handles == null) {
+            handles = new NodeTable<>(graph.size());
+        }
+        int handle = handles.handle(data);
+        addNode(handles.node(handle));
+        return handle;
+    }
+
+    /**
+     * Returns the handle of the node holding data without adding anything
+     *
+     * @param data the data of the node
+     * @return the handle of the node holding <var>data</var>, or -1 if it was never interned
+     * @throws IllegalArgumentException if data is null
+     */
+
+    public int handleOf(T data) {
+        if (data == null) throw new IllegalArgumentException("data can not be null");
+        return handles == null ? -1 : handles.handleOf(data);
+    }
+
+    /**
+     * Returns the canonical node with the given handle. A handle stays valid
+     * after its node is removed from the graph.
+     *
+     * @param handle a handle returned by intern
+     * @return the Node with handle <var>handle</var>
+     * @throws IllegalArgumentException if handle was not returned by intern
+     */
+
+    public Node<T> node(int handle) {
+        if (handles == null) throw new IllegalArgumentException("unknown handle " + handle);
+        return handles.node(handle);
+    }
+
+    /**
+     * Create an edge between the nodes with the given handles.
+     * See addEdge(Node, Node, E).
+     *
+     * @param parent the handle of the parent node where the edge will begin
+     * @param child  the handle of the child node
+     * @param label  the label of the edge being added
+     * @throws IllegalArgumentException if a handle was not returned by intern or label is null
+     * @spec.modifies this
+     * @return boolean: returns true is the edge is successfully added. false otherwise
+     */
+
+    public boolean addEdge(int parent, int child, E label) {
+        return addEdge(node(parent), node(child), label);
+    }
+
     /**
      * Remove a given node n and all edges related to it. Return true if the node
      * can be removed and false other wise
@@ -113,14 +300,68 @@ public class Graph<T,E> {
     public boolean removeNode(Node<T> n) {
         if (n == null) throw new IllegalArgumentException("n can not be null");
         if (graph.containsKey(n)) {
-            graph.keySet().remove(n);
-            for (Node<T> x: graph.keySet()) {
-                for (Edge<T,E> e: graph.get(x)) {
-                    if (e.getChildNode().equals(n)) {
-                        removeEdge(x, e.getChildNode(), e.getLabel());
+            HashSet<Edge<T,E>> outgoing = graph.remove(n);
+            if (metrics != null) {
+                metrics.nodeRemoved(outgoing.size());
+            }
+            if (sorted != null) {
+                sorted.remove(n);
+            }
+            if (labels != null) {
+                for (Edge<T,E> out : outgoing) {
+                    removeLabel(out.getLabel(), n, out.getChildNode());
+                }
+            }
+            if (parents != null) {
+                // only the parents of n can hold edges into n
+                HashSet<Edge<T,E>> incoming = parents.remove(n);
+                if (incoming != null) {
+                    for (Edge<T,E> in : incoming) {
+                        HashSet<Edge<T,E>> edges = graph.get(in.getChildNode());
+                        if (edges != null) {
+                            Edge<T,E> into = new Edge<>(n, in.getLabel());
+                            if (edges.remove(into) && metrics != null) {
+                                metrics.edgeRemoved(edges.size() + 1);
+                            }
+                            if (labels != null) {
+                                removeLabel(in.getLabel(), in.getChildNode(), n);
+                            }
+                            if (sorted != null) {
+                                removeSorted(in.getChildNode(), into);
+                            }
+                        }
                     }
                 }
+                for (Edge<T,E> out : outgoing) {
+                    removeParent(out.getChildNode(), n, out.getLabel());
+                }
+            } else {
+                for (Map.Entry<Node<T>, HashSet<Edge<T,E>>> entry : graph.entrySet()) {
+                    int before = entry.getValue().size();
+                    entry.getValue().removeIf(e -> {
+                        if (!e.getChildNode().equals(n)) {
+                            return false;
+                        }
+                        if (labels != null) {
+                            removeLabel(e.getLabel(), entry.getKey(), n);
+                        }
+                        if (sorted != null) {
+                            removeSorted(entry.getKey(), e);
+                        }
+                        return true;
+                    });
+                    if (metrics != null) {
+                        for (int degree = before; degree > entry.getValue().size(); degree--) {
+                            metrics.edgeRemoved(degree);
+                        }
+                    }
+                }
+            }
+            if (components != null) {
+                components.removed();
+                components.rebuildIfStale();
             }
+            checkRep(n);
             return true;
         }
         return false;
@@ -146,6 +387,19 @@ public class Graph<T,E> {
         if (label == null) {
             throw new IllegalArgumentException("label can not be null");
         }
+        boolean removed = unlinkEdge(parent, child, label);
+        if (components != null) {
+            components.rebuildIfStale();
+        }
+        return removed;
+    }
+
+    /**
+     * Removes the edge from parent to child with the given label, if there
+     * is one, leaving the component index stale for the caller to rebuild
+     * once its whole change is done
+     */
+    private boolean unlinkEdge(Node<T> parent, Node<T> child, E label) {
         if (!graph.containsKey(parent)) {
             return false;
         }
@@ -153,13 +407,379 @@ public class Graph<T,E> {
         if (graph.get(parent).contains(edge)) {
             HashSet<Edge<T,E>> edges = graph.get(parent);
             edges.remove(edge);
-            //checkRep();
+            if (metrics != null) {
+                metrics.edgeRemoved(edges.size() + 1);
+            }
+            if (parents != null) {
+                removeParent(child, parent, label);
+            }
+            if (labels != null) {
+                removeLabel(label, parent, child);
+            }
+            if (sorted != null) {
+                removeSorted(parent, edge);
+            }
+            if (components != null) {
+                components.removed();
+            }
+            checkRep(parent);
             return true;
         }
         checkRep();
         return false;
     }
 
+    /**
+     * Puts edge into its place among the sorted edges of parent
+     */
+    private void insertSorted(Node<T> parent, Edge<T,E> edge) {
+        ArrayList<Edge<T,E>> edges = sorted.get(parent);
+        int at = Collections.binarySearch(edges, edge, edgeOrder);
+        edges.add(-(at + 1), edge);
+    }
+
+    /**
+     * Takes edge out of the sorted edges of parent
+     */
+    private void removeSorted(Node<T> parent, Edge<T,E> edge) {
+        ArrayList<Edge<T,E>> edges = sorted.get(parent);
+        edges.remove(Collections.binarySearch(edges, edge, edgeOrder));
+    }
+
+    /**
+     * Removes the incoming edge (parent, label) from the parent index entry of child
+     */
+    private void removeParent(Node<T> child, Node<T> parent, E label) {
+        HashSet<Edge<T,E>> incoming = parents.get(child);
+        if (incoming != null) {
+            incoming.remove(new Edge<>(parent, label));
+            if (incoming.isEmpty()) {
+                parents.remove(child);
+            }
+        }
+    }
+
+    /**
+     * Removes the edge from parent to child from the label index entry of label
+     */
+    private void removeLabel(E label, Node<T> parent, Node<T> child) {
+        HashMap<Node<T>, HashSet<Node<T>>> byParent = labels.get(label);
+        if (byParent == null) {
+            return;
+        }
+        HashSet<Node<T>> children = byParent.get(parent);
+        if (children != null) {
+            children.remove(child);
+            if (children.isEmpty()) {
+                byParent.remove(parent);
+            }
+        }
+        if (byParent.isEmpty()) {
+            labels.remove(label);
+        }
+    }
+
+    /**
+     * Starts keeping an index from each label to the edges that carry it,
+     * so nodesWithLabel, edgesWithLabel and removeEdgesWithLabel run in time
+     * proportional to the number of such edges instead of scanning the whole
+     * graph. Does nothing if the index is already enabled.
+     *
+     * @spec.modifies this
+     * @spec.effects builds the label index from the current edges
+     */
+
+    public void enableLabelIndex() {
+        if (labels != null) {
+            return;
+        }
+        labels = new HashMap<>();
+        for (Map.Entry<Node<T>, HashSet<Edge<T,E>>> entry : graph.entrySet()) {
+            for (Edge<T,E> e : entry.getValue()) {
+                labels.computeIfAbsent(e.getLabel(), k -> new HashMap<>())
+                        .computeIfAbsent(entry.getKey(), k -> new HashSet<>()).add(e.getChildNode());
+            }
+        }
+        checkRep();
+    }
+
+    /**
+     * Returns true if the label index is being kept
+     *
+     * @return boolean: true if enableLabelIndex() has been called
+     */
+
+    public boolean hasLabelIndex() {
+        return labels != null;
+    }
+
+    /**
+     * Returns the edges with the given label, as a map from each parent to
+     * the children it reaches through such an edge
+     *
+     * @param label the label to look for
+     * @return a new map from parent to children for every edge labelled <var>label</var>;
+     * empty if there is none
+     * @throws IllegalArgumentException if label is null
+     */
+
+    public HashMap<Node<T>, HashSet<Node<T>>> edgesWithLabel(E label) {
+        if (label == null) throw new IllegalArgumentException("label can not be null");
+        HashMap<Node<T>, HashSet<Node<T>>> edges = new HashMap<>();
+        if (labels != null) {
+            HashMap<Node<T>, HashSet<Node<T>>> byParent = labels.get(label);
+            if (byParent != null) {
+                for (Map.Entry<Node<T>, HashSet<Node<T>>> entry : byParent.entrySet()) {
+                    edges.put(entry.getKey(), new HashSet<>(entry.getValue()));
+                }
+            }
+        } else {
+            for (Map.Entry<Node<T>, HashSet<Edge<T,E>>> entry : graph.entrySet()) {
+                for (Edge<T,E> e : entry.getValue()) {
+                    if (e.getLabel().equals(label)) {
+                        edges.computeIfAbsent(entry.getKey(), k -> new HashSet<>()).add(e.getChildNode());
+                    }
+                }
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Returns every node at either end of an edge with the given label,
+     * e.g. all the characters in one comic book
+     *
+     * @param label the label to look for
+     * @return a new set of the parents and children of the edges labelled <var>label</var>
+     * @throws IllegalArgumentException if label is null
+     */
+
+    public HashSet<Node<T>> nodesWithLabel(E label) {
+        HashSet<Node<T>> nodes = new HashSet<>();
+        for (Map.Entry<Node<T>, HashSet<Node<T>>> entry : edgesWithLabel(label).entrySet()) {
+            nodes.add(entry.getKey());
+            nodes.addAll(entry.getValue());
+        }
+        return nodes;
+    }
+
+    /**
+     * Removes every edge with the given label, e.g. all the edges of a
+     * retracted comic book. Nodes are kept even if they are left without edges.
+     *
+     * @param label the label of the edges to remove
+     * @return the number of edges removed
+     * @throws IllegalArgumentException if label is null
+     * @spec.modifies this
+     * @spec.effects removes every edge labelled <var>label</var>
+     */
+
+    public int removeEdgesWithLabel(E label) {
+        int count = 0;
+        for (Map.Entry<Node<T>, HashSet<Node<T>>> entry : edgesWithLabel(label).entrySet()) {
+            for (Node<T> child : entry.getValue()) {
+                if (unlinkEdge(entry.getKey(), child, label)) {
+                    count++;
+                }
+            }
+        }
+        // one rebuild for the whole label, not one per edge
+        if (components != null) {
+            components.rebuildIfStale();
+        }
+        return count;
+    }
+
+    /**
+     * Starts keeping an index of incoming edges, so removeNode, getParents
+     * and inDegree run in time proportional to the degree of the node
+     * instead of scanning the whole graph. Does nothing if the index is
+     * already enabled.
+     *
+     * @spec.modifies this
+     * @spec.effects builds the incoming edge index from the current edges
+     */
+
+    public void enableParentIndex() {
+        if (parents != null) {
+            return;
+        }
+        parents = new HashMap<>();
+        for (Map.Entry<Node<T>, HashSet<Edge<T,E>>> entry : graph.entrySet()) {
+            for (Edge<T,E> e : entry.getValue()) {
+                parents.computeIfAbsent(e.getChildNode(), k -> new HashSet<>())
+                        .add(new Edge<>(entry.getKey(), e.getLabel()));
+            }
+        }
+        checkRep();
+    }
+
+    /**
+     * Returns true if the incoming edge index is being kept
+     *
+     * @return boolean: true if enableParentIndex() has been called
+     */
+
+    public boolean hasParentIndex() {
+        return parents != null;
+    }
+
+    /**
+     * Given a Node n, return all nodes that have an edge pointing to it
+     *
+     * @param n, a node
+     * @return a set of all parent nodes of Node <var>n</var>
+     * @throws IllegalArgumentException if the Node <var>n</var> is null or not in this.nodes
+     */
+
+    public HashSet<Node<T>> getParents(Node<T> n) {
+        if (n == null) throw new IllegalArgumentException("n can not be null");
+        if (!graph.containsKey(n)) throw new IllegalArgumentException("n is not in the graph");
+        HashSet<Node<T>> set = new HashSet<>();
+        if (parents != null) {
+            HashSet<Edge<T,E>> incoming = parents.get(n);
+            if (incoming != null) {
+                for (Edge<T,E> e : incoming) {
+                    set.add(e.getChildNode());
+                }
+            }
+        } else {
+            for (Map.Entry<Node<T>, HashSet<Edge<T,E>>> entry : graph.entrySet()) {
+                for (Edge<T,E> e : entry.getValue()) {
+                    if (e.getChildNode().equals(n)) {
+                        set.add(entry.getKey());
+                        break;
+                    }
+                }
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Returns the number of edges pointing to Node n
+     *
+     * @param n, a node
+     * @return the number of incoming edges of Node <var>n</var>
+     * @throws IllegalArgumentException if the Node <var>n</var> is null or not in this.nodes
+     */
+
+    public int inDegree(Node<T> n) {
+        if (n == null) throw new IllegalArgumentException("n can not be null");
+        if (!graph.containsKey(n)) throw new IllegalArgumentException("n is not in the graph");
+        if (parents != null) {
+            HashSet<Edge<T,E>> incoming = parents.get(n);
+            return incoming == null ? 0 : incoming.size();
+        }
+        int count = 0;
+        for (HashSet<Edge<T,E>> edges : graph.values()) {
+            for (Edge<T,E> e : edges) {
+                if (e.getChildNode().equals(n)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Starts counting operations on this graph and the queries reported
+     * against it. Until this is called no counting is done. Does nothing
+     * but return the existing metrics if they are already enabled.
+     *
+     * @return the metrics of this graph
+     * @spec.modifies this
+     */
+
+    public GraphMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new GraphMetrics(this, GraphMetrics.HASH_NODE_BYTES, GraphMetrics.HASH_EDGE_BYTES);
+        }
+        return metrics;
+    }
+
+    /**
+     * Returns the metrics of this graph, for search code to report its
+     * queries to
+     *
+     * @return the metrics of this graph, or null if enableMetrics() has not been called
+     */
+
+    public GraphMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Starts keeping an index of the weakly connected components of this
+     * graph, so searches can answer "no path" between nodes in different
+     * components without exploring either. Adding nodes and edges updates
+     * the index; a removal rebuilds it once, at the end of the call that
+     * removed nodes or edges, however many it removed. Does nothing but
+     * return the existing index if it is already enabled.
+     *
+     * @return the component index of this graph
+     * @spec.modifies this
+     * @spec.effects builds the component index from the current edges
+     */
+
+    public ComponentIndex<T> enableComponentIndex() {
+        if (components == null) {
+            components = ComponentIndex.of(this);
+        }
+        return components;
+    }
+
+    /**
+     * Returns the component index of this graph, for search code to rule
+     * out unreachable destinations with
+     *
+     * @return the component index of this graph, or null if enableComponentIndex() has not been called
+     */
+
+    public ComponentIndex<T> components() {
+        return components;
+    }
+
+    /**
+     * Starts keeping the edges of every node sorted in order, so that
+     * forEachEdge visits them in that order and searches that try edges in
+     * it need not sort them again. The edges are sorted once here; adding
+     * or removing an edge then puts it into or takes it out of its place.
+     * Calling this again with a different order sorts them again.
+     *
+     * @param order the order to keep the edges of each node in
+     * @spec.requires order orders no two distinct edges as equal
+     * @throws IllegalArgumentException if order is null
+     * @spec.modifies this
+     * @spec.effects sorts the edges of every node in <var>order</var>
+     */
+
+    public void enableSortedEdges(Comparator<? super Edge<T,E>> order) {
+        if (order == null) throw new IllegalArgumentException("order can not be null");
+        if (order.equals(edgeOrder)) {
+            return;
+        }
+        Map<Node<T>, ArrayList<Edge<T,E>>> lists = new HashMap<>(capacityFor(graph.size()));
+        for (Map.Entry<Node<T>, HashSet<Edge<T,E>>> entry : graph.entrySet()) {
+            ArrayList<Edge<T,E>> edges = new ArrayList<>(entry.getValue());
+            edges.sort(order);
+            lists.put(entry.getKey(), edges);
+        }
+        sorted = lists;
+        edgeOrder = order;
+        checkRep();
+    }
+
+    /**
+     * Returns the order forEachEdge visits the edges of each node in
+     *
+     * @return the order given to enableSortedEdges, or null if it has not been called
+     */
+
+    public Comparator<? super Edge<T,E>> edgeOrder() {
+        return edgeOrder;
+    }
+
     /**
      * returns the entire graph
      *
@@ -191,9 +811,98 @@ public class Graph<T,E> {
 
     public HashSet<Edge<T,E>> getEdges(Node<T> n) {
         checkRep();
+        if (metrics != null) {
+            metrics.lookup();
+        }
         return new HashSet<>(graph.get(n));
     }
 
+    /**
+     * Return a read-only live view of all nodes in this. Unlike getNodes,
+     * no copy is made, so later changes to the graph show up in the view.
+     *
+     * @return unmodifiable view of the nodes in this
+     */
+
+    public Set<Node<T>> nodeView() {
+        return Collections.unmodifiableSet(graph.keySet());
+    }
+
+    /**
+     * Given a Node n, return a read-only live view of the edges leaving it.
+     * Unlike getEdges, no copy is made.
+     *
+     * @param n Node n to get the edges from
+     * @return unmodifiable view of the edges of <var>n</var>
+     * @throws IllegalArgumentException if n is null or not in the graph
+     */
+
+    public Set<Edge<T,E>> edgeView(Node<T> n) {
+        return Collections.unmodifiableSet(edgesOf(n));
+    }
+
+    /**
+     * Calls visitor once for every node in the graph
+     *
+     * @param visitor called with each node
+     * @spec.requires visitor does not modify the graph
+     * @throws IllegalArgumentException if visitor is null
+     */
+
+    public void forEachNode(Consumer<? super Node<T>> visitor) {
+        if (visitor == null) throw new IllegalArgumentException("visitor can not be null");
+        for (Node<T> n : graph.keySet()) {
+            visitor.accept(n);
+        }
+    }
+
+    /**
+     * Calls visitor once for every edge leaving Node n, passing the child
+     * node and the label of the edge. Nothing is copied or allocated per edge.
+     * If enableSortedEdges has been called, the edges are visited in its order.
+     *
+     * @param n Node n to visit the edges of
+     * @param visitor called with (child, label) for each edge of <var>n</var>
+     * @spec.requires visitor does not modify this
+     * @throws IllegalArgumentException if n or visitor is null, or n is not in the graph
+     */
+
+    public void forEachEdge(Node<T> n, BiConsumer<? super Node<T>, ? super E> visitor) {
+        if (visitor == null) throw new IllegalArgumentException("visitor can not be null");
+        Collection<Edge<T,E>> edges = edgesOf(n);
+        if (sorted != null) {
+            edges = sorted.get(n);
+        }
+        for (Edge<T,E> e : edges) {
+            visitor.accept(e.getChildNode(), e.getLabel());
+        }
+    }
+
+    /**
+     * Returns the number of edges leaving Node n
+     *
+     * @param n, a node
+     * @return the out-degree of Node <var>n</var>
+     * @throws IllegalArgumentException if n is null or not in the graph
+     */
+
+    public int degree(Node<T> n) {
+        return edgesOf(n).size();
+    }
+
+    /**
+     * Returns the edge set of n, checking that n is in the graph
+     */
+    private HashSet<Edge<T,E>> edgesOf(Node<T> n) {
+        if (n == null) throw new IllegalArgumentException("n can not be null");
+        if (metrics != null) {
+            metrics.lookup();
+        }
+        HashSet<Edge<T,E>> edges = graph.get(n);
+        if (edges == null) throw new IllegalArgumentException("n is not in the graph");
+        return edges;
+    }
+
     /**
      * Return data stored in a given Node
      *  @param n Node to get data of
@@ -249,6 +958,9 @@ public class Graph<T,E> {
      */
     public boolean containsNode(Node<T> n) {
         if (n == null) throw new IllegalArgumentException("n cannot be null");
+        if (metrics != null) {
+            metrics.lookup();
+        }
         return graph.containsKey(n);
     }
 
@@ -263,6 +975,40 @@ public class Graph<T,E> {
         return graph.size();
     }
 
+    /**
+     * Compiles the current nodes and edges into a read-only graph in
+     * compressed sparse row form. Later changes to this graph are not
+     * reflected in the returned snapshot.
+     *
+     * @return a frozen copy of this graph
+     */
+
+    public ImmutableGraph<T,E> freeze() {
+        checkRep();
+        return new ImmutableGraph<>(graph);
+    }
+
+    /**
+     * Compiles the current nodes and edges into a read-only graph whose
+     * node ids follow nodeOrder and whose edges of every node are sorted by
+     * child id and then by labelOrder, so walking a node's edges in index
+     * order visits them in the order the two comparators define.
+     *
+     * @param nodeOrder the order of node ids
+     * @param labelOrder the order of edges to the same child
+     * @spec.requires nodeOrder orders no two distinct nodes as equal
+     * @return a frozen, ordered copy of this graph
+     * @throws IllegalArgumentException if either comparator is null
+     */
+
+    public ImmutableGraph<T,E> freeze(Comparator<? super T> nodeOrder, Comparator<? super E> labelOrder) {
+        if (nodeOrder == null || labelOrder == null) {
+            throw new IllegalArgumentException("comparators can not be null");
+        }
+        checkRep();
+        return new ImmutableGraph<>(graph, nodeOrder, labelOrder);
+    }
+
     /**
      * check if the representation invariant holds
      *
@@ -271,18 +1017,522 @@ public class Graph<T,E> {
 
 
     private void checkRep() throws RuntimeException {
-        if (checkRep) {
-            if (graph == null) throw new RuntimeException("Graph cannot be null");
+        if (checkMode == CheckMode.FULL) {
+            sweep();
+        }
+    }
+
+    /**
+     * check the representation invariant after a mutation that touched the
+     * adjacency set of Node n: the whole graph in FULL mode, and only n's
+     * adjacency set, plus a full sweep when one is due, in INCREMENTAL mode
+     *
+     * @throws RuntimeException if the representation invariant violates
+     */
+
+    private void checkRep(Node<T> n) throws RuntimeException {
+        if (checkMode == CheckMode.FULL) {
+            sweep();
+        } else if (checkMode == CheckMode.INCREMENTAL) {
+            HashSet<Edge<T,E>> edges = graph.get(n);
+            if (edges != null) {
+                checkAdjacency(n, edges);
+            } else if (parents != null && parents.containsKey(n)) {
+                throw new RuntimeException("parent index still holds a removed node");
+            }
+            if (++sinceSweep >= nextSweep) {
+                sweep();
+            }
+        }
+    }
+
+    /**
+     * Checks the representation invariant over the whole graph, whatever
+     * the check mode. INCREMENTAL graphs do this on their own from time to
+     * time; call it to force a sweep, e.g. after loading a data set.
+     *
+     * @throws RuntimeException if the representation invariant violates
+     */
+
+    public void validate() throws RuntimeException {
+        sweep();
+    }
+
+    /**
+     * Returns how much of the representation invariant this graph checks
+     *
+     * @return the check mode of this graph
+     */
+
+    public CheckMode checkMode() {
+        return checkMode;
+    }
+
+    /**
+     * Checks every adjacency set and schedules the next incremental sweep
+     */
+    private void sweep() throws RuntimeException {
+        if (graph == null) throw new RuntimeException("Graph cannot be null");
+        long seen = 0;
+        for (Map.Entry<Node<T>, HashSet<Edge<T,E>>> entry : graph.entrySet()) {
+            if (entry.getKey() == null) {
+                throw new RuntimeException("node cannot be null");
+            }
+            if (entry.getValue() == null) {
+                throw new RuntimeException("Edge set can not be null");
+            }
+            checkAdjacency(entry.getKey(), entry.getValue());
+            seen += 1 + entry.getValue().size();
+        }
+        sinceSweep = 0;
+        if (sweepInterval > 0) {
+            nextSweep = sweepInterval;
+        } else {
+            nextSweep = (int) Math.min(Integer.MAX_VALUE, Math.max(MIN_SWEEP_INTERVAL, seen));
+        }
+    }
+
+    /**
+     * Checks the edges leaving Node n
+     */
+    private void checkAdjacency(Node<T> n, HashSet<Edge<T,E>> edges) throws RuntimeException {
+        if (sorted != null && (!sorted.containsKey(n) || sorted.get(n).size() != edges.size())) {
+            throw new RuntimeException("sorted edges do not match the edges of " + n);
+        }
+        for (Edge<T,E> e : edges) {
+            if (e == null) throw new RuntimeException("edge cannot be null");
+            if (parents != null && (!parents.containsKey(e.getChildNode())
+                    || !parents.get(e.getChildNode()).contains(new Edge<>(n, e.getLabel())))) {
+                throw new RuntimeException("parent index is missing an edge");
+            }
+            if (labels != null && (!labels.containsKey(e.getLabel())
+                    || !labels.get(e.getLabel()).containsKey(n)
+                    || !labels.get(e.getLabel()).get(n).contains(e.getChildNode()))) {
+                throw new RuntimeException("label index is missing an edge");
+            }
+        }
+    }
+
+    /**
+     * Returns the initial capacity a HashMap or HashSet needs to hold
+     * expected entries without resizing
+     */
+    private static int capacityFor(int expected) {
+        return Math.max(16, (int) (expected / 0.75f) + 1);
+    }
+
+    /**
+     * This class builds a Graph in one pass from edges given in batches.
+     * Nodes are interned as they are added and edges are only buffered in
+     * primitive arrays, with labels replaced by ids from a LabelTable;
+     * build() then counts the edges of every node, sizes each HashMap and
+     * HashSet once, and removes duplicate edges while filling them. Every
+     * edge with the same label shares one label instance. The handles given
+     * out by a Builder stay valid in the Graph it builds.
+     *
+     * A Builder is meant to build one Graph; it must not be used after build().
+     */
+    public static class Builder<T,E> {
+
+        // Rep invariant:
+        //     nodes, labels != null, parents, children, labelIds != null
+        //     parents.length == children.length == labelIds.length >= edgeCount
+        //     for k < edgeCount: parents[k] and children[k] are handles of nodes
+        //         and labelIds[k] is an id in labels
+
+        private final NodeTable<T> nodes;
+        private int[] parents;
+        private int[] children;
+        private int[] labelIds;
+        private final LabelTable<E> labels;
+        private int edgeCount;
+        private CheckMode checkMode = CheckMode.OFF;
+
+        // Ranges with fewer edges than this are handled by a single task
+        private static final int SPLIT = 1 << 14;
+
+        /**
+         * Constructor that creates an empty builder with default sizes.
+         *
+         * @spec.effects creates a builder with no nodes or edges
+         */
+        public Builder() {
+            this(16, 16);
+        }
+
+        /**
+         * Constructor that creates an empty builder sized for the expected
+         * number of nodes and edges. The counts are only hints.
+         *
+         * @param expectedNodes the number of nodes the graph is expected to hold
+         * @param expectedEdges the number of edges the graph is expected to hold
+         * @spec.requires expectedNodes &gt;= 0 and expectedEdges &gt;= 0
+         * @spec.effects creates a builder with no nodes or edges
+         */
+        public Builder(int expectedNodes, int expectedEdges) {
+            if (expectedNodes < 0 || expectedEdges < 0) {
+                throw new IllegalArgumentException("expected counts can not be negative");
+            }
+            this.nodes = new NodeTable<>(expectedNodes);
+            int capacity = Math.max(16, expectedEdges);
+            this.parents = new int[capacity];
+            this.children = new int[capacity];
+            this.labelIds = new int[capacity];
+            this.labels = new LabelTable<>();
+        }
+
+        /**
+         * Turns the representation invariant check of the built graph on or off
+         *
+         * @param checkRep if true, the built graph will check its rep invariant
+         * @return this
+         * @spec.modifies this
+         */
+
+        public Builder<T,E> checkRep(boolean checkRep) {
+            return checkMode(checkRep ? CheckMode.FULL : CheckMode.OFF);
+        }
+
+        /**
+         * Sets how much of the representation invariant the built graph checks
+         *
+         * @param checkMode the check mode of the built graph
+         * @return this
+         * @throws IllegalArgumentException if checkMode is null
+         * @spec.modifies this
+         */
+
+        public Builder<T,E> checkMode(CheckMode checkMode) {
+            if (checkMode == null) throw new IllegalArgumentException("checkMode can not be null");
+            this.checkMode = checkMode;
+            return this;
+        }
+
+        /**
+         * Adds a node holding data
+         *
+         * @param data the data of the node
+         * @return the handle of the node, valid in the built graph
+         * @throws IllegalArgumentException if data is null
+         * @spec.modifies this
+         */
+
+        public int addNode(T data) {
+            return nodes.handle(data);
+        }
+
+        /**
+         * Adds an edge, adding its parent and child nodes if needed
+         *
+         * @param parent the data of the parent node where the edge will begin
+         * @param child  the data of the child node
+         * @param label  the label of the edge
+         * @return this
+         * @throws IllegalArgumentException if any argument is null
+         * @spec.modifies this
+         */
+
+        public Builder<T,E> addEdge(T parent, T child, E label) {
+            return addEdge(nodes.handle(parent), nodes.handle(child), label);
+        }
+
+        /**
+         * Adds an edge between the nodes with the given handles
+         *
+         * @param parent the handle of the parent node where the edge will begin
+         * @param child  the handle of the child node
+         * @param label  the label of the edge
+         * @return this
+         * @throws IllegalArgumentException if a handle is unknown or label is null
+         * @spec.modifies this
+         */
+
+        public Builder<T,E> addEdge(int parent, int child, E label) {
+            if (parent < 0 || parent >= nodes.size() || child < 0 || child >= nodes.size()) {
+                throw new IllegalArgumentException("unknown handle");
+            }
+            if (label == null) throw new IllegalArgumentException("label can not be null");
+            if (edgeCount == parents.length) {
+                grow(edgeCount * 2);
+            }
+            parents[edgeCount] = parent;
+            children[edgeCount] = child;
+            labelIds[edgeCount] = labels.id(label);
+            edgeCount++;
+            return this;
+        }
+
+        /**
+         * Adds an edge with the same label from parent to each of children
+         *
+         * @param parent the data of the parent node where the edges will begin
+         * @param children the data of the child nodes
+         * @param label  the label of every edge
+         * @return this
+         * @throws IllegalArgumentException if any argument or child is null
+         * @spec.modifies this
+         */
+
+        public Builder<T,E> addEdges(T parent, Iterable<? extends T> children, E label) {
+            if (children == null) throw new IllegalArgumentException("children can not be null");
+            int p = nodes.handle(parent);
+            for (T child : children) {
+                addEdge(p, nodes.handle(child), label);
+            }
+            return this;
+        }
 
-            for (Node<T> n : graph.keySet()) {
-                if (n == null) {
-                    throw new RuntimeException("node cannot be null");
+        /**
+         * Adds an edge with the same label in both directions between every
+         * two distinct members, as for the characters appearing in one book
+         *
+         * @param members the data of the nodes to connect
+         * @param label  the label of every edge
+         * @return this
+         * @throws IllegalArgumentException if any argument or member is null
+         * @spec.modifies this
+         */
+
+        public Builder<T,E> connectAll(Collection<? extends T> members, E label) {
+            if (members == null) throw new IllegalArgumentException("members can not be null");
+            int[] handles = new int[members.size()];
+            int i = 0;
+            for (T member : members) {
+                handles[i++] = nodes.handle(member);
+            }
+            for (i = 0; i < handles.length; i++) {
+                for (int j = i + 1; j < handles.length; j++) {
+                    if (handles[i] != handles[j]) {
+                        addEdge(handles[i], handles[j], label);
+                        addEdge(handles[j], handles[i], label);
+                    }
                 }
-                if (graph.get(n) == null) {
-                    throw new RuntimeException("Edge set can not be null");
+            }
+            return this;
+        }
+
+        /**
+         * Does the same as calling connectAll(members, label) for every
+         * (label, members) entry of groups, in the iteration order of groups,
+         * but writes the edges of different groups on the threads of pool.
+         *
+         * Nodes and labels are interned first, on the calling thread, and the
+         * number of edges of every group is counted, so each group gets its
+         * own range of the edge buffers; the tasks then fill their ranges
+         * without sharing anything they write. The buffers end up exactly
+         * as the sequential calls would leave them.
+         *
+         * @param groups the members of each group, by the label of its edges
+         * @param pool the pool that writes the edges
+         * @return this
+         * @throws IllegalArgumentException if any argument, label or member is null,
+         *         or the edges do not fit in a builder
+         * @spec.modifies this
+         */
+
+        public Builder<T,E> connectAll(Map<? extends E, ? extends Collection<? extends T>> groups,
+                                       ForkJoinPool pool) {
+            if (groups == null || pool == null) throw new IllegalArgumentException("arguments can not be null");
+            int[][] members = new int[groups.size()][];
+            int[] groupLabels = new int[groups.size()];
+            // offsets[g] is where the edges of group g start, counted from edgeCount
+            long[] offsets = new long[groups.size() + 1];
+            int g = 0;
+            for (Map.Entry<? extends E, ? extends Collection<? extends T>> entry : groups.entrySet()) {
+                if (entry.getKey() == null) throw new IllegalArgumentException("label can not be null");
+                if (entry.getValue() == null) throw new IllegalArgumentException("members can not be null");
+                int[] handles = new int[entry.getValue().size()];
+                int i = 0;
+                for (T member : entry.getValue()) {
+                    handles[i++] = nodes.handle(member);
                 }
-                for (Edge<T,E> e : graph.get(n)) {
-                    if (e == null) throw new RuntimeException("edge cannot be null");
+                members[g] = handles;
+                groupLabels[g] = labels.id(entry.getKey());
+                offsets[g + 1] = offsets[g] + 2 * distinctPairs(handles);
+                g++;
+            }
+            long needed = edgeCount + offsets[g];
+            if (needed > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("too many edges: " + needed);
+            if (needed > parents.length) {
+                grow((int) Math.min(Integer.MAX_VALUE - 8, Math.max(needed, 2L * parents.length)));
+            }
+            pool.invoke(new Connect(members, groupLabels, offsets, edgeCount, 0, g));
+            edgeCount = (int) needed;
+            return this;
+        }
+
+        /**
+         * Returns the number of pairs i &lt; j with handles[i] != handles[j]
+         */
+        private static long distinctPairs(int[] handles) {
+            long k = handles.length;
+            long pairs = k * (k - 1) / 2;
+            int[] sorted = handles.clone();
+            Arrays.sort(sorted);
+            int run = 1;
+            for (int i = 1; i <= sorted.length; i++) {
+                if (i < sorted.length && sorted[i] == sorted[i - 1]) {
+                    run++;
+                } else {
+                    pairs -= (long) run * (run - 1) / 2;
+                    run = 1;
+                }
+            }
+            return pairs;
+        }
+
+        private void grow(int capacity) {
+            parents = Arrays.copyOf(parents, capacity);
+            children = Arrays.copyOf(children, capacity);
+            labelIds = Arrays.copyOf(labelIds, capacity);
+        }
+
+        /**
+         * Writes the edges of groups [from, to) into their ranges of the buffers
+         */
+        private final class Connect extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final int[][] members;
+            private final int[] groupLabels;
+            private final long[] offsets;
+            private final int base;
+            private final int from;
+            private final int to;
+
+            Connect(int[][] members, int[] groupLabels, long[] offsets, int base, int from, int to) {
+                this.members = members;
+                this.groupLabels = groupLabels;
+                this.offsets = offsets;
+                this.base = base;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > 1 && offsets[to] - offsets[from] > SPLIT) {
+                    int mid = (from + to) >>> 1;
+                    invokeAll(new Connect(members, groupLabels, offsets, base, from, mid),
+                            new Connect(members, groupLabels, offsets, base, mid, to));
+                    return;
+                }
+                for (int g = from; g < to; g++) {
+                    int[] handles = members[g];
+                    int label = groupLabels[g];
+                    int k = base + (int) offsets[g];
+                    // the same order as connectAll(members, label)
+                    for (int i = 0; i < handles.length; i++) {
+                        for (int j = i + 1; j < handles.length; j++) {
+                            if (handles[i] != handles[j]) {
+                                parents[k] = handles[i];
+                                children[k] = handles[j];
+                                labelIds[k++] = label;
+                                parents[k] = handles[j];
+                                children[k] = handles[i];
+                                labelIds[k++] = label;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Builds the graph holding every node and edge added so far
+         *
+         * @return a new Graph with the added nodes and edges, without duplicate edges
+         */
+
+        public Graph<T,E> build() {
+            int n = nodes.size();
+            int[] degrees = new int[n];
+            for (int k = 0; k < edgeCount; k++) {
+                degrees[parents[k]]++;
+            }
+            List<HashSet<Edge<T,E>>> sets = new ArrayList<>(n);
+            Map<Node<T>, HashSet<Edge<T,E>>> graph = new HashMap<>(capacityFor(n));
+            for (int i = 0; i < n; i++) {
+                HashSet<Edge<T,E>> edges = new HashSet<>(capacityFor(degrees[i]));
+                sets.add(edges);
+                graph.put(nodes.node(i), edges);
+            }
+            for (int k = 0; k < edgeCount; k++) {
+                sets.get(parents[k]).add(new Edge<>(nodes.node(children[k]), labels.label(labelIds[k])));
+            }
+            return new Graph<>(graph, nodes, checkMode, 0);
+        }
+
+        /**
+         * Builds the same graph as build(), filling the edge sets of
+         * different nodes on the threads of pool. The edges are first sorted
+         * by parent, keeping the order they were added in, so every set gets
+         * its edges in the same order as in build().
+         *
+         * @param pool the pool that fills the edge sets
+         * @return a new Graph with the added nodes and edges, without duplicate edges
+         * @throws IllegalArgumentException if pool is null
+         */
+
+        public Graph<T,E> build(ForkJoinPool pool) {
+            if (pool == null) throw new IllegalArgumentException("pool can not be null");
+            int n = nodes.size();
+            int[] start = new int[n + 1];
+            for (int k = 0; k < edgeCount; k++) {
+                start[parents[k] + 1]++;
+            }
+            for (int i = 0; i < n; i++) {
+                start[i + 1] += start[i];
+            }
+            int[] byParent = new int[edgeCount];
+            int[] next = Arrays.copyOf(start, n);
+            for (int k = 0; k < edgeCount; k++) {
+                byParent[next[parents[k]]++] = k;
+            }
+            List<HashSet<Edge<T,E>>> sets = new ArrayList<>(Collections.nCopies(n, null));
+            pool.invoke(new Fill(start, byParent, sets, 0, n));
+            Map<Node<T>, HashSet<Edge<T,E>>> graph = new HashMap<>(capacityFor(n));
+            for (int i = 0; i < n; i++) {
+                graph.put(nodes.node(i), sets.get(i));
+            }
+            return new Graph<>(graph, nodes, checkMode, 0);
+        }
+
+        /**
+         * Fills the edge sets of the nodes with handles in [from, to)
+         */
+        private final class Fill extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final int[] start;
+            private final int[] byParent;
+            private final List<HashSet<Edge<T,E>>> sets;
+            private final int from;
+            private final int to;
+
+            Fill(int[] start, int[] byParent, List<HashSet<Edge<T,E>>> sets, int from, int to) {
+                this.start = start;
+                this.byParent = byParent;
+                this.sets = sets;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > 1 && start[to] - start[from] > SPLIT) {
+                    int mid = (from + to) >>> 1;
+                    invokeAll(new Fill(start, byParent, sets, from, mid), new Fill(start, byParent, sets, mid, to));
+                    return;
+                }
+                for (int i = from; i < to; i++) {
+                    HashSet<Edge<T,E>> edges = new HashSet<>(capacityFor(start[i + 1] - start[i]));
+                    for (int e = start[i]; e < start[i + 1]; e++) {
+                        int k = byParent[e];
+                        edges.add(new Edge<>(nodes.node(children[k]), labels.label(labelIds[k])));
+                    }
+                    // each task sets its own indices; invoke() publishes them to the caller
+                    sets.set(i, edges);
                 }
             }
         }
@@ -0,0 +1,462 @@
+package graph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * This class holds graph searches written against GraphView, so each one
+ * runs on every graph backend. A search that finds a path reports the
+ * nodes it settled, the edges it expanded and the peak size of its queue to
+ * the view's GraphMetrics, if the view keeps any.
+ *
+ * Paths are returned as the list of edges taken from the start, so the
+ * child of the last edge is the destination; a path from a node to itself
+ * is an empty list.
+ *
+ * If the view keeps a ComponentIndex, a search between nodes in different
+ * components returns null at once, without exploring or reporting a query.
+ */
+
+public final class GraphAlgorithms {
+
+    private GraphAlgorithms() {
+    }
+
+    /**
+     * Finds a path from start to dest with the fewest edges by breadth
+     * first search. The edges of each node are tried in edgeOrder, and each
+     * node keeps the first edge that reaches it, so among the shortest
+     * paths the one returned is the smallest in edgeOrder, step by step.
+     * If g already visits edges in edgeOrder, as a Graph with sorted edges
+     * does, they are walked as they come, without sorting or copying them.
+     *
+     * @param g the graph to search
+     * @param start the start node
+     * @param dest the destination node
+     * @param edgeOrder the order in which the edges of a node are tried, or
+     *                  null to try them in the order g visits them
+     * @return the shortest path from <var>start</var> to <var>dest</var>, or null
+     * if either node is not in g or no path exists
+     * @throws IllegalArgumentException if g, start or dest is null
+     */
+
+    public static <T,E> List<Edge<T,E>> bfs(GraphView<T,E> g, Node<T> start, Node<T> dest,
+                                            Comparator<? super Edge<T,E>> edgeOrder) {
+        if (g == null) throw new IllegalArgumentException("g cannot be null");
+        if (start == null || dest == null) throw new IllegalArgumentException("start and dest cannot be null");
+        if (!g.containsNode(start) || !g.containsNode(dest) || !mayConnect(g, start, dest)) {
+            return null;
+        }
+        Discover<T,E> discover = new Discover<>();
+        // edges only need sorting if g does not already visit them in edgeOrder
+        boolean inOrder = edgeOrder == null || edgeOrder.equals(g.edgeOrder());
+        List<Edge<T,E>> edges = new ArrayList<>();
+        BiConsumer<Node<T>, E> collect = (child, label) -> edges.add(new Edge<>(child, label));
+        int settled = 0;
+        int queuePeak = 1;
+
+        discover.queue.add(start);
+        discover.from.put(start, null);
+        while (!discover.queue.isEmpty()) {
+            Node<T> parent = discover.queue.remove();
+            settled++;
+            if (parent.equals(dest)) {
+                report(g, settled, queuePeak, discover.expanded);
+                return pathTo(dest, discover.via, discover.from);
+            }
+            discover.parent = parent;
+            if (inOrder) {
+                g.forEachEdge(parent, discover);
+            } else {
+                edges.clear();
+                g.forEachEdge(parent, collect);
+                edges.sort(edgeOrder);
+                for (Edge<T,E> e : edges) {
+                    discover.accept(e.getChildNode(), e.getLabel());
+                }
+            }
+            queuePeak = Math.max(queuePeak, discover.queue.size());
+        }
+        report(g, settled, queuePeak, discover.expanded);
+        return null;
+    }
+
+    /**
+     * Finds the same path as bfs(g, start, dest, edgeOrder), where edgeOrder
+     * compares the children of edges in nodeOrder and then their labels in
+     * labelOrder, but searches from both ends, so far fewer nodes are
+     * reached on graphs where nodes have many neighbors.
+     *
+     * With that edgeOrder, bfs returns the shortest path whose sequence of
+     * nodes is the smallest in nodeOrder, position by position, taking the
+     * smallest label between each two nodes. This search grows a ball
+     * around each end a level at a time, always growing the one with the
+     * smaller frontier, until they meet; that fixes the length of the
+     * shortest paths and the nodes where they cross. It then marks the
+     * nodes of the start's ball that lie on a shortest path, and walks from
+     * start taking, at every step, the smallest edge to a node that is
+     * still on a shortest path.
+     *
+     * @param g the graph to search
+     * @param start the start node
+     * @param dest the destination node
+     * @param nodeOrder the order in which the children of a node are tried
+     * @param labelOrder the order in which edges to the same child are tried
+     * @spec.requires g has an edge from v to u with label l for every edge
+     *                from u to v with label l, and nodeOrder orders no two
+     *                distinct nodes as equal
+     * @return the shortest path from <var>start</var> to <var>dest</var>, or null
+     * if either node is not in g or no path exists
+     * @throws IllegalArgumentException if any argument is null
+     */
+
+    public static <T,E> List<Edge<T,E>> bidirectionalBfs(GraphView<T,E> g, Node<T> start, Node<T> dest,
+                                                         Comparator<? super T> nodeOrder,
+                                                         Comparator<? super E> labelOrder) {
+        if (g == null) throw new IllegalArgumentException("g cannot be null");
+        if (start == null || dest == null) throw new IllegalArgumentException("start and dest cannot be null");
+        if (nodeOrder == null || labelOrder == null) throw new IllegalArgumentException("orders cannot be null");
+        if (!g.containsNode(start) || !g.containsNode(dest) || !mayConnect(g, start, dest)) {
+            return null;
+        }
+        if (start.equals(dest)) {
+            report(g, 1, 1, 0);
+            return new ArrayList<>();
+        }
+        // the distance from start, and to dest, of every node in each ball
+        Map<Node<T>, Integer> fromStart = new HashMap<>();
+        Map<Node<T>, Integer> toDest = new HashMap<>();
+        fromStart.put(start, 0);
+        toDest.put(dest, 0);
+        List<Node<T>> forward = new ArrayList<>();
+        List<Node<T>> backward = new ArrayList<>();
+        forward.add(start);
+        backward.add(dest);
+        int forwardRadius = 0;
+        int backwardRadius = 0;
+        List<Edge<T,E>> edges = new ArrayList<>();
+        BiConsumer<Node<T>, E> collect = (child, label) -> edges.add(new Edge<>(child, label));
+        int settled = 0;
+        int queuePeak = 2;
+        long expanded = 0;
+
+        // the nodes in both balls once they meet
+        List<Node<T>> meeting = new ArrayList<>();
+        while (meeting.isEmpty()) {
+            if (forward.isEmpty() || backward.isEmpty()) {
+                report(g, settled, queuePeak, expanded);
+                return null;
+            }
+            boolean forwards = forward.size() <= backward.size();
+            Map<Node<T>, Integer> mine = forwards ? fromStart : toDest;
+            Map<Node<T>, Integer> theirs = forwards ? toDest : fromStart;
+            int level = forwards ? ++forwardRadius : ++backwardRadius;
+            List<Node<T>> next = new ArrayList<>();
+            // since every edge has a twin going back, the edges out of a
+            // node of dest's ball are also the edges into it
+            for (Node<T> parent : forwards ? forward : backward) {
+                settled++;
+                edges.clear();
+                g.forEachEdge(parent, collect);
+                expanded += edges.size();
+                for (Edge<T,E> e : edges) {
+                    Node<T> child = e.getChildNode();
+                    if (!mine.containsKey(child)) {
+                        mine.put(child, level);
+                        next.add(child);
+                        if (theirs.containsKey(child)) {
+                            meeting.add(child);
+                        }
+                    }
+                }
+            }
+            if (forwards) {
+                forward = next;
+            } else {
+                backward = next;
+            }
+            queuePeak = Math.max(queuePeak, forward.size() + backward.size());
+        }
+
+        // the balls were disjoint before this level, so every meeting node
+        // is forwardRadius from start and backwardRadius from dest
+        int length = forwardRadius + backwardRadius;
+        Set<Node<T>> onPath = new HashSet<>(meeting);
+        List<Node<T>> layer = meeting;
+        for (int i = forwardRadius - 1; i > 0; i--) {
+            List<Node<T>> previous = new ArrayList<>();
+            for (Node<T> n : layer) {
+                edges.clear();
+                g.forEachEdge(n, collect);
+                expanded += edges.size();
+                for (Edge<T,E> e : edges) {
+                    Node<T> child = e.getChildNode();
+                    if (atDistance(fromStart, child, i) && onPath.add(child)) {
+                        previous.add(child);
+                    }
+                }
+            }
+            layer = previous;
+        }
+
+        List<Edge<T,E>> path = new ArrayList<>();
+        Node<T> at = start;
+        for (int i = 1; i <= length; i++) {
+            edges.clear();
+            g.forEachEdge(at, collect);
+            expanded += edges.size();
+            Edge<T,E> best = null;
+            for (Edge<T,E> e : edges) {
+                Node<T> child = e.getChildNode();
+                boolean next = i <= forwardRadius
+                        ? atDistance(fromStart, child, i) && onPath.contains(child)
+                        : atDistance(toDest, child, length - i);
+                if (next && (best == null || compare(e, best, nodeOrder, labelOrder) < 0)) {
+                    best = e;
+                }
+            }
+            path.add(best);
+            at = best.getChildNode();
+        }
+        report(g, settled, queuePeak, expanded);
+        return path;
+    }
+
+    /**
+     * Finds the minimum-cost path from start to end with Dijkstra's
+     * algorithm. When several paths have the same cost, the one returned is
+     * decided by the order g visits edges in, as in CampusPaths.dijistra.
+     *
+     * @param g the graph to search
+     * @param start the start node
+     * @param end the destination node
+     * @param weight gives the cost of an edge from its label
+     * @spec.requires weight never returns a negative number or NaN
+     * @return the minimum-cost path from <var>start</var> to <var>end</var>, or
+     * null if either node is not in g or no path exists
+     * @throws IllegalArgumentException if any argument is null
+     */
+
+    public static <T,E> List<Edge<T,E>> dijkstra(GraphView<T,E> g, Node<T> start, Node<T> end,
+                                                 ToDoubleFunction<? super E> weight) {
+        return aStar(g, start, end, weight, n -> 0.0);
+    }
+
+    /**
+     * Finds the minimum-cost path from start to end with A* search, which
+     * is Dijkstra's algorithm guided by an estimate of the cost left to
+     * reach end, so fewer nodes are settled.
+     *
+     * @param g the graph to search
+     * @param start the start node
+     * @param end the destination node
+     * @param weight gives the cost of an edge from its label
+     * @param heuristic estimates the cost of the cheapest path from a node to <var>end</var>
+     * @spec.requires weight never returns a negative number or NaN, and heuristic
+     *                is consistent: h(end) == 0 and h(u) &lt;= w(u, v) + h(v) for every edge
+     * @return the minimum-cost path from <var>start</var> to <var>end</var>, or
+     * null if either node is not in g or no path exists
+     * @throws IllegalArgumentException if any argument is null
+     */
+
+    public static <T,E> List<Edge<T,E>> aStar(GraphView<T,E> g, Node<T> start, Node<T> end,
+                                              ToDoubleFunction<? super E> weight,
+                                              ToDoubleFunction<? super Node<T>> heuristic) {
+        if (g == null) throw new IllegalArgumentException("g cannot be null");
+        if (start == null || end == null) throw new IllegalArgumentException("start and end cannot be null");
+        if (weight == null || heuristic == null) {
+            throw new IllegalArgumentException("weight and heuristic cannot be null");
+        }
+        if (!g.containsNode(start) || !g.containsNode(end) || !mayConnect(g, start, end)) {
+            return null;
+        }
+        PriorityQueue<Step<T,E>> active = new PriorityQueue<>((a, b) -> Double.compare(a.priority, b.priority));
+        Set<Node<T>> finished = new HashSet<>();
+        int queuePeak = 1;
+        long[] expanded = new long[1];
+
+        active.add(new Step<>(start, null, null, 0.0, heuristic.applyAsDouble(start)));
+        while (!active.isEmpty()) {
+            Step<T,E> min = active.poll();
+            if (min.node.equals(end)) {
+                report(g, finished.size(), queuePeak, expanded[0]);
+                return min.path();
+            }
+            if (!finished.contains(min.node)) {
+                g.forEachEdge(min.node, (child, label) -> {
+                    expanded[0]++;
+                    if (!finished.contains(child)) {
+                        double cost = min.cost + weight.applyAsDouble(label);
+                        active.add(new Step<>(child, label, min, cost, cost + heuristic.applyAsDouble(child)));
+                    }
+                });
+                queuePeak = Math.max(queuePeak, active.size());
+                // marked after expanding, so a self loop is queued like
+                // any other edge and ties break as in CampusPaths.dijistra
+                finished.add(min.node);
+            }
+        }
+        report(g, finished.size(), queuePeak, expanded[0]);
+        return null;
+    }
+
+    /**
+     * Lists the nodes reachable from start in depth first order: a node
+     * comes before everything first reached through it, and the edges of
+     * each node are followed in edgeOrder.
+     *
+     * @param g the graph to search
+     * @param start the node to start from
+     * @param edgeOrder the order in which the edges of a node are followed, or
+     *                  null to follow them in the order g visits them
+     * @return the nodes reachable from <var>start</var>, in the order they are first visited
+     * @throws IllegalArgumentException if g or start is null, or start is not in g
+     */
+
+    public static <T,E> List<Node<T>> dfs(GraphView<T,E> g, Node<T> start,
+                                          Comparator<? super Edge<T,E>> edgeOrder) {
+        if (g == null) throw new IllegalArgumentException("g cannot be null");
+        if (start == null) throw new IllegalArgumentException("start cannot be null");
+        if (!g.containsNode(start)) throw new IllegalArgumentException("start is not in the graph");
+        List<Node<T>> order = new ArrayList<>();
+        Set<Node<T>> visited = new HashSet<>();
+        ArrayDeque<Node<T>> stack = new ArrayDeque<>();
+        List<Edge<T,E>> edges = new ArrayList<>();
+        BiConsumer<Node<T>, E> collect = (child, label) -> edges.add(new Edge<>(child, label));
+
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            Node<T> n = stack.pop();
+            if (!visited.add(n)) {
+                continue;
+            }
+            order.add(n);
+            edges.clear();
+            g.forEachEdge(n, collect);
+            if (edgeOrder != null) {
+                edges.sort(edgeOrder);
+            }
+            // push in reverse so the first edge is followed first
+            for (int i = edges.size() - 1; i >= 0; i--) {
+                Node<T> child = edges.get(i).getChildNode();
+                if (!visited.contains(child)) {
+                    stack.push(child);
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Returns false if the component index of g, if it keeps one, shows
+     * there is no path from start to dest
+     */
+    private static <T> boolean mayConnect(GraphView<T,?> g, Node<T> start, Node<T> dest) {
+        ComponentIndex<T> components = g.components();
+        return components == null || components.connected(start, dest);
+    }
+
+    /**
+     * Returns true if distances records n at the given distance
+     */
+    private static <T> boolean atDistance(Map<Node<T>, Integer> distances, Node<T> n, int distance) {
+        Integer d = distances.get(n);
+        return d != null && d == distance;
+    }
+
+    /**
+     * Compares edges by child in nodeOrder, then by label in labelOrder
+     */
+    private static <T,E> int compare(Edge<T,E> a, Edge<T,E> b, Comparator<? super T> nodeOrder,
+                                     Comparator<? super E> labelOrder) {
+        int c = nodeOrder.compare(a.getChildNode().getData(), b.getChildNode().getData());
+        return c != 0 ? c : labelOrder.compare(a.getLabel(), b.getLabel());
+    }
+
+    /**
+     * Follows the edges recorded by bfs back from dest to the start
+     */
+    private static <T,E> List<Edge<T,E>> pathTo(Node<T> dest, Map<Node<T>, Edge<T,E>> via,
+                                                Map<Node<T>, Node<T>> from) {
+        List<Edge<T,E>> path = new ArrayList<>();
+        for (Node<T> n = dest; from.get(n) != null; n = from.get(n)) {
+            path.add(via.get(n));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Reports one query to the metrics of g, if it keeps any
+     */
+    private static void report(GraphView<?,?> g, int settled, int queuePeak, long expanded) {
+        GraphMetrics metrics = g.metrics();
+        if (metrics != null) {
+            metrics.recordQuery(settled, queuePeak, expanded);
+        }
+    }
+
+    /**
+     * The state of one bfs, and the visitor it passes the edges of each
+     * node to in order: a child reached for the first time records the
+     * edge and the node it was reached from, and joins the queue
+     */
+    private static final class Discover<T,E> implements BiConsumer<Node<T>, E> {
+        final ArrayDeque<Node<T>> queue = new ArrayDeque<>();
+        // the edge that first reached each node and the node it left from
+        final Map<Node<T>, Edge<T,E>> via = new HashMap<>();
+        final Map<Node<T>, Node<T>> from = new HashMap<>();
+        // the node whose edges are being visited
+        Node<T> parent;
+        long expanded;
+
+        @Override
+        public void accept(Node<T> child, E label) {
+            expanded++;
+            if (!from.containsKey(child)) {
+                via.put(child, new Edge<>(child, label));
+                from.put(child, parent);
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * One entry of the A* queue: a path, kept as a chain of steps back to
+     * the start, that ends at node
+     */
+    private static final class Step<T,E> {
+        final Node<T> node;
+        final E label;
+        final Step<T,E> previous;
+        final double cost;
+        final double priority;
+
+        Step(Node<T> node, E label, Step<T,E> previous, double cost, double priority) {
+            this.node = node;
+            this.label = label;
+            this.previous = previous;
+            this.cost = cost;
+            this.priority = priority;
+        }
+
+        List<Edge<T,E>> path() {
+            List<Edge<T,E>> path = new ArrayList<>();
+            for (Step<T,E> s = this; s.previous != null; s = s.previous) {
+                path.add(new Edge<>(s.node, s.label));
+            }
+            Collections.reverse(path);
+            return path;
+        }
+    }
+}
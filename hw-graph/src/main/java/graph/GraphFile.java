@@ -0,0 +1,564 @@
+package graph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * This class reads and writes graphs in a compact binary file format, so a
+ * graph can be loaded without parsing its source data again. A file is
+ * loaded by memory-mapping it: map() only checks the header, and nodes and
+ * labels are decoded when a query reaches them.
+ *
+ * All numbers are big-endian 32-bit ints. A file holds, in order:
+ * <ol>
+ * <li>the header: MAGIC, VERSION, the node count N, the edge count M and the label count L</li>
+ * <li>the CSR adjacency: offsets[N + 1], targets[M] and labelIds[M]</li>
+ * <li>the node pool: start[N + 1] byte positions followed by the UTF-8 names of the nodes</li>
+ * <li>the label pool: start[L + 1] byte positions followed by the UTF-8 labels</li>
+ * </ol>
+ * Node ids are assigned in the byte order of the encoded names, so a node
+ * can be found by binary search in the mapped node pool.
+ */
+
+public final class GraphFile {
+
+    /**
+     * The first four bytes of every graph file, "CPGR"
+     */
+    public static final int MAGIC = 0x43504752;
+
+    /**
+     * The version of the format written by this class
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Size of the header in bytes
+     */
+    static final int HEADER_BYTES = 5 * Integer.BYTES;
+
+    /**
+     * Converts values to and from the strings stored in a graph file.
+     * decode(encode(v)) must equal v, and distinct nodes must have distinct encodings.
+     */
+    public interface Codec<V> {
+        /**
+         * @param value the value to encode
+         * @return the string form of <var>value</var>
+         */
+        String encode(V value);
+
+        /**
+         * @param text a string made by encode
+         * @return the value whose string form is <var>text</var>
+         */
+        V decode(String text);
+    }
+
+    /**
+     * Codec for String nodes and labels, which are stored as they are
+     */
+    public static final Codec<String> STRINGS = new Codec<String>() {
+        @Override
+        public String encode(String value) {
+            return value;
+        }
+
+        @Override
+        public String decode(String text) {
+            return text;
+        }
+    };
+
+    /**
+     * Codec for Double labels, stored in a form that reads back exactly
+     */
+    public static final Codec<Double> DOUBLES = new Codec<Double>() {
+        @Override
+        public String encode(Double value) {
+            return Double.toString(value);
+        }
+
+        @Override
+        public Double decode(String text) {
+            return Double.valueOf(text);
+        }
+    };
+
+    private GraphFile() {
+    }
+
+    /**
+     * Writes a graph to a file, replacing the file if it exists.
+     *
+     * @param g the graph to write
+     * @param file the file to write to
+     * @param nodes the codec for the data of the nodes
+     * @param labels the codec for the labels of the edges
+     * @throws IOException if the file can not be written
+     * @throws IllegalArgumentException if an argument is null or two nodes encode to the same string
+     */
+
+    public static <T,E> void write(ImmutableGraph<T,E> g, Path file, Codec<T> nodes, Codec<E> labels)
+            throws IOException {
+        if (g == null || file == null || nodes == null || labels == null) {
+            throw new IllegalArgumentException("arguments can not be null");
+        }
+        int n = g.size();
+        byte[][] names = new byte[n][];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            names[i] = nodes.encode(g.node(i).getData()).getBytes(StandardCharsets.UTF_8);
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(names[a], names[b]));
+        int[] fileId = new int[n];
+        for (int i = 0; i < n; i++) {
+            fileId[order[i]] = i;
+            if (i > 0 && Arrays.equals(names[order[i - 1]], names[order[i]])) {
+                throw new IllegalArgumentException("two nodes encode to the same string");
+            }
+        }
+        LabelTable<E> pool = g.labelTable();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(n);
+            out.writeInt(g.edgeCount());
+            out.writeInt(pool.size());
+
+            int offset = 0;
+            for (int i = 0; i < n; i++) {
+                out.writeInt(offset);
+                offset += g.degree(order[i]);
+            }
+            out.writeInt(offset);
+            for (int i = 0; i < n; i++) {
+                for (int k = g.edgeStart(order[i]); k < g.edgeEnd(order[i]); k++) {
+                    out.writeInt(fileId[g.target(k)]);
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                for (int k = g.edgeStart(order[i]); k < g.edgeEnd(order[i]); k++) {
+                    out.writeInt(g.labelId(k));
+                }
+            }
+
+            byte[][] sortedNames = new byte[n][];
+            for (int i = 0; i < n; i++) {
+                sortedNames[i] = names[order[i]];
+            }
+            writePool(out, sortedNames);
+
+            byte[][] labelBytes = new byte[pool.size()][];
+            for (int i = 0; i < pool.size(); i++) {
+                labelBytes[i] = labels.encode(pool.label(i)).getBytes(StandardCharsets.UTF_8);
+            }
+            writePool(out, labelBytes);
+        }
+    }
+
+    /**
+     * Writes a string pool: the start position of every string, one past
+     * the end of the last, and then the bytes of all strings
+     */
+    private static void writePool(DataOutputStream out, byte[][] strings) throws IOException {
+        int position = 0;
+        for (byte[] s : strings) {
+            out.writeInt(position);
+            position += s.length;
+        }
+        out.writeInt(position);
+        for (byte[] s : strings) {
+            out.write(s);
+        }
+    }
+
+    /**
+     * Memory-maps a graph file written by write. Only the header is read
+     * here; the rest of the file is read when queries reach it.
+     *
+     * @param file the file to map
+     * @param nodes the codec for the data of the nodes
+     * @param labels the codec for the labels of the edges
+     * @return a read-only graph backed by the mapped file
+     * @throws IOException if the file can not be read or is not a graph file of this version
+     * @throws IllegalArgumentException if an argument is null
+     */
+
+    public static <T,E> MappedGraph<T,E> map(Path file, Codec<T> nodes, Codec<E> labels) throws IOException {
+        if (file == null || nodes == null || labels == null) {
+            throw new IllegalArgumentException("arguments can not be null");
+        }
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return new MappedGraph<>(buffer, nodes, labels);
+    }
+
+    /**
+     * Checks the header of a graph file held in buffer
+     */
+    static void checkHeader(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("not a graph file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("unsupported graph file version " + buffer.getInt(4));
+        }
+    }
+
+    /**
+     * This class is a read-only graph backed by a memory-mapped graph file.
+     * Its layout is the same CSR form as ImmutableGraph: node ids are dense,
+     * and the edges of node i are the edge indices [edgeStart(i), edgeEnd(i)).
+     */
+    public static final class MappedGraph<T,E> implements GraphView<T,E> {
+
+        // Rep invariant:
+        //     buffer holds a graph file of VERSION with nodeCount nodes,
+        //     edgeCount edges and labelCount labels, laid out as described in GraphFile
+        //     nodeCache.length == nodeCount, and every non-null
+        //     nodeCache[i] is the decoded node i
+        //     labelCache.length == labelCount, and every non-null
+        //     labelCache[i] is the decoded label i
+
+        private final ByteBuffer buffer;
+        private final Codec<T> nodes;
+        private final Codec<E> labels;
+        private final int nodeCount;
+        private final int edgeCount;
+        private final int labelCount;
+        private final int offsetsAt;
+        private final int targetsAt;
+        private final int labelIdsAt;
+        private final int nodeStartsAt;
+        private final int nodeBytesAt;
+        private final int labelStartsAt;
+        private final int labelBytesAt;
+        private final Object[] nodeCache;
+        private final Object[] labelCache;
+
+        private MappedGraph(ByteBuffer buffer, Codec<T> nodes, Codec<E> labels) throws IOException {
+            checkHeader(buffer);
+            this.buffer = buffer;
+            this.nodes = nodes;
+            this.labels = labels;
+            this.nodeCount = buffer.getInt(8);
+            this.edgeCount = buffer.getInt(12);
+            this.labelCount = buffer.getInt(16);
+            if (nodeCount < 0 || edgeCount < 0 || labelCount < 0) {
+                throw new IOException("graph file is truncated or corrupt");
+            }
+            // every position is worked out in longs and checked against the
+            // file before it is read, so a bad count can not send a read
+            // outside the buffer or wrap around
+            this.offsetsAt = HEADER_BYTES;
+            this.targetsAt = position(offsetsAt + (nodeCount + 1L) * Integer.BYTES);
+            this.labelIdsAt = position(targetsAt + (long) edgeCount * Integer.BYTES);
+            this.nodeStartsAt = position(labelIdsAt + (long) edgeCount * Integer.BYTES);
+            this.nodeBytesAt = position(nodeStartsAt + (nodeCount + 1L) * Integer.BYTES);
+            this.labelStartsAt = position(nodeBytesAt + (long) intAt(nodeStartsAt + (long) nodeCount * Integer.BYTES));
+            this.labelBytesAt = position(labelStartsAt + (labelCount + 1L) * Integer.BYTES);
+            long end = labelBytesAt + (long) intAt(labelStartsAt + (long) labelCount * Integer.BYTES);
+            if (end != buffer.capacity()) {
+                throw new IOException("graph file is truncated or corrupt");
+            }
+            this.nodeCache = new Object[nodeCount];
+            this.labelCache = new Object[labelCount];
+        }
+
+        /**
+         * Returns at as an int if it is a position within the buffer
+         */
+        private int position(long at) throws IOException {
+            if (at < 0 || at > buffer.capacity()) {
+                throw new IOException("graph file is truncated or corrupt");
+            }
+            return (int) at;
+        }
+
+        /**
+         * Reads the int at position at, if all four of its bytes are within the buffer
+         */
+        private int intAt(long at) throws IOException {
+            if (at < 0 || at + Integer.BYTES > buffer.capacity()) {
+                throw new IOException("graph file is truncated or corrupt");
+            }
+            return buffer.getInt((int) at);
+        }
+
+        /**
+         * returns the number of nodes in the graph
+         *
+         * @return number of nodes in the graph
+         */
+
+        public int size() {
+            return nodeCount;
+        }
+
+        /**
+         * returns the number of edges in the graph
+         *
+         * @return number of edges in the graph
+         */
+
+        public int edgeCount() {
+            return edgeCount;
+        }
+
+        /**
+         * Returns the id of Node <var>n</var>, found by binary search in the node pool
+         *
+         * @param n the Node to look up
+         * @return the id of <var>n</var>, or -1 if <var>n</var> is not in the graph
+         * @throws IllegalArgumentException if the Node <var>n</var> is null.
+         */
+
+        public int indexOf(Node<T> n) {
+            if (n == null) throw new IllegalArgumentException("n cannot be null");
+            byte[] key = nodes.encode(n.getData()).getBytes(StandardCharsets.UTF_8);
+            int low = 0;
+            int high = nodeCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compareName(mid, key);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Compares the stored name of node id with key, byte by byte
+         */
+        private int compareName(int id, byte[] key) {
+            int start = nodeBytesAt + buffer.getInt(nodeStartsAt + id * Integer.BYTES);
+            int end = nodeBytesAt + buffer.getInt(nodeStartsAt + (id + 1) * Integer.BYTES);
+            int length = Math.min(end - start, key.length);
+            for (int i = 0; i < length; i++) {
+                int cmp = Integer.compare(buffer.get(start + i) & 0xff, key[i] & 0xff);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return Integer.compare(end - start, key.length);
+        }
+
+        /**
+         * Returns true if Node <var>n</var> is in the graph
+         *
+         * @param n the Node to find in the graph
+         * @return boolean: true if Node <var>n</var> is in the graph
+         * @throws IllegalArgumentException if the Node <var>n</var> is null.
+         */
+
+        public boolean containsNode(Node<T> n) {
+            return indexOf(n) >= 0;
+        }
+
+        /**
+         * Returns the node with the given id. Each node is decoded from the
+         * file once and then shared by every edge that reaches it.
+         *
+         * @param id the id of the node
+         * @spec.requires 0 &lt;= id &lt; size()
+         * @return the Node whose id is <var>id</var>
+         */
+
+        @SuppressWarnings("unchecked")
+        public Node<T> node(int id) {
+            Object node = nodeCache[id];
+            if (node == null) {
+                node = new Node<>(nodes.decode(readString(nodeStartsAt, nodeBytesAt, id)));
+                nodeCache[id] = node;
+            }
+            return (Node<T>) node;
+        }
+
+        /**
+         * Returns the number of edges leaving the node with the given id
+         *
+         * @param id the id of the node
+         * @spec.requires 0 &lt;= id &lt; size()
+         * @return the out-degree of node <var>id</var>
+         */
+
+        public int degree(int id) {
+            return edgeEnd(id) - edgeStart(id);
+        }
+
+        /**
+         * Returns the index of the first edge of the node with the given id
+         *
+         * @param id the id of the node
+         * @spec.requires 0 &lt;= id &lt; size()
+         * @return the first edge index of node <var>id</var>
+         */
+
+        public int edgeStart(int id) {
+            return buffer.getInt(offsetsAt + id * Integer.BYTES);
+        }
+
+        /**
+         * Returns one past the index of the last edge of the node with the given id
+         *
+         * @param id the id of the node
+         * @spec.requires 0 &lt;= id &lt; size()
+         * @return the end (exclusive) edge index of node <var>id</var>
+         */
+
+        public int edgeEnd(int id) {
+            return buffer.getInt(offsetsAt + (id + 1) * Integer.BYTES);
+        }
+
+        /**
+         * Returns the id of the child node of the given edge
+         *
+         * @param edge the index of the edge
+         * @spec.requires 0 &lt;= edge &lt; edgeCount()
+         * @return the id of the node the edge points to
+         */
+
+        public int target(int edge) {
+            return buffer.getInt(targetsAt + edge * Integer.BYTES);
+        }
+
+        /**
+         * Returns the label id of the given edge
+         *
+         * @param edge the index of the edge
+         * @spec.requires 0 &lt;= edge &lt; edgeCount()
+         * @return the id of the label of the edge
+         */
+
+        public int labelId(int edge) {
+            return buffer.getInt(labelIdsAt + edge * Integer.BYTES);
+        }
+
+        /**
+         * Returns the label of the given edge. Each label is decoded once
+         * and then shared by every edge that has it.
+         *
+         * @param edge the index of the edge
+         * @spec.requires 0 &lt;= edge &lt; edgeCount()
+         * @return the label of the edge
+         */
+
+        @SuppressWarnings("unchecked")
+        public E label(int edge) {
+            int id = labelId(edge);
+            Object label = labelCache[id];
+            if (label == null) {
+                label = labels.decode(readString(labelStartsAt, labelBytesAt, id));
+                labelCache[id] = label;
+            }
+            return (E) label;
+        }
+
+        /**
+         * Calls visitor once for every node in the graph
+         *
+         * @param visitor called with each node
+         * @spec.requires visitor does not modify the graph
+         * @throws IllegalArgumentException if visitor is null
+         */
+
+        public void forEachNode(Consumer<? super Node<T>> visitor) {
+            if (visitor == null) throw new IllegalArgumentException("visitor can not be null");
+            for (int i = 0; i < nodeCount; i++) {
+                visitor.accept(node(i));
+            }
+        }
+
+        /**
+         * Calls visitor once for every edge leaving Node n, passing the child
+         * node and the label of the edge.
+         *
+         * @param n Node n to visit the edges of
+         * @param visitor called with (child, label) for each edge of <var>n</var>
+         * @throws IllegalArgumentException if n or visitor is null, or n is not in the graph
+         */
+
+        public void forEachEdge(Node<T> n, BiConsumer<? super Node<T>, ? super E> visitor) {
+            if (visitor == null) throw new IllegalArgumentException("visitor can not be null");
+            int id = indexOf(n);
+            if (id < 0) throw new IllegalArgumentException("n is not in the graph");
+            for (int k = edgeStart(id); k < edgeEnd(id); k++) {
+                visitor.accept(node(target(k)), label(k));
+            }
+        }
+
+        /**
+         * Given a Node n, get a set of all edges connected to it
+         *
+         * @param n Node n to get the edges from
+         * @return returns a set of edges for <var>n</var>
+         * @throws IllegalArgumentException if n is null or not in the graph
+         */
+
+        public HashSet<Edge<T,E>> getEdges(Node<T> n) {
+            int id = indexOf(n);
+            if (id < 0) throw new IllegalArgumentException("n is not in the graph");
+            HashSet<Edge<T,E>> edges = new HashSet<>();
+            for (int k = edgeStart(id); k < edgeEnd(id); k++) {
+                edges.add(new Edge<>(node(target(k)), label(k)));
+            }
+            return edges;
+        }
+
+        /**
+         * Decodes every node and edge into a Graph.
+         *
+         * @return a Graph with the same nodes and edges as the file
+         */
+
+        public Graph<T,E> toGraph() {
+            Graph.Builder<T,E> builder = new Graph.Builder<>(nodeCount, edgeCount);
+            for (int i = 0; i < nodeCount; i++) {
+                // ids in the builder match the ids in the file
+                builder.addNode(nodes.decode(readString(nodeStartsAt, nodeBytesAt, i)));
+            }
+            for (int i = 0; i < nodeCount; i++) {
+                for (int k = edgeStart(i); k < edgeEnd(i); k++) {
+                    builder.addEdge(i, target(k), label(k));
+                }
+            }
+            return builder.build();
+        }
+
+        /**
+         * Reads string i of the pool whose start table begins at startsAt
+         * and whose bytes begin at bytesAt
+         */
+        private String readString(int startsAt, int bytesAt, int i) {
+            int start = buffer.getInt(startsAt + i * Integer.BYTES);
+            int end = buffer.getInt(startsAt + (i + 1) * Integer.BYTES);
+            byte[] bytes = new byte[end - start];
+            for (int b = 0; b < bytes.length; b++) {
+                bytes[b] = buffer.get(bytesAt + start + b);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
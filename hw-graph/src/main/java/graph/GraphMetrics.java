@@ -0,0 +1,290 @@
+package graph;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * This class counts what happens to one graph: nodes and edges added,
+ * lookups, and the work done by the path queries run against it. It is
+ * only created by the enableMetrics() of Graph or DoubleWeightedGraph; a
+ * graph without metrics checks a single null field per operation and
+ * counts nothing.
+ *
+ * Counters are LongAdders, so queries on several threads can report at the
+ * same time. The node count, edge count and degree histogram are kept up
+ * to date by the thread changing the graph, as each change is made, so a
+ * JMX client reading them never walks the graph while it is changing. A
+ * read that races a change may see the histogram one node off.
+ */
+
+public class GraphMetrics implements GraphMetricsMBean {
+
+    // Approximate sizes on a 64-bit JVM with compressed oops. For Graph: a
+    // HashMap entry plus its share of the table, a Node and an empty HashSet
+    // with its HashMap and table per node, and a HashMap entry and an Edge
+    // per edge. For DoubleWeightedGraph: a NodeTable entry, a Node, and two
+    // empty arrays per node, and an int and a double per edge. Node data
+    // and labels are not counted.
+    static final long HASH_NODE_BYTES = 40 + 24 + 80;
+    static final long HASH_EDGE_BYTES = 40 + 24;
+    static final long ARRAY_NODE_BYTES = 40 + 24 + 16 + 16 + 4 + 8;
+    static final long ARRAY_EDGE_BYTES = Integer.BYTES + Double.BYTES;
+
+    private final long nodeBytes;
+    private final long edgeBytes;
+    private final LongAdder nodesAdded = new LongAdder();
+    private final LongAdder edgesAdded = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder edgesExpanded = new LongAdder();
+    private final LongAdder nodesSettled = new LongAdder();
+    private final LongAccumulator maxNodesSettled = new LongAccumulator(Long::max, 0);
+    private final LongAccumulator maxQueuePeak = new LongAccumulator(Long::max, 0);
+    // the current size of the graph, which reset() leaves alone
+    private final LongAdder nodeCount = new LongAdder();
+    private final LongAdder edgeCount = new LongAdder();
+    // entry bucket(d) counts the nodes of out-degree d
+    private final AtomicLongArray degrees = new AtomicLongArray(Integer.SIZE + 1);
+    private ObjectName name;
+
+    /**
+     * Creates metrics for graph, counting the nodes and edges it already has
+     *
+     * @param graph the graph being measured
+     * @param nodeBytes the estimated heap bytes per node of the graph
+     * @param edgeBytes the estimated heap bytes per edge of the graph
+     */
+    <T> GraphMetrics(GraphView<T,?> graph, long nodeBytes, long edgeBytes) {
+        this.nodeBytes = nodeBytes;
+        this.edgeBytes = edgeBytes;
+        int[] degree = new int[1];
+        graph.forEachNode(n -> {
+            degree[0] = 0;
+            graph.forEachEdge(n, (child, label) -> degree[0]++);
+            nodeCount.increment();
+            edgeCount.add(degree[0]);
+            degrees.incrementAndGet(bucket(degree[0]));
+        });
+    }
+
+    /**
+     * Counts one added node, which has no edges yet
+     */
+    void nodeAdded() {
+        nodesAdded.increment();
+        nodeCount.increment();
+        degrees.incrementAndGet(0);
+    }
+
+    /**
+     * Counts one added edge
+     *
+     * @param degree the out-degree of the parent before the edge was added
+     */
+    void edgeAdded(int degree) {
+        edgesAdded.increment();
+        edgeCount.increment();
+        moveDegree(degree, degree + 1);
+    }
+
+    /**
+     * Counts one removed node. Its outgoing edges go with it; edges into it
+     * are counted by edgeRemoved.
+     *
+     * @param degree the out-degree of the node when it was removed
+     */
+    void nodeRemoved(int degree) {
+        nodeCount.decrement();
+        edgeCount.add(-degree);
+        degrees.decrementAndGet(bucket(degree));
+    }
+
+    /**
+     * Counts one removed edge
+     *
+     * @param degree the out-degree of the parent before the edge was removed
+     */
+    void edgeRemoved(int degree) {
+        edgeCount.decrement();
+        moveDegree(degree, degree - 1);
+    }
+
+    /**
+     * Moves one node from the bucket of degree from to the bucket of degree to
+     */
+    private void moveDegree(int from, int to) {
+        int a = bucket(from);
+        int b = bucket(to);
+        if (a != b) {
+            degrees.incrementAndGet(b);
+            degrees.decrementAndGet(a);
+        }
+    }
+
+    /**
+     * Returns the histogram entry of a node of the given out-degree
+     */
+    private static int bucket(int degree) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(degree);
+    }
+
+    /**
+     * Counts one node lookup
+     */
+    void lookup() {
+        lookups.increment();
+    }
+
+    /**
+     * Records the work done by one path query.
+     *
+     * @param settled the number of nodes the query settled (took off its queue for good)
+     * @param queuePeak the largest size the query's queue reached
+     * @param expanded the number of edges the query looked at
+     */
+
+    public void recordQuery(int settled, int queuePeak, long expanded) {
+        queries.increment();
+        nodesSettled.add(settled);
+        edgesExpanded.add(expanded);
+        maxNodesSettled.accumulate(settled);
+        maxQueuePeak.accumulate(queuePeak);
+    }
+
+    @Override
+    public long getNodesAdded() {
+        return nodesAdded.sum();
+    }
+
+    @Override
+    public long getEdgesAdded() {
+        return edgesAdded.sum();
+    }
+
+    @Override
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    @Override
+    public long getQueries() {
+        return queries.sum();
+    }
+
+    @Override
+    public long getEdgesExpanded() {
+        return edgesExpanded.sum();
+    }
+
+    @Override
+    public long getNodesSettled() {
+        return nodesSettled.sum();
+    }
+
+    @Override
+    public long getMaxNodesSettled() {
+        return maxNodesSettled.get();
+    }
+
+    @Override
+    public long getMaxQueuePeak() {
+        return maxQueuePeak.get();
+    }
+
+    @Override
+    public int getNodeCount() {
+        return (int) nodeCount.sum();
+    }
+
+    @Override
+    public long getEdgeCount() {
+        return edgeCount.sum();
+    }
+
+    @Override
+    public long[] getDegreeHistogram() {
+        long[] histogram = new long[degrees.length()];
+        int last = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = degrees.get(i);
+            if (histogram[i] != 0) {
+                last = i;
+            }
+        }
+        return Arrays.copyOf(histogram, last + 1);
+    }
+
+    @Override
+    public long getEstimatedBytes() {
+        return getNodeCount() * nodeBytes + getEdgeCount() * edgeBytes;
+    }
+
+    @Override
+    public void reset() {
+        nodesAdded.reset();
+        edgesAdded.reset();
+        lookups.reset();
+        queries.reset();
+        edgesExpanded.reset();
+        nodesSettled.reset();
+        maxNodesSettled.reset();
+        maxQueuePeak.reset();
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server under
+     * graph:type=GraphMetrics,name=<var>name</var>.
+     *
+     * @param name the name that tells this graph apart from others
+     * @return the object name the metrics were registered under
+     * @throws IllegalArgumentException if name is null or not a valid object name value
+     * @throws IllegalStateException if these metrics are already registered, or the
+     *         name is taken
+     * @spec.modifies this
+     */
+
+    public synchronized ObjectName register(String name) {
+        if (name == null) throw new IllegalArgumentException("name can not be null");
+        if (this.name != null) throw new IllegalStateException("metrics are already registered");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName;
+        try {
+            objectName = new ObjectName("graph:type=GraphMetrics,name=" + ObjectName.quote(name));
+        } catch (JMException e) {
+            throw new IllegalArgumentException("invalid name " + name, e);
+        }
+        try {
+            server.registerMBean(this, objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("could not register " + objectName, e);
+        }
+        this.name = objectName;
+        return objectName;
+    }
+
+    /**
+     * Removes these metrics from the platform MBean server. Does nothing if
+     * they are not registered.
+     *
+     * @spec.modifies this
+     */
+
+    public synchronized void unregister() {
+        if (name == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException e) {
+            throw new IllegalStateException("could not unregister " + name, e);
+        } finally {
+            name = null;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package graph;
+
+/**
+ * The management interface of GraphMetrics, as seen by JMX clients such as
+ * jconsole once GraphMetrics.register has been called.
+ */
+
+public interface GraphMetricsMBean {
+
+    /**
+     * @return the number of nodes added to the graph since the counters were reset
+     */
+    long getNodesAdded();
+
+    /**
+     * @return the number of edges added to the graph since the counters were reset
+     */
+    long getEdgesAdded();
+
+    /**
+     * @return the number of node lookups (containsNode, getEdges, edge views) since the counters were reset
+     */
+    long getLookups();
+
+    /**
+     * @return the number of path queries reported since the counters were reset
+     */
+    long getQueries();
+
+    /**
+     * @return the number of edges expanded by all reported queries
+     */
+    long getEdgesExpanded();
+
+    /**
+     * @return the number of nodes settled by all reported queries
+     */
+    long getNodesSettled();
+
+    /**
+     * @return the most nodes settled by a single reported query
+     */
+    long getMaxNodesSettled();
+
+    /**
+     * @return the largest queue size reached by a single reported query
+     */
+    long getMaxQueuePeak();
+
+    /**
+     * @return the current number of nodes in the graph
+     */
+    int getNodeCount();
+
+    /**
+     * @return the current number of edges in the graph
+     */
+    long getEdgeCount();
+
+    /**
+     * Returns the out-degree histogram of the graph. Entry 0 counts nodes
+     * with no edges and entry i &gt; 0 counts nodes whose degree is in
+     * [2^(i-1), 2^i).
+     *
+     * @return the degree histogram, up to its last non-zero entry
+     */
+    long[] getDegreeHistogram();
+
+    /**
+     * @return an estimate of the heap bytes held by the graph's own structure
+     */
+    long getEstimatedBytes();
+
+    /**
+     * Sets every counter back to zero
+     */
+    void reset();
+}
@@ -0,0 +1,89 @@
+package graph;
+
+import java.util.Comparator;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * This interface is the read-only face shared by every graph backend:
+ * Graph, ConcurrentGraph, ImmutableGraph, DoubleWeightedGraph, OffHeapGraph,
+ * the snapshots of a VersionedGraph and the graphs mapped by GraphFile. The
+ * searches in GraphAlgorithms only use these methods, so they run on any
+ * backend without copying it into a Graph first.
+ *
+ * Visiting methods pass nodes and labels straight to a callback; nothing is
+ * copied or collected. Edge weights are not part of a view: a search that
+ * needs them is given a function from labels to weights.
+ */
+
+public interface GraphView<T,E> {
+
+    /**
+     * Returns true if Node <var>n</var> is in the graph
+     *
+     * @param n the Node to find in the graph
+     * @return boolean: true if Node <var>n</var> is in the graph
+     * @throws IllegalArgumentException if the Node <var>n</var> is null.
+     */
+    boolean containsNode(Node<T> n);
+
+    /**
+     * returns the number of nodes in the graph
+     *
+     * @return number of nodes in the graph
+     */
+    int size();
+
+    /**
+     * Calls visitor once for every node in the graph
+     *
+     * @param visitor called with each node
+     * @spec.requires visitor does not modify the graph
+     * @throws IllegalArgumentException if visitor is null
+     */
+    void forEachNode(Consumer<? super Node<T>> visitor);
+
+    /**
+     * Calls visitor once for every edge leaving Node n, passing the child
+     * node and the label of the edge
+     *
+     * @param n Node n to visit the edges of
+     * @param visitor called with (child, label) for each edge of <var>n</var>
+     * @spec.requires visitor does not modify the graph
+     * @throws IllegalArgumentException if n or visitor is null, or n is not in the graph
+     */
+    void forEachEdge(Node<T> n, BiConsumer<? super Node<T>, ? super E> visitor);
+
+    /**
+     * Returns the metrics that searches over this view report their
+     * queries to. Only Graph and DoubleWeightedGraph keep metrics, once
+     * they are enabled.
+     *
+     * @return the metrics of the graph, or null if it keeps none
+     */
+    default GraphMetrics metrics() {
+        return null;
+    }
+
+    /**
+     * Returns the index of weakly connected components that searches over
+     * this view consult before exploring. Only Graph and
+     * DoubleWeightedGraph keep one, once it is enabled.
+     *
+     * @return the component index of the graph, or null if it keeps none
+     */
+    default ComponentIndex<T> components() {
+        return null;
+    }
+
+    /**
+     * Returns the order in which forEachEdge visits the edges of every
+     * node, so searches that try edges in that order can skip sorting them.
+     * Only Graph keeps its edges sorted, once enableSortedEdges is called.
+     *
+     * @return the order of the edges of each node, or null if they are in no particular order
+     */
+    default Comparator<? super Edge<T,E>> edgeOrder() {
+        return null;
+    }
+}
@@ -0,0 +1,367 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * This class represents a frozen, read-only snapshot of a Graph. Nodes are
+ * numbered with dense integer ids and the edges are stored in a compressed
+ * sparse row (CSR) layout, so walking the children of a node reads a
+ * contiguous slice of primitive arrays instead of a HashSet of Edge objects.
+ *
+ * The edges of the node with id i are the edge indices in
+ * [edgeStart(i), edgeEnd(i)); for each such index k, target(k) is the id of
+ * the child node and label(k) is the label of the edge. Labels are stored
+ * once in a LabelTable and each edge only holds the int labelId(k), so
+ * comparing the labels of two edges is an int comparison.
+ */
+
+public class ImmutableGraph<T,E> implements GraphView<T,E> {
+
+    // Rep invariant:
+    //     nodes, ids, offsets, targets, labelIds, labels != null
+    //     offsets.length == nodes.size() + 1 and offsets[0] == 0
+    //     offsets is non-decreasing and offsets[nodes.size()] == targets.length == labelIds.length
+    //     0 <= targets[k] < nodes.size() and 0 <= labelIds[k] < labels.size() for every k
+    //     ids.get(nodes.get(i)) == i for every 0 <= i < nodes.size()
+
+    // Abstract function:
+    //    AF(this) = directed graph g such that
+    //    All Nodes in g = this.nodes
+    //    All Edges starting from node nodes[i] =
+    //        {Edge(nodes[targets[k]], labels.label(labelIds[k])) | offsets[i] <= k < offsets[i + 1]}
+
+    private final List<Node<T>> nodes;
+    private final Map<Node<T>, Integer> ids;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] labelIds;
+    private final LabelTable<E> labels;
+
+    /**
+     * Compiles the given adjacency map into CSR form. Nodes that only appear
+     * as the child of an edge are given an id with no outgoing edges.
+     *
+     * @param graph the adjacency map to compile
+     * @spec.requires graph != null and holds no null node, edge set or edge
+     * @spec.effects constructs a frozen graph with the same nodes and edges as <var>graph</var>
+     */
+    ImmutableGraph(Map<Node<T>, ? extends Set<Edge<T,E>>> graph) {
+        this(graph, null, null);
+    }
+
+    /**
+     * Compiles the given adjacency map into CSR form with ordered ids. If
+     * nodeOrder is given, node ids follow the order of the node data and
+     * the edges of every node are sorted by child id and then, if
+     * labelOrder is given, by label.
+     *
+     * @param graph the adjacency map to compile
+     * @param nodeOrder the order of node ids, or null for no particular order
+     * @param labelOrder the order of edges to the same child, or null for no particular order
+     * @spec.requires graph != null and holds no null node, edge set or edge, and
+     *                nodeOrder, if given, orders no two distinct nodes as equal
+     * @spec.effects constructs a frozen graph with the same nodes and edges as <var>graph</var>
+     */
+    ImmutableGraph(Map<Node<T>, ? extends Set<Edge<T,E>>> graph,
+                   Comparator<? super T> nodeOrder, Comparator<? super E> labelOrder) {
+        this.nodes = new ArrayList<>(graph.size());
+        this.ids = new HashMap<>();
+        int edgeCount = 0;
+        for (Map.Entry<Node<T>, ? extends Set<Edge<T,E>>> entry : graph.entrySet()) {
+            idOf(entry.getKey());
+            edgeCount += entry.getValue().size();
+        }
+        // children that are not keys of the map still need an id
+        for (Set<Edge<T,E>> edges : graph.values()) {
+            for (Edge<T,E> e : edges) {
+                idOf(e.getChildNode());
+            }
+        }
+        Comparator<Edge<T,E>> edgeOrder = null;
+        if (nodeOrder != null) {
+            nodes.sort((a, b) -> nodeOrder.compare(a.getData(), b.getData()));
+            for (int i = 0; i < nodes.size(); i++) {
+                ids.put(nodes.get(i), i);
+            }
+            edgeOrder = Comparator.comparingInt(e -> ids.get(e.getChildNode()));
+            if (labelOrder != null) {
+                edgeOrder = edgeOrder.thenComparing(Edge::getLabel, labelOrder);
+            }
+        }
+
+        this.offsets = new int[nodes.size() + 1];
+        this.targets = new int[edgeCount];
+        this.labelIds = new int[edgeCount];
+        this.labels = new LabelTable<>();
+        int k = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            offsets[i] = k;
+            Set<Edge<T,E>> edges = graph.get(nodes.get(i));
+            if (edges != null) {
+                Iterable<Edge<T,E>> ordered = edges;
+                if (edgeOrder != null) {
+                    List<Edge<T,E>> sorted = new ArrayList<>(edges);
+                    sorted.sort(edgeOrder);
+                    ordered = sorted;
+                }
+                for (Edge<T,E> e : ordered) {
+                    targets[k] = ids.get(e.getChildNode());
+                    labelIds[k] = labels.id(e.getLabel());
+                    k++;
+                }
+            }
+        }
+        offsets[nodes.size()] = k;
+        checkRep();
+    }
+
+    /**
+     * Returns the id of n, assigning the next free id if n has none yet
+     */
+    private int idOf(Node<T> n) {
+        Integer id = ids.get(n);
+        if (id == null) {
+            id = nodes.size();
+            ids.put(n, id);
+            nodes.add(n);
+        }
+        return id;
+    }
+
+    /**
+     * returns the number of nodes in the graph
+     *
+     * @return number of nodes in the graph
+     */
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * returns the number of edges in the graph
+     *
+     * @return number of edges in the graph
+     */
+
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * Returns true is the graph is empty
+     *
+     * @return boolean: true is graph is empty, false otherwise
+     */
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    /**
+     * Returns true if Node <var>n</var> is in the graph
+     *
+     * @param n the Node to find in the graph
+     * @return boolean: true if Node <var>n</var> is in the graph
+     * @throws IllegalArgumentException if the Node <var>n</var> is null.
+     */
+
+    public boolean containsNode(Node<T> n) {
+        if (n == null) throw new IllegalArgumentException("n cannot be null");
+        return ids.containsKey(n);
+    }
+
+    /**
+     * Returns the dense id of Node <var>n</var>
+     *
+     * @param n the Node to look up
+     * @return the id of <var>n</var>, or -1 if <var>n</var> is not in the graph
+     * @throws IllegalArgumentException if the Node <var>n</var> is null.
+     */
+
+    public int indexOf(Node<T> n) {
+        if (n == null) throw new IllegalArgumentException("n cannot be null");
+        Integer id = ids.get(n);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the node with the given id
+     *
+     * @param id the id of the node
+     * @spec.requires 0 &lt;= id &lt; size()
+     * @return the Node whose id is <var>id</var>
+     */
+
+    public Node<T> node(int id) {
+        return nodes.get(id);
+    }
+
+    /**
+     * Returns the number of edges leaving the node with the given id
+     *
+     * @param id the id of the node
+     * @spec.requires 0 &lt;= id &lt; size()
+     * @return the out-degree of node <var>id</var>
+     */
+
+    public int degree(int id) {
+        return offsets[id + 1] - offsets[id];
+    }
+
+    /**
+     * Returns the index of the first edge of the node with the given id
+     *
+     * @param id the id of the node
+     * @spec.requires 0 &lt;= id &lt; size()
+     * @return the first edge index of node <var>id</var>
+     */
+
+    public int edgeStart(int id) {
+        return offsets[id];
+    }
+
+    /**
+     * Returns one past the index of the last edge of the node with the given id
+     *
+     * @param id the id of the node
+     * @spec.requires 0 &lt;= id &lt; size()
+     * @return the end (exclusive) edge index of node <var>id</var>
+     */
+
+    public int edgeEnd(int id) {
+        return offsets[id + 1];
+    }
+
+    /**
+     * Returns the id of the child node of the given edge
+     *
+     * @param edge the index of the edge
+     * @spec.requires 0 &lt;= edge &lt; edgeCount()
+     * @return the id of the node the edge points to
+     */
+
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * Returns the label of the given edge
+     *
+     * @param edge the index of the edge
+     * @spec.requires 0 &lt;= edge &lt; edgeCount()
+     * @return the label of the edge
+     */
+
+    public E label(int edge) {
+        return labels.label(labelIds[edge]);
+    }
+
+    /**
+     * Returns the id of the label of the given edge in labelTable()
+     *
+     * @param edge the index of the edge
+     * @spec.requires 0 &lt;= edge &lt; edgeCount()
+     * @return the label id of the edge
+     */
+
+    public int labelId(int edge) {
+        return labelIds[edge];
+    }
+
+    /**
+     * Returns the dictionary that maps label ids back to labels. It is
+     * shared with this graph, not copied.
+     *
+     * @return the label dictionary of this graph
+     */
+
+    public LabelTable<E> labelTable() {
+        return labels;
+    }
+
+    /**
+     * Return the set of all node this
+     *
+     * @return set of nodes in this
+     */
+
+    public Set<Node<T>> getNodes() {
+        return Collections.unmodifiableSet(ids.keySet());
+    }
+
+    /**
+     * Calls visitor once for every node in the graph
+     *
+     * @param visitor called with each node
+     * @spec.requires visitor does not modify the graph
+     * @throws IllegalArgumentException if visitor is null
+     */
+
+    public void forEachNode(Consumer<? super Node<T>> visitor) {
+        if (visitor == null) throw new IllegalArgumentException("visitor can not be null");
+        for (Node<T> n : nodes) {
+            visitor.accept(n);
+        }
+    }
+
+    /**
+     * Calls visitor once for every edge leaving Node n, passing the child
+     * node and the label of the edge.
+     *
+     * @param n Node n to visit the edges of
+     * @param visitor called with (child, label) for each edge of <var>n</var>
+     * @throws IllegalArgumentException if n or visitor is null, or n is not in the graph
+     */
+
+    public void forEachEdge(Node<T> n, BiConsumer<? super Node<T>, ? super E> visitor) {
+        if (visitor == null) throw new IllegalArgumentException("visitor can not be null");
+        int id = indexOf(n);
+        if (id < 0) throw new IllegalArgumentException("n is not in the graph");
+        for (int k = offsets[id]; k < offsets[id + 1]; k++) {
+            visitor.accept(nodes.get(targets[k]), labels.label(labelIds[k]));
+        }
+    }
+
+    /**
+     * Given a Node n, get a set of all edges connected to it
+     *
+     * @param n Node n to get the edges from
+     * @return returns a set of edges for <var>n</var>
+     * @throws IllegalArgumentException if n is null or not in the graph
+     */
+
+    public HashSet<Edge<T,E>> getEdges(Node<T> n) {
+        int id = indexOf(n);
+        if (id < 0) throw new IllegalArgumentException("n is not in the graph");
+        HashSet<Edge<T,E>> edges = new HashSet<>();
+        for (int k = offsets[id]; k < offsets[id + 1]; k++) {
+            edges.add(new Edge<>(nodes.get(targets[k]), label(k)));
+        }
+        return edges;
+    }
+
+    /**
+     * check if the representation invariant holds
+     *
+     * @throws RuntimeException if the representation invariant violates
+     */
+
+    private void checkRep() throws RuntimeException {
+        if (offsets.length != nodes.size() + 1 || offsets[0] != 0) {
+            throw new RuntimeException("offsets do not match the nodes");
+        }
+        if (offsets[nodes.size()] != targets.length || targets.length != labelIds.length) {
+            throw new RuntimeException("edge arrays do not match the offsets");
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * This class represents an immutable graph in which every group of nodes
+ * that shares a label is joined pairwise, such as the characters of one
+ * comic book, without storing those pairs. Only the two incidence lists are
+ * kept: the groups of each node and the members of each group. The edges of
+ * a node are worked out when they are visited: an edge (m, label) for every
+ * other member m of every group of the node.
+ *
+ * So a group of k nodes takes k entries in each list instead of k(k - 1)
+ * Edge objects, while searches through GraphView see exactly the edges that
+ * Graph.Builder.connectAll would have made for the same groups.
+ */
+
+public final class IncidenceGraph<T,E> implements GraphView<T,E> {
+
+    // Rep invariant:
+    //     nodes, labels, nodeStart, nodeGroups, groupStart, groupMembers != null
+    //     nodeStart.length == nodes.size() + 1 and groupStart.length == labels.size() + 1
+    //     the groups of node i, nodeGroups[nodeStart[i] .. nodeStart[i + 1]),
+    //     are distinct and ascending, and likewise the members of each group
+    //     i is a member of group g iff g is a group of i
+
+    // Abstract function:
+    //    AF(this) = a graph with the nodes of nodes, and an edge from u to v
+    //    labelled labels.label(g) for every group g holding both u and v, u != v
+
+    private final NodeTable<T> nodes;
+    private final LabelTable<E> labels;
+    private final int[] nodeStart;
+    private final int[] nodeGroups;
+    private final int[] groupStart;
+    private final int[] groupMembers;
+
+    private IncidenceGraph(NodeTable<T> nodes, LabelTable<E> labels, int[] nodeStart, int[] nodeGroups,
+                           int[] groupStart, int[] groupMembers) {
+        this.nodes = nodes;
+        this.labels = labels;
+        this.nodeStart = nodeStart;
+        this.nodeGroups = nodeGroups;
+        this.groupStart = groupStart;
+        this.groupMembers = groupMembers;
+    }
+
+    /**
+     * Returns true if Node <var>n</var> is in the graph
+     *
+     * @param n the Node to find in the graph
+     * @return boolean: true if Node <var>n</var> is in the graph
+     * @throws IllegalArgumentException if the Node <var>n</var> is null.
+     */
+
+    public boolean containsNode(Node<T> n) {
+        if (n == null) throw new IllegalArgumentException("n cannot be null");
+        return nodes.handleOf(n.getData()) >= 0;
+    }
+
+    /**
+     * returns the number of nodes in the graph
+     *
+     * @return number of nodes in the graph
+     */
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Returns the number of groups in the graph
+     *
+     * @return the number of distinct labels
+     */
+
+    public int groupCount() {
+        return labels.size();
+    }
+
+    /**
+     * Returns the number of (node, group) pairs stored, which is what the
+     * graph takes memory for
+     *
+     * @return the length of each incidence list
+     */
+
+    public int incidenceCount() {
+        return nodeGroups.length;
+    }
+
+    /**
+     * Returns the number of edges the graph stands for, which are not stored
+     *
+     * @return the number of edges visited by forEachEdge over every node
+     */
+
+    public long edgeCount() {
+        long count = 0;
+        for (int g = 0; g < labels.size(); g++) {
+            long k = groupStart[g + 1] - groupStart[g];
+            count += k * (k - 1);
+        }
+        return count;
+    }
+
+    /**
+     * Calls visitor once for every node in the graph
+     *
+     * @param visitor called with each node
+     * @spec.requires visitor does not modify the graph
+     * @throws IllegalArgumentException if visitor is null
+     */
+
+    public void forEachNode(Consumer<? super Node<T>> visitor) {
+        if (visitor == null) throw new IllegalArgumentException("visitor can not be null");
+        for (int i = 0; i < nodes.size(); i++) {
+            visitor.accept(nodes.node(i));
+        }
+    }
+
+    /**
+     * Calls visitor once for every edge leaving Node n: once for every other
+     * member of every group of n, with the label of the group
+     *
+     * @param n Node n to visit the edges of
+     * @param visitor called with (child, label) for each edge of <var>n</var>
+     * @throws IllegalArgumentException if n or visitor is null, or n is not in the graph
+     */
+
+    public void forEachEdge(Node<T> n, BiConsumer<? super Node<T>, ? super E> visitor) {
+        if (visitor == null) throw new IllegalArgumentException("visitor can not be null");
+        if (n == null) throw new IllegalArgumentException("n cannot be null");
+        int u = nodes.handleOf(n.getData());
+        if (u < 0) throw new IllegalArgumentException("n is not in the graph");
+        for (int k = nodeStart[u]; k < nodeStart[u + 1]; k++) {
+            int g = nodeGroups[k];
+            E label = labels.label(g);
+            for (int j = groupStart[g]; j < groupStart[g + 1]; j++) {
+                int v = groupMembers[j];
+                if (v != u) {
+                    visitor.accept(nodes.node(v), label);
+                }
+            }
+        }
+    }
+
+    /**
+     * Calls visitor once for every member of the group with the given label
+     *
+     * @param label the label of the group
+     * @param visitor called with each member of the group
+     * @throws IllegalArgumentException if label or visitor is null
+     */
+
+    public void forEachMember(E label, Consumer<? super Node<T>> visitor) {
+        if (label == null) throw new IllegalArgumentException("label can not be null");
+        if (visitor == null) throw new IllegalArgumentException("visitor can not be null");
+        int g = labels.idOf(label);
+        if (g < 0) {
+            return;
+        }
+        for (int j = groupStart[g]; j < groupStart[g + 1]; j++) {
+            visitor.accept(nodes.node(groupMembers[j]));
+        }
+    }
+
+    /**
+     * This class builds an IncidenceGraph from nodes and groups given in
+     * batches. The (node, group) pairs are only buffered in primitive
+     * arrays; build() sorts them once and lays out both incidence lists,
+     * dropping repeated members.
+     *
+     * A Builder is meant to build one IncidenceGraph; it must not be used after build().
+     */
+    public static class Builder<T,E> {
+
+        private final NodeTable<T> nodes = new NodeTable<>();
+        private final LabelTable<E> labels = new LabelTable<>();
+        // the (node, group) pairs added so far, in parallel arrays
+        private int[] members = new int[16];
+        private int[] groups = new int[16];
+        private int count;
+
+        /**
+         * Adds a node, which is kept even if it is in no group
+         *
+         * @param data the data of the node
+         * @return this builder
+         * @throws IllegalArgumentException if data is null
+         * @spec.modifies this
+         */
+
+        public Builder<T,E> addNode(T data) {
+            nodes.handle(data);
+            return this;
+        }
+
+        /**
+         * Adds every member to the group with the given label. Adding to a
+         * label that already has a group grows that group.
+         *
+         * @param groupMembers the nodes in the group
+         * @param label the label of the group
+         * @return this builder
+         * @throws IllegalArgumentException if an argument or member is null
+         * @spec.modifies this
+         */
+
+        public Builder<T,E> addGroup(Collection<? extends T> groupMembers, E label) {
+            if (groupMembers == null) throw new IllegalArgumentException("members can not be null");
+            if (label == null) throw new IllegalArgumentException("label can not be null");
+            int g = labels.id(label);
+            for (T member : groupMembers) {
+                add(nodes.handle(member), g);
+            }
+            return this;
+        }
+
+        /**
+         * Adds one member to the group with the given label, so groups can
+         * be built up one (member, label) pair at a time as they are read
+         *
+         * @param member the node to add to the group
+         * @param label the label of the group
+         * @return this builder
+         * @throws IllegalArgumentException if an argument is null
+         * @spec.modifies this
+         */
+
+        public Builder<T,E> addMember(T member, E label) {
+            if (label == null) throw new IllegalArgumentException("label can not be null");
+            add(nodes.handle(member), labels.id(label));
+            return this;
+        }
+
+        private void add(int m, int g) {
+            if (count == members.length) {
+                members = Arrays.copyOf(members, count * 2);
+                groups = Arrays.copyOf(groups, count * 2);
+            }
+            members[count] = m;
+            groups[count] = g;
+            count++;
+        }
+
+        /**
+         * Builds the graph holding every node and group added so far
+         *
+         * @return a new IncidenceGraph with the added nodes and groups
+         */
+
+        public IncidenceGraph<T,E> build() {
+            int n = nodes.size();
+            int l = labels.size();
+            // sorting the packed pairs orders them by group, then by member,
+            // and puts repeated pairs next to each other
+            long[] byGroup = new long[count];
+            for (int k = 0; k < count; k++) {
+                byGroup[k] = ((long) groups[k] << 32) | members[k];
+            }
+            Arrays.sort(byGroup);
+            int distinct = 0;
+            for (int k = 0; k < count; k++) {
+                if (k == 0 || byGroup[k] != byGroup[k - 1]) {
+                    byGroup[distinct++] = byGroup[k];
+                }
+            }
+            int[] groupStart = new int[l + 1];
+            int[] groupMembers = new int[distinct];
+            int[] nodeStart = new int[n + 1];
+            for (int k = 0; k < distinct; k++) {
+                groupStart[(int) (byGroup[k] >>> 32) + 1]++;
+                nodeStart[(int) byGroup[k] + 1]++;
+                groupMembers[k] = (int) byGroup[k];
+            }
+            for (int i = 0; i < l; i++) {
+                groupStart[i + 1] += groupStart[i];
+            }
+            for (int i = 0; i < n; i++) {
+                nodeStart[i + 1] += nodeStart[i];
+            }
+            // walking the pairs by group fills each node's groups in ascending order
+            int[] nodeGroups = new int[distinct];
+            int[] next = Arrays.copyOf(nodeStart, n);
+            for (int k = 0; k < distinct; k++) {
+                nodeGroups[next[(int) byGroup[k]]++] = (int) (byGroup[k] >>> 32);
+            }
+            return new IncidenceGraph<>(nodes, labels, nodeStart, nodeGroups, groupStart, groupMembers);
+        }
+    }
+}
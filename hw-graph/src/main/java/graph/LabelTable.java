@@ -0,0 +1,113 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is a dictionary of edge labels. Every distinct label is stored
+ * once and given a dense int id, starting at 0, so that a graph with many
+ * edges sharing few labels (such as every pair of characters in one comic
+ * book) can hold small ints, or one shared label instance, per edge instead
+ * of its own copy. Ids are never reused or taken back.
+ */
+
+public class LabelTable<E> {
+
+    // Rep invariant:
+    //     ids != null and labels != null
+    //     ids.get(labels.get(i)) == i for every 0 <= i < labels.size()
+    //     ids.size() == labels.size() and no label is null
+
+    // Abstract function:
+    //    AF(this) = the sequence of distinct labels labels[0], labels[1], ...,
+    //    where labels[i] has id i
+
+    private final Map<E, Integer> ids;
+    private final List<E> labels;
+
+    /**
+     * Constructor that creates an empty dictionary.
+     *
+     * @spec.effects creates a dictionary with no labels
+     */
+    public LabelTable() {
+        this.ids = new HashMap<>();
+        this.labels = new ArrayList<>();
+    }
+
+    /**
+     * Returns the id of label, giving it the next free id if it has none yet
+     *
+     * @param label the label to look up
+     * @return the id of <var>label</var>
+     * @throws IllegalArgumentException if label is null
+     * @spec.modifies this
+     * @spec.effects adds <var>label</var> to the dictionary if it is not there yet
+     */
+
+    public int id(E label) {
+        if (label == null) throw new IllegalArgumentException("label can not be null");
+        Integer id = ids.get(label);
+        if (id == null) {
+            id = labels.size();
+            ids.put(label, id);
+            labels.add(label);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the shared instance of label, adding it if it is not there yet
+     *
+     * @param label the label to intern
+     * @return the label instance stored in the dictionary that equals <var>label</var>
+     * @throws IllegalArgumentException if label is null
+     * @spec.modifies this
+     * @spec.effects adds <var>label</var> to the dictionary if it is not there yet
+     */
+
+    public E intern(E label) {
+        return labels.get(id(label));
+    }
+
+    /**
+     * Returns the id of label without adding it
+     *
+     * @param label the label to look up
+     * @return the id of <var>label</var>, or -1 if it is not in the dictionary
+     * @throws IllegalArgumentException if label is null
+     */
+
+    public int idOf(E label) {
+        if (label == null) throw new IllegalArgumentException("label can not be null");
+        Integer id = ids.get(label);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the label with the given id
+     *
+     * @param id an id given out by this dictionary
+     * @return the label whose id is <var>id</var>
+     * @throws IllegalArgumentException if no label has the given id
+     */
+
+    public E label(int id) {
+        if (id < 0 || id >= labels.size()) {
+            throw new IllegalArgumentException("unknown label id " + id);
+        }
+        return labels.get(id);
+    }
+
+    /**
+     * returns the number of distinct labels
+     *
+     * @return number of labels in the dictionary
+     */
+
+    public int size() {
+        return labels.size();
+    }
+}
@@ -1,7 +1,5 @@
 package graph;
 
-import java.util.Objects;
-
 /**
  * This class represents a single node of a graph.
  *
@@ -16,13 +14,15 @@ public class Node<T> {
 
      // Representation Invariant:
      // data != null and data is of type String
+     // hash == 31 + data.hashCode()
 
      // Abstraction Function:
      // AF(this) = a node n such that
      //            n.data = this.data
 
 
-    private T data;
+    private final T data;
+    private final int hash;
 
     /**
      * Constructor that creates a new node with specified data and empty edges
@@ -34,6 +34,8 @@ public class Node<T> {
     public Node(T data) {
         if (data == null) throw new IllegalArgumentException("data can not be null");
         this.data = data;
+        // same value as Objects.hash(data), without the varargs array
+        this.hash = 31 + data.hashCode();
         checkRep();
     }
 
@@ -70,7 +72,7 @@ public class Node<T> {
 
     @Override
     public int hashCode() {
-        return Objects.hash(getData());
+        return hash;
     }
 
     /**
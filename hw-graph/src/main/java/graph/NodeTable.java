@@ -0,0 +1,124 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class interns the data of nodes. Every distinct data value is given
+ * one canonical Node instance and a dense int handle, starting at 0, so
+ * callers can hold on to small ints instead of building a new Node for
+ * every lookup. Handles are never reused or taken back.
+ */
+
+public class NodeTable<T> {
+
+    // Rep invariant:
+    //     handles != null and nodes != null
+    //     handles.get(nodes.get(i).getData()) == i for every 0 <= i < nodes.size()
+    //     handles.size() == nodes.size()
+
+    // Abstract function:
+    //    AF(this) = the sequence of canonical nodes nodes[0], nodes[1], ...,
+    //    where nodes[i] has handle i
+
+    private final Map<T, Integer> handles;
+    private final List<Node<T>> nodes;
+
+    /**
+     * Constructor that creates an empty table.
+     *
+     * @spec.effects creates a table with no nodes
+     */
+    public NodeTable() {
+        this(16);
+    }
+
+    /**
+     * Constructor that creates an empty table sized for the expected number of nodes.
+     *
+     * @param expectedNodes the number of nodes the table is expected to hold
+     * @spec.requires expectedNodes &gt;= 0
+     * @spec.effects creates a table with no nodes
+     */
+    public NodeTable(int expectedNodes) {
+        if (expectedNodes < 0) throw new IllegalArgumentException("expectedNodes can not be negative");
+        this.handles = new HashMap<>(Math.max(16, (int) (expectedNodes / 0.75f) + 1));
+        this.nodes = new ArrayList<>(expectedNodes);
+    }
+
+    /**
+     * Returns the handle of data, giving it the next free handle if it has none yet
+     *
+     * @param data the data to intern
+     * @return the handle of <var>data</var>
+     * @throws IllegalArgumentException if data is null
+     * @spec.modifies this
+     * @spec.effects adds a canonical node for <var>data</var> if there is none yet
+     */
+
+    public int handle(T data) {
+        if (data == null) throw new IllegalArgumentException("data can not be null");
+        Integer handle = handles.get(data);
+        if (handle == null) {
+            handle = nodes.size();
+            handles.put(data, handle);
+            nodes.add(new Node<>(data));
+        }
+        return handle;
+    }
+
+    /**
+     * Returns the canonical Node for data, creating it if there is none yet
+     *
+     * @param data the data to intern
+     * @return the canonical Node whose data equals <var>data</var>
+     * @throws IllegalArgumentException if data is null
+     * @spec.modifies this
+     * @spec.effects adds a canonical node for <var>data</var> if there is none yet
+     */
+
+    public Node<T> intern(T data) {
+        return nodes.get(handle(data));
+    }
+
+    /**
+     * Returns the handle of data without interning it
+     *
+     * @param data the data to look up
+     * @return the handle of <var>data</var>, or -1 if it has not been interned
+     * @throws IllegalArgumentException if data is null
+     */
+
+    public int handleOf(T data) {
+        if (data == null) throw new IllegalArgumentException("data can not be null");
+        Integer handle = handles.get(data);
+        return handle == null ? -1 : handle;
+    }
+
+    /**
+     * Returns the canonical node with the given handle
+     *
+     * @param handle a handle given out by this table
+     * @return the Node whose handle is <var>handle</var>
+     * @throws IllegalArgumentException if no node has the given handle
+     */
+
+    public Node<T> node(int handle) {
+        if (handle < 0 || handle >= nodes.size()) {
+            throw new IllegalArgumentException("unknown handle " + handle);
+        }
+        return nodes.get(handle);
+    }
+
+    /**
+     * returns the number of interned nodes
+     *
+     * @return number of nodes in the table
+     */
+
+    public int size() {
+        return nodes.size();
+    }
+}
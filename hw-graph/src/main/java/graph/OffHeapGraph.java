@@ -0,0 +1,536 @@
+package graph;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * This class represents a read-only directed graph whose edges are kept
+ * outside the Java heap, for graphs too large for a HashMap of HashSets of
+ * Edge objects. Only the nodes, the distinct labels and two primitive
+ * entries per node stay on the heap; the child id and label id of every
+ * edge are stored in OffHeapIntArrays, so the edges add nothing for the
+ * garbage collector to trace.
+ *
+ * Node ids are the handles given out by the Builder. The edges of the node
+ * with id i are the edge indices [edgeStart(i), edgeEnd(i)), sorted by child
+ * id and then by label id, with no duplicates. Edge indices are longs, so a
+ * graph may hold more than 2^31 edges.
+ *
+ * A graph built with a spill directory keeps its edges in memory-mapped
+ * temporary files and can hold more edges than fit in -Xmx. close() deletes
+ * those files; the graph must not be used after it is closed.
+ */
+
+public final class OffHeapGraph<T,E> implements GraphView<T,E>, Closeable {
+
+    // Rep invariant:
+    //     nodes, labels, starts, degrees, targets, labelIds != null
+    //     starts.length == degrees.length == nodes.size()
+    //     for every node i, the slices [starts[i], starts[i] + degrees[i]) are
+    //     disjoint and lie within the capacity of targets and labelIds
+    //     within each slice, (targets[k], labelIds[k]) is strictly increasing
+    //     0 <= targets[k] < nodes.size() and 0 <= labelIds[k] < labels.size()
+    //     edgeCount == the sum of degrees
+
+    // Abstract function:
+    //    AF(this) = directed graph g such that
+    //    All Nodes in g = {nodes.node(i) | 0 <= i < nodes.size()}
+    //    All Edges starting from node i =
+    //        {Edge(nodes.node(targets[k]), labels.label(labelIds[k])) | starts[i] <= k < starts[i] + degrees[i]}
+
+    private final NodeTable<T> nodes;
+    private final LabelTable<E> labels;
+    private final long[] starts;
+    private final int[] degrees;
+    private final OffHeapIntArray targets;
+    private final OffHeapIntArray labelIds;
+    private final long edgeCount;
+
+    private OffHeapGraph(NodeTable<T> nodes, LabelTable<E> labels, long[] starts, int[] degrees,
+                         OffHeapIntArray targets, OffHeapIntArray labelIds, long edgeCount) {
+        this.nodes = nodes;
+        this.labels = labels;
+        this.starts = starts;
+        this.degrees = degrees;
+        this.targets = targets;
+        this.labelIds = labelIds;
+        this.edgeCount = edgeCount;
+    }
+
+    /**
+     * Copies a Graph into direct ByteBuffers.
+     *
+     * @param g the graph to copy
+     * @return an off-heap graph with the same nodes and edges as <var>g</var>
+     * @throws IllegalArgumentException if g is null
+     */
+
+    public static <T,E> OffHeapGraph<T,E> of(Graph<T,E> g) {
+        if (g == null) throw new IllegalArgumentException("g can not be null");
+        Builder<T,E> builder = new Builder<>();
+        for (Node<T> n : g.nodeView()) {
+            int parent = builder.addNode(n.getData());
+            for (Edge<T,E> e : g.edgeView(n)) {
+                builder.addEdge(parent, builder.addNode(e.getChildNode().getData()), e.getLabel());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * returns the number of nodes in the graph
+     *
+     * @return number of nodes in the graph
+     */
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * returns the number of edges in the graph
+     *
+     * @return number of edges in the graph
+     */
+
+    public long edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Returns true if Node <var>n</var> is in the graph
+     *
+     * @param n the Node to find in the graph
+     * @return boolean: true if Node <var>n</var> is in the graph
+     * @throws IllegalArgumentException if the Node <var>n</var> is null.
+     */
+
+    public boolean containsNode(Node<T> n) {
+        return indexOf(n) >= 0;
+    }
+
+    /**
+     * Returns the id of Node <var>n</var>
+     *
+     * @param n the Node to look up
+     * @return the id of <var>n</var>, or -1 if <var>n</var> is not in the graph
+     * @throws IllegalArgumentException if the Node <var>n</var> is null.
+     */
+
+    public int indexOf(Node<T> n) {
+        if (n == null) throw new IllegalArgumentException("n cannot be null");
+        return nodes.handleOf(n.getData());
+    }
+
+    /**
+     * Returns the node with the given id
+     *
+     * @param id the id of the node
+     * @return the Node whose id is <var>id</var>
+     * @throws IllegalArgumentException if the id is unknown
+     */
+
+    public Node<T> node(int id) {
+        return nodes.node(id);
+    }
+
+    /**
+     * Returns the number of edges leaving the node with the given id
+     *
+     * @param id the id of the node
+     * @spec.requires 0 &lt;= id &lt; size()
+     * @return the out-degree of node <var>id</var>
+     */
+
+    public int degree(int id) {
+        return degrees[id];
+    }
+
+    /**
+     * Returns the index of the first edge of the node with the given id
+     *
+     * @param id the id of the node
+     * @spec.requires 0 &lt;= id &lt; size()
+     * @return the first edge index of node <var>id</var>
+     */
+
+    public long edgeStart(int id) {
+        return starts[id];
+    }
+
+    /**
+     * Returns one past the index of the last edge of the node with the given id
+     *
+     * @param id the id of the node
+     * @spec.requires 0 &lt;= id &lt; size()
+     * @return the end (exclusive) edge index of node <var>id</var>
+     */
+
+    public long edgeEnd(int id) {
+        return starts[id] + degrees[id];
+    }
+
+    /**
+     * Returns the id of the child node of the given edge
+     *
+     * @param edge the index of the edge
+     * @spec.requires edge lies in [edgeStart(i), edgeEnd(i)) for some node i
+     * @return the id of the node the edge points to
+     */
+
+    public int target(long edge) {
+        return targets.get(edge);
+    }
+
+    /**
+     * Returns the label id of the given edge in labelTable()
+     *
+     * @param edge the index of the edge
+     * @spec.requires edge lies in [edgeStart(i), edgeEnd(i)) for some node i
+     * @return the id of the label of the edge
+     */
+
+    public int labelId(long edge) {
+        return labelIds.get(edge);
+    }
+
+    /**
+     * Returns the label of the given edge
+     *
+     * @param edge the index of the edge
+     * @spec.requires edge lies in [edgeStart(i), edgeEnd(i)) for some node i
+     * @return the label of the edge
+     */
+
+    public E label(long edge) {
+        return labels.label(labelIds.get(edge));
+    }
+
+    /**
+     * Returns the dictionary that maps label ids back to labels
+     *
+     * @return the label dictionary of this graph
+     */
+
+    public LabelTable<E> labelTable() {
+        return labels;
+    }
+
+    /**
+     * Calls visitor once for every node in the graph
+     *
+     * @param visitor called with each node
+     * @spec.requires visitor does not modify the graph
+     * @throws IllegalArgumentException if visitor is null
+     */
+
+    public void forEachNode(Consumer<? super Node<T>> visitor) {
+        if (visitor == null) throw new IllegalArgumentException("visitor can not be null");
+        for (int i = 0; i < nodes.size(); i++) {
+            visitor.accept(nodes.node(i));
+        }
+    }
+
+    /**
+     * Calls visitor once for every edge leaving Node n, passing the child
+     * node and the label of the edge.
+     *
+     * @param n Node n to visit the edges of
+     * @param visitor called with (child, label) for each edge of <var>n</var>
+     * @throws IllegalArgumentException if n or visitor is null, or n is not in the graph
+     */
+
+    public void forEachEdge(Node<T> n, BiConsumer<? super Node<T>, ? super E> visitor) {
+        if (visitor == null) throw new IllegalArgumentException("visitor can not be null");
+        int id = indexOf(n);
+        if (id < 0) throw new IllegalArgumentException("n is not in the graph");
+        for (long k = edgeStart(id); k < edgeEnd(id); k++) {
+            visitor.accept(nodes.node(targets.get(k)), label(k));
+        }
+    }
+
+    /**
+     * Given a Node n, get a set of all edges connected to it
+     *
+     * @param n Node n to get the edges from
+     * @return returns a set of edges for <var>n</var>
+     * @throws IllegalArgumentException if n is null or not in the graph
+     */
+
+    public HashSet<Edge<T,E>> getEdges(Node<T> n) {
+        int id = indexOf(n);
+        if (id < 0) throw new IllegalArgumentException("n is not in the graph");
+        HashSet<Edge<T,E>> edges = new HashSet<>();
+        for (long k = edgeStart(id); k < edgeEnd(id); k++) {
+            edges.add(new Edge<>(nodes.node(targets.get(k)), label(k)));
+        }
+        return edges;
+    }
+
+    /**
+     * Releases the off-heap edge storage and deletes its files, if any.
+     *
+     * @throws IOException if a backing file can not be closed
+     * @spec.modifies this
+     * @spec.effects this graph can no longer be read
+     */
+
+    @Override
+    public void close() throws IOException {
+        try {
+            targets.close();
+        } finally {
+            labelIds.close();
+        }
+    }
+
+    /**
+     * This class builds an OffHeapGraph. Edges are appended off-heap as they
+     * are added. When every parent's edges are added together, as from a
+     * sorted edge list, the appended arrays become the edge arrays of the
+     * graph as they are; otherwise build() copies the edges into per-node
+     * slices first. Either way, build() then sorts each slice and drops
+     * duplicate edges.
+     */
+    public static final class Builder<T,E> {
+
+        // Rep invariant:
+        //     nodes, labels, starts, degrees, runs, children, labelIds != null
+        //     starts.length == degrees.length >= nodes.size()
+        //     while parents == null, the edges of each parent in runs[0..runCount)
+        //     are the contiguous slice [starts[p], starts[p] + degrees[p]),
+        //     in the order of runs
+        //     once parents != null, parents[k] is the parent of appended edge k
+
+        private final Path spillDirectory;
+        private final NodeTable<T> nodes = new NodeTable<>();
+        private final LabelTable<E> labels = new LabelTable<>();
+        private long[] starts = new long[16];
+        private int[] degrees = new int[16];
+        private int[] runs = new int[16];
+        private int runCount;
+        private final OffHeapIntArray children;
+        private final OffHeapIntArray labelIds;
+        private OffHeapIntArray parents;
+        private long edgeCount;
+
+        /**
+         * Creates a builder whose edges are kept in direct ByteBuffers.
+         *
+         * @spec.effects creates a builder with no nodes or edges
+         */
+        public Builder() {
+            this.spillDirectory = null;
+            this.children = new OffHeapIntArray();
+            this.labelIds = new OffHeapIntArray();
+        }
+
+        /**
+         * Creates a builder whose edges are kept in memory-mapped temporary
+         * files in spillDirectory, so the graph may be larger than the heap.
+         *
+         * @param spillDirectory the directory for the temporary files
+         * @throws IOException if the files can not be created
+         * @throws IllegalArgumentException if spillDirectory is null
+         * @spec.effects creates a builder with no nodes or edges
+         */
+        public Builder(Path spillDirectory) throws IOException {
+            if (spillDirectory == null) throw new IllegalArgumentException("spillDirectory can not be null");
+            this.spillDirectory = spillDirectory;
+            this.children = new OffHeapIntArray(spillDirectory);
+            this.labelIds = new OffHeapIntArray(spillDirectory);
+        }
+
+        /**
+         * Adds a node holding data
+         *
+         * @param data the data of the node
+         * @return the id of the node, valid in the built graph
+         * @throws IllegalArgumentException if data is null
+         * @spec.modifies this
+         */
+
+        public int addNode(T data) {
+            int id = nodes.handle(data);
+            if (id == starts.length) {
+                starts = Arrays.copyOf(starts, id * 2);
+                degrees = Arrays.copyOf(degrees, id * 2);
+            }
+            return id;
+        }
+
+        /**
+         * Adds an edge, adding its parent and child nodes if needed
+         *
+         * @param parent the data of the parent node where the edge will begin
+         * @param child  the data of the child node
+         * @param label  the label of the edge
+         * @return this
+         * @throws IllegalArgumentException if any argument is null
+         * @spec.modifies this
+         */
+
+        public Builder<T,E> addEdge(T parent, T child, E label) {
+            return addEdge(addNode(parent), addNode(child), label);
+        }
+
+        /**
+         * Adds an edge between the nodes with the given ids
+         *
+         * @param parent the id of the parent node where the edge will begin
+         * @param child  the id of the child node
+         * @param label  the label of the edge
+         * @return this
+         * @throws IllegalArgumentException if an id is unknown or label is null
+         * @throws UncheckedIOException if the spill files can not grow
+         * @spec.modifies this
+         */
+
+        public Builder<T,E> addEdge(int parent, int child, E label) {
+            if (parent < 0 || parent >= nodes.size() || child < 0 || child >= nodes.size()) {
+                throw new IllegalArgumentException("unknown id");
+            }
+            if (label == null) throw new IllegalArgumentException("label can not be null");
+            if (parents == null && (runCount == 0 || runs[runCount - 1] != parent)) {
+                if (degrees[parent] == 0) {
+                    startRun(parent);
+                } else {
+                    // parent's edges are split: record the parent of every edge from now on
+                    recordParents();
+                }
+            }
+            children.ensureCapacity(edgeCount + 1);
+            labelIds.ensureCapacity(edgeCount + 1);
+            children.set(edgeCount, child);
+            labelIds.set(edgeCount, labels.id(label));
+            if (parents != null) {
+                parents.ensureCapacity(edgeCount + 1);
+                parents.set(edgeCount, parent);
+            }
+            degrees[parent]++;
+            edgeCount++;
+            return this;
+        }
+
+        /**
+         * Starts the contiguous slice of parent's edges at the next edge
+         */
+        private void startRun(int parent) {
+            if (runCount == runs.length) {
+                runs = Arrays.copyOf(runs, runCount * 2);
+            }
+            runs[runCount++] = parent;
+            starts[parent] = edgeCount;
+        }
+
+        /**
+         * Writes out the parent of every edge appended so far, from the runs
+         */
+        private void recordParents() {
+            parents = newArray();
+            parents.ensureCapacity(Math.max(1, edgeCount));
+            for (int r = 0; r < runCount; r++) {
+                int p = runs[r];
+                for (long k = starts[p]; k < starts[p] + degrees[p]; k++) {
+                    parents.set(k, p);
+                }
+            }
+        }
+
+        /**
+         * Creates an empty array of the same kind as the edge arrays
+         */
+        private OffHeapIntArray newArray() {
+            if (spillDirectory == null) {
+                return new OffHeapIntArray();
+            }
+            try {
+                return new OffHeapIntArray(spillDirectory);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Builds the graph holding every node and edge added so far. The
+         * builder must not be used afterwards.
+         *
+         * @return a new OffHeapGraph with the added nodes and edges, without duplicate edges
+         * @throws UncheckedIOException if the spill files can not be written
+         */
+
+        public OffHeapGraph<T,E> build() {
+            int n = nodes.size();
+            long[] graphStarts = Arrays.copyOf(starts, n);
+            int[] graphDegrees = Arrays.copyOf(degrees, n);
+            OffHeapIntArray graphTargets = children;
+            OffHeapIntArray graphLabelIds = labelIds;
+            if (parents != null) {
+                // scatter the edges into one slice per node, in id order
+                graphTargets = newArray();
+                graphLabelIds = newArray();
+                graphTargets.ensureCapacity(Math.max(1, edgeCount));
+                graphLabelIds.ensureCapacity(Math.max(1, edgeCount));
+                long[] next = new long[n];
+                long offset = 0;
+                for (int i = 0; i < n; i++) {
+                    graphStarts[i] = offset;
+                    next[i] = offset;
+                    offset += graphDegrees[i];
+                }
+                for (long k = 0; k < edgeCount; k++) {
+                    long at = next[parents.get(k)]++;
+                    graphTargets.set(at, children.get(k));
+                    graphLabelIds.set(at, labelIds.get(k));
+                }
+                release(parents);
+                release(children);
+                release(labelIds);
+            }
+
+            long total = 0;
+            long[] slice = new long[16];
+            for (int i = 0; i < n; i++) {
+                int degree = graphDegrees[i];
+                if (degree > slice.length) {
+                    slice = new long[Math.max(degree, slice.length * 2)];
+                }
+                long start = graphStarts[i];
+                for (int k = 0; k < degree; k++) {
+                    slice[k] = ((long) graphTargets.get(start + k) << 32) | graphLabelIds.get(start + k);
+                }
+                Arrays.sort(slice, 0, degree);
+                int unique = 0;
+                for (int k = 0; k < degree; k++) {
+                    if (unique == 0 || slice[k] != slice[unique - 1]) {
+                        slice[unique++] = slice[k];
+                    }
+                }
+                for (int k = 0; k < unique; k++) {
+                    graphTargets.set(start + k, (int) (slice[k] >>> 32));
+                    graphLabelIds.set(start + k, (int) slice[k]);
+                }
+                graphDegrees[i] = unique;
+                total += unique;
+            }
+            return new OffHeapGraph<>(nodes, labels, graphStarts, graphDegrees, graphTargets, graphLabelIds, total);
+        }
+
+        /**
+         * Closes an array that is no longer needed
+         */
+        private static void release(OffHeapIntArray array) {
+            try {
+                array.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
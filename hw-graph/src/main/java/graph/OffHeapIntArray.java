@@ -0,0 +1,162 @@
+package graph;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * This class is a growable array of ints indexed by long, kept outside the
+ * Java heap. The ints live in chunks of direct ByteBuffers, either
+ * allocated with ByteBuffer.allocateDirect or mapped from a temporary file.
+ * Direct allocations count against -XX:MaxDirectMemorySize, which defaults
+ * to the heap size; file-backed chunks do not, so only they can hold more
+ * data than -Xmx. The temporary file is deleted when the array is closed.
+ */
+
+final class OffHeapIntArray implements Closeable {
+
+    // Rep invariant:
+    //     chunks != null, and every chunk but the last holds CHUNK_INTS ints
+    //     capacity == the total number of ints held by all chunks
+    //     channel != null iff the chunks are mapped from a file
+
+    // Abstract function:
+    //    AF(this) = the sequence a[0..capacity) where
+    //    a[i] = chunks[i >>> CHUNK_SHIFT].getInt((i & CHUNK_MASK) * 4)
+
+    static final int CHUNK_SHIFT = 24;
+    static final int CHUNK_INTS = 1 << CHUNK_SHIFT;
+    private static final long CHUNK_MASK = CHUNK_INTS - 1;
+    private static final int MIN_INTS = 1 << 10;
+
+    private final FileChannel channel;
+    private ByteBuffer[] chunks;
+    private long capacity;
+
+    /**
+     * Creates an empty array backed by direct ByteBuffers.
+     *
+     * @spec.effects creates an array with capacity 0
+     */
+    OffHeapIntArray() {
+        this.channel = null;
+        this.chunks = new ByteBuffer[0];
+    }
+
+    /**
+     * Creates an empty array backed by a new temporary file in directory.
+     *
+     * @param directory the directory to create the file in
+     * @throws IOException if the file can not be created
+     * @spec.effects creates an array with capacity 0
+     */
+    OffHeapIntArray(Path directory) throws IOException {
+        Path file = Files.createTempFile(directory, "graph", ".ints");
+        this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+        this.chunks = new ByteBuffer[0];
+    }
+
+    /**
+     * Returns the number of ints the array can hold
+     *
+     * @return the capacity of the array
+     */
+    long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Grows the array so it holds at least n ints. New ints are 0.
+     *
+     * @param n the number of ints needed
+     * @throws UncheckedIOException if a file-backed chunk can not be mapped
+     * @spec.modifies this
+     */
+    void ensureCapacity(long n) {
+        while (capacity < n) {
+            int last = chunks.length - 1;
+            if (last >= 0 && chunks[last].capacity() < CHUNK_INTS * Integer.BYTES) {
+                // the only chunk is still small: double it
+                int ints = (int) Math.min(CHUNK_INTS, Math.max(2L * capacity, n));
+                chunks[last] = allocate(last, ints, chunks[last]);
+                capacity = ints;
+            } else {
+                int ints = chunks.length == 0 ? (int) Math.min(CHUNK_INTS, Math.max(MIN_INTS, n)) : CHUNK_INTS;
+                chunks = Arrays.copyOf(chunks, chunks.length + 1);
+                chunks[last + 1] = allocate(last + 1, ints, null);
+                capacity += ints;
+            }
+        }
+    }
+
+    /**
+     * Returns a buffer of ints for chunk index, keeping the contents of old
+     */
+    private ByteBuffer allocate(int index, int ints, ByteBuffer old) {
+        ByteBuffer chunk;
+        if (channel == null) {
+            chunk = ByteBuffer.allocateDirect(ints * Integer.BYTES);
+            if (old != null) {
+                old.clear();
+                chunk.put(old);
+            }
+        } else {
+            // the file keeps the old contents, so mapping a larger region is enough
+            try {
+                chunk = channel.map(FileChannel.MapMode.READ_WRITE,
+                        (long) index * CHUNK_INTS * Integer.BYTES, (long) ints * Integer.BYTES);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return chunk.order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Returns the int at index i
+     *
+     * @param i the index
+     * @spec.requires 0 &lt;= i &lt; capacity()
+     * @return the int at <var>i</var>
+     */
+    int get(long i) {
+        return chunks[(int) (i >>> CHUNK_SHIFT)].getInt((int) (i & CHUNK_MASK) << 2);
+    }
+
+    /**
+     * Sets the int at index i
+     *
+     * @param i the index
+     * @param value the new value
+     * @spec.requires 0 &lt;= i &lt; capacity()
+     * @spec.modifies this
+     */
+    void set(long i, int value) {
+        chunks[(int) (i >>> CHUNK_SHIFT)].putInt((int) (i & CHUNK_MASK) << 2, value);
+    }
+
+    /**
+     * Drops the chunks and deletes the backing file, if any. The memory of
+     * the chunks is given back once they are garbage collected.
+     *
+     * @throws IOException if the backing file can not be closed
+     * @spec.modifies this
+     * @spec.effects this holds no ints afterwards
+     */
+    @Override
+    public void close() throws IOException {
+        chunks = new ByteBuffer[0];
+        capacity = 0;
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class finds shortest paths with a level-synchronous breadth first
+ * search whose frontiers are expanded in parallel on a ForkJoinPool.
+ *
+ * It returns exactly the path the sequential search in MarvelPaths.BFS
+ * returns: that search visits each node's edges in (child, label) order and
+ * gives every node the edge by which it was first discovered. So the parent
+ * of a node is the frontier node with the smallest queue position that has
+ * an edge to it, the edge is the one with the smallest label, and the next
+ * frontier is ordered by (parent position, child). The parallel search
+ * computes the same three things: it works on a copy of the graph frozen
+ * with ids in node order and edges sorted by (child id, label), every
+ * thread lowers a node's claimed parent position with an atomic minimum,
+ * and each new frontier is sorted by (claimed position, id) before the next
+ * level starts.
+ *
+ * An instance may answer any number of queries, one at a time.
+ */
+
+public final class ParallelBFS<T,E> {
+
+    // Rep invariant:
+    //     graph, pool != null and graph was frozen with ids in node order and
+    //     the edges of every node sorted by (child id, label)
+
+    // Frontier ranges shorter than this are expanded by a single task
+    private static final int SPLIT = 256;
+
+    private final ImmutableGraph<T,E> graph;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a search engine over a frozen, ordered copy of g.
+     *
+     * @param g the graph to search
+     * @param nodeOrder the order in which children are visited
+     * @param labelOrder the order in which edges to the same child are tried
+     * @param pool the pool that expands frontiers
+     * @spec.requires nodeOrder orders no two distinct nodes as equal
+     * @throws IllegalArgumentException if any argument is null
+     * @spec.effects creates an engine over a snapshot of <var>g</var>; later changes to g are not seen
+     */
+    public ParallelBFS(Graph<T,E> g, Comparator<? super T> nodeOrder, Comparator<? super E> labelOrder,
+                       ForkJoinPool pool) {
+        if (g == null || pool == null) throw new IllegalArgumentException("arguments can not be null");
+        this.graph = g.freeze(nodeOrder, labelOrder);
+        this.pool = pool;
+    }
+
+    /**
+     * Finds the shortest path from start to dest whose sequence of
+     * (child, label) steps is the smallest in the engine's order.
+     *
+     * @param start the start node
+     * @param dest the destination node
+     * @return the edges of the path from <var>start</var> to <var>dest</var>, an
+     * empty list if they are the same node, or null if no path exists
+     * @throws IllegalArgumentException if start or dest is null or not in the graph
+     */
+
+    public List<Edge<T,E>> shortestPath(Node<T> start, Node<T> dest) {
+        if (start == null || dest == null) throw new IllegalArgumentException("start and dest cannot be null");
+        int s = graph.indexOf(start);
+        int d = graph.indexOf(dest);
+        if (s < 0 || d < 0) throw new IllegalArgumentException("start and dest must be in the graph");
+        if (s == d) {
+            return new ArrayList<>();
+        }
+        Search search = new Search(s, d);
+        pool.invoke(search);
+        return search.path;
+    }
+
+    /**
+     * One query. order[] is the queue of the sequential search: the nodes
+     * in the order they are discovered, level after level.
+     */
+    private final class Search extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int start;
+        private final int dest;
+        // nodes of earlier levels; only written between levels
+        private final long[] visited;
+        // nodes first discovered in the current level
+        private final AtomicLongArray discovered;
+        // smallest queue position of a frontier node with an edge to each node
+        private final AtomicIntegerArray claim;
+        private final int[] order;
+        private final AtomicInteger orderEnd;
+        // for every discovered node, the index of the edge that reached it
+        private final int[] parentEdge;
+        private List<Edge<T,E>> path;
+
+        Search(int start, int dest) {
+            int n = graph.size();
+            this.start = start;
+            this.dest = dest;
+            this.visited = new long[(n + 63) >>> 6];
+            this.discovered = new AtomicLongArray((n + 63) >>> 6);
+            this.claim = new AtomicIntegerArray(n);
+            this.order = new int[n];
+            this.orderEnd = new AtomicInteger();
+            this.parentEdge = new int[n];
+        }
+
+        @Override
+        protected void compute() {
+            for (int i = 0; i < graph.size(); i++) {
+                claim.set(i, Integer.MAX_VALUE);
+            }
+            order[0] = start;
+            orderEnd.set(1);
+            visited[start >>> 6] |= 1L << start;
+            int levelStart = 0;
+            int levelEnd = 1;
+            while (levelStart < levelEnd) {
+                new Expand(levelStart, levelEnd).invoke();
+                int nextEnd = orderEnd.get();
+                sortLevel(levelEnd, nextEnd);
+                if ((visited[dest >>> 6] & (1L << dest)) != 0) {
+                    path = pathTo(dest);
+                    return;
+                }
+                levelStart = levelEnd;
+                levelEnd = nextEnd;
+            }
+            // no path exists from start to dest
+            path = null;
+        }
+
+        /**
+         * Puts the nodes discovered in order[from, to) into the order the
+         * sequential queue would hold them, and marks them visited
+         */
+        private void sortLevel(int from, int to) {
+            long[] keys = new long[to - from];
+            for (int i = from; i < to; i++) {
+                int v = order[i];
+                keys[i - from] = ((long) claim.get(v) << 32) | v;
+            }
+            Arrays.parallelSort(keys);
+            for (int i = from; i < to; i++) {
+                int v = (int) keys[i - from];
+                order[i] = v;
+                discovered.set(v >>> 6, 0L);
+                visited[v >>> 6] |= 1L << v;
+                parentEdge[v] = firstEdge(order[claim.get(v)], v);
+            }
+        }
+
+        /**
+         * Returns the index of the first edge from parent to child, which
+         * is the one with the smallest label
+         */
+        private int firstEdge(int parent, int child) {
+            int low = graph.edgeStart(parent);
+            int high = graph.edgeEnd(parent) - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (graph.target(mid) < child) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Follows the parent edges back from v to the start
+         */
+        private List<Edge<T,E>> pathTo(int v) {
+            List<Edge<T,E>> edges = new ArrayList<>();
+            while (v != start) {
+                int k = parentEdge[v];
+                edges.add(new Edge<>(graph.node(v), graph.label(k)));
+                v = order[claim.get(v)];
+            }
+            Collections.reverse(edges);
+            return edges;
+        }
+
+        /**
+         * Expands the frontier nodes at queue positions [from, to)
+         */
+        private final class Expand extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final int from;
+            private final int to;
+
+            Expand(int from, int to) {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > SPLIT) {
+                    int mid = (from + to) >>> 1;
+                    invokeAll(new Expand(from, mid), new Expand(mid, to));
+                    return;
+                }
+                int[] found = new int[16];
+                int count = 0;
+                for (int p = from; p < to; p++) {
+                    int u = order[p];
+                    for (int k = graph.edgeStart(u); k < graph.edgeEnd(u); k++) {
+                        int v = graph.target(k);
+                        if ((visited[v >>> 6] & (1L << v)) != 0) {
+                            continue;
+                        }
+                        lowerClaim(v, p);
+                        if (markDiscovered(v)) {
+                            if (count == found.length) {
+                                found = Arrays.copyOf(found, count * 2);
+                            }
+                            found[count++] = v;
+                        }
+                    }
+                }
+                int at = orderEnd.getAndAdd(count);
+                System.arraycopy(found, 0, order, at, count);
+            }
+
+            /**
+             * Lowers the claimed parent position of v to p if p is smaller
+             */
+            private void lowerClaim(int v, int p) {
+                int current = claim.get(v);
+                while (p < current && !claim.compareAndSet(v, current, p)) {
+                    current = claim.get(v);
+                }
+            }
+
+            /**
+             * Sets the discovered bit of v, returning true if this call set it
+             */
+            private boolean markDiscovered(int v) {
+                int word = v >>> 6;
+                long bit = 1L << v;
+                long current = discovered.get(word);
+                while ((current & bit) == 0) {
+                    if (discovered.compareAndSet(word, current, current | bit)) {
+                        return true;
+                    }
+                    current = discovered.get(word);
+                }
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,441 @@
+package graph;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * This class represents an immutable map that is changed by making new
+ * maps. It is a hash array mapped trie: each level of the trie branches on
+ * five bits of the key's hash, and a branch stores only the slots in use,
+ * found through a 32-bit bitmap. put and remove copy the one path from the
+ * root to the key, at most seven branches, and share everything else with
+ * the map they were called on, so both old and new maps stay valid and
+ * cheap to keep.
+ *
+ * Keys whose hashes are equal in all 32 bits share a collision list at the
+ * bottom of the trie. Keys and values may not be null.
+ */
+
+final class PersistentMap<K,V> {
+
+    // Rep invariant:
+    //     root is null, a Leaf, a Collision or a Branch
+    //     size == the number of Leaf objects reachable from root
+    //     every Branch has at least one slot, and slots.length == bitCount(bitmap)
+    //     a Branch with a single slot holds another Branch
+    //     a Leaf or Collision at depth d (root at 0) sits under the slots chosen
+    //         by the first d five-bit chunks of its hash
+    //     a Collision holds at least two leaves with its hash and distinct keys
+
+    // Abstract function:
+    //    AF(this) = {leaf.key -> leaf.value | leaf is reachable from root}
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final PersistentMap<?,?> EMPTY = new PersistentMap<>(null, 0);
+
+    private final Object root;
+    private final int size;
+
+    private PersistentMap(Object root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty map
+     *
+     * @return a map with no keys
+     */
+    @SuppressWarnings("unchecked")
+    static <K,V> PersistentMap<K,V> empty() {
+        return (PersistentMap<K,V>) EMPTY;
+    }
+
+    /**
+     * Returns the number of keys in this map
+     *
+     * @return the number of keys
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the value of key
+     *
+     * @param key the key to look up
+     * @return the value of <var>key</var>, or null if it has none
+     */
+    @SuppressWarnings("unchecked")
+    V get(Object key) {
+        int hash = key.hashCode();
+        Object node = root;
+        int shift = 0;
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            int bit = bit(hash, shift);
+            if ((branch.bitmap & bit) == 0) {
+                return null;
+            }
+            node = branch.slots[index(branch.bitmap, bit)];
+            shift += BITS;
+        }
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            return leaf.hash == hash && leaf.key.equals(key) ? (V) leaf.value : null;
+        }
+        if (node instanceof Collision && ((Collision) node).hash == hash) {
+            for (Leaf leaf : ((Collision) node).leaves) {
+                if (leaf.key.equals(key)) {
+                    return (V) leaf.value;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if key has a value in this map
+     *
+     * @param key the key to look up
+     * @return true if <var>key</var> is in this map
+     */
+    boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns a map that is this map with key set to value
+     *
+     * @param key the key to set
+     * @param value the new value of key
+     * @spec.requires key != null and value != null
+     * @return a map like this one, but mapping <var>key</var> to <var>value</var>;
+     * this map itself if it already maps key to this very value object
+     */
+    PersistentMap<K,V> put(K key, V value) {
+        int[] added = new int[1];
+        Object newRoot = put(root, 0, new Leaf(key.hashCode(), key, value), added);
+        return newRoot == root ? this : new PersistentMap<>(newRoot, size + added[0]);
+    }
+
+    /**
+     * Returns a map that is this map without key
+     *
+     * @param key the key to remove
+     * @return a map like this one, but without <var>key</var>; this map
+     * itself if key is not in it
+     */
+    PersistentMap<K,V> remove(Object key) {
+        Object newRoot = remove(root, 0, key.hashCode(), key);
+        return newRoot == root ? this : new PersistentMap<>(newRoot, size - 1);
+    }
+
+    /**
+     * Calls visitor once for every key and its value, in no particular order
+     *
+     * @param visitor called with (key, value) for each key of this map
+     */
+    void forEach(BiConsumer<? super K, ? super V> visitor) {
+        forEach(root, visitor);
+    }
+
+    /**
+     * Returns an iterator over the keys of this map, in no particular order.
+     * The iterator does not support remove.
+     *
+     * @return an iterator over the keys of this map
+     */
+    Iterator<K> keys() {
+        return new KeyIterator<>(root);
+    }
+
+    /**
+     * Returns the bit of the five-bit chunk of hash at shift
+     */
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * Returns the position in a branch's slots of the slot marked by bit
+     */
+    private static int index(int bitmap, int bit) {
+        return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    /**
+     * Returns the hash of a Leaf or Collision
+     */
+    private static int hashOf(Object node) {
+        return node instanceof Leaf ? ((Leaf) node).hash : ((Collision) node).hash;
+    }
+
+    /**
+     * Returns node, found at depth shift / BITS, with leaf put in it. Sets
+     * added[0] to 1 if the key of leaf was not there before.
+     */
+    private static Object put(Object node, int shift, Leaf leaf, int[] added) {
+        if (node == null) {
+            added[0] = 1;
+            return leaf;
+        }
+        if (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            int bit = bit(leaf.hash, shift);
+            int i = index(branch.bitmap, bit);
+            if ((branch.bitmap & bit) == 0) {
+                added[0] = 1;
+                Object[] slots = new Object[branch.slots.length + 1];
+                System.arraycopy(branch.slots, 0, slots, 0, i);
+                slots[i] = leaf;
+                System.arraycopy(branch.slots, i, slots, i + 1, branch.slots.length - i);
+                return new Branch(branch.bitmap | bit, slots);
+            }
+            Object child = put(branch.slots[i], shift + BITS, leaf, added);
+            if (child == branch.slots[i]) {
+                return branch;
+            }
+            Object[] slots = branch.slots.clone();
+            slots[i] = child;
+            return new Branch(branch.bitmap, slots);
+        }
+        if (node instanceof Leaf) {
+            Leaf old = (Leaf) node;
+            if (old.hash == leaf.hash && old.key.equals(leaf.key)) {
+                return old.value == leaf.value ? old : leaf;
+            }
+            added[0] = 1;
+            if (old.hash == leaf.hash) {
+                return new Collision(leaf.hash, new Leaf[] {old, leaf});
+            }
+            return split(old, leaf, shift);
+        }
+        Collision collision = (Collision) node;
+        if (collision.hash != leaf.hash) {
+            added[0] = 1;
+            return split(collision, leaf, shift);
+        }
+        Leaf[] leaves = collision.leaves;
+        for (int i = 0; i < leaves.length; i++) {
+            if (leaves[i].key.equals(leaf.key)) {
+                if (leaves[i].value == leaf.value) {
+                    return collision;
+                }
+                Leaf[] copy = leaves.clone();
+                copy[i] = leaf;
+                return new Collision(leaf.hash, copy);
+            }
+        }
+        added[0] = 1;
+        Leaf[] copy = Arrays.copyOf(leaves, leaves.length + 1);
+        copy[leaves.length] = leaf;
+        return new Collision(leaf.hash, copy);
+    }
+
+    /**
+     * Returns the branches that hold a and b, two Leaf or Collision nodes
+     * with different hashes, starting at depth shift / BITS
+     */
+    private static Object split(Object a, Object b, int shift) {
+        int bitA = bit(hashOf(a), shift);
+        int bitB = bit(hashOf(b), shift);
+        if (bitA == bitB) {
+            return new Branch(bitA, new Object[] {split(a, b, shift + BITS)});
+        }
+        Object[] slots = Integer.compareUnsigned(bitA, bitB) < 0 ? new Object[] {a, b} : new Object[] {b, a};
+        return new Branch(bitA | bitB, slots);
+    }
+
+    /**
+     * Returns node, found at depth shift / BITS, without key. Returns node
+     * itself if key is not in it.
+     */
+    private static Object remove(Object node, int shift, int hash, Object key) {
+        if (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            int bit = bit(hash, shift);
+            if ((branch.bitmap & bit) == 0) {
+                return branch;
+            }
+            int i = index(branch.bitmap, bit);
+            Object child = remove(branch.slots[i], shift + BITS, hash, key);
+            if (child == branch.slots[i]) {
+                return branch;
+            }
+            if (child == null) {
+                if (branch.slots.length == 1) {
+                    return null;
+                }
+                Object[] slots = new Object[branch.slots.length - 1];
+                System.arraycopy(branch.slots, 0, slots, 0, i);
+                System.arraycopy(branch.slots, i + 1, slots, i, slots.length - i);
+                // a lone leaf moves up, so no branch holds just one leaf
+                if (slots.length == 1 && !(slots[0] instanceof Branch)) {
+                    return slots[0];
+                }
+                return new Branch(branch.bitmap & ~bit, slots);
+            }
+            if (branch.slots.length == 1 && !(child instanceof Branch)) {
+                return child;
+            }
+            Object[] slots = branch.slots.clone();
+            slots[i] = child;
+            return new Branch(branch.bitmap, slots);
+        }
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            return leaf.hash == hash && leaf.key.equals(key) ? null : leaf;
+        }
+        if (node instanceof Collision && ((Collision) node).hash == hash) {
+            Leaf[] leaves = ((Collision) node).leaves;
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].key.equals(key)) {
+                    if (leaves.length == 2) {
+                        return leaves[1 - i];
+                    }
+                    Leaf[] copy = new Leaf[leaves.length - 1];
+                    System.arraycopy(leaves, 0, copy, 0, i);
+                    System.arraycopy(leaves, i + 1, copy, i, copy.length - i);
+                    return new Collision(hash, copy);
+                }
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Calls visitor with every key and value under node
+     */
+    @SuppressWarnings("unchecked")
+    private static <K,V> void forEach(Object node, BiConsumer<? super K, ? super V> visitor) {
+        if (node instanceof Branch) {
+            for (Object slot : ((Branch) node).slots) {
+                forEach(slot, visitor);
+            }
+        } else if (node instanceof Leaf) {
+            visitor.accept((K) ((Leaf) node).key, (V) ((Leaf) node).value);
+        } else if (node instanceof Collision) {
+            for (Leaf leaf : ((Collision) node).leaves) {
+                visitor.accept((K) leaf.key, (V) leaf.value);
+            }
+        }
+    }
+
+    /**
+     * One key and its value, with the key's hash
+     */
+    private static final class Leaf {
+        final int hash;
+        final Object key;
+        final Object value;
+
+        Leaf(int hash, Object key, Object value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * The leaves of several keys with the same hash
+     */
+    private static final class Collision {
+        final int hash;
+        final Leaf[] leaves;
+
+        Collision(int hash, Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+    }
+
+    /**
+     * A level of the trie: slot i holds whatever is under the i-th set bit of bitmap
+     */
+    private static final class Branch {
+        final int bitmap;
+        final Object[] slots;
+
+        Branch(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+    }
+
+    /**
+     * Walks the trie depth first, keeping the branches it is inside on a stack
+     */
+    private static final class KeyIterator<K> implements Iterator<K> {
+        // the branches being walked, and the next slot to visit in each
+        private final ArrayDeque<Object[]> branches = new ArrayDeque<>();
+        private final ArrayDeque<Integer> positions = new ArrayDeque<>();
+        // the leaves of the collision being walked, if any
+        private Leaf[] leaves;
+        private int leafIndex;
+        private Leaf next;
+
+        KeyIterator(Object root) {
+            if (root != null) {
+                branches.push(new Object[] {root});
+                positions.push(0);
+            }
+            advance();
+        }
+
+        /**
+         * Moves next to the following leaf, or to null at the end
+         */
+        private void advance() {
+            if (leaves != null && leafIndex < leaves.length) {
+                next = leaves[leafIndex++];
+                return;
+            }
+            leaves = null;
+            while (!branches.isEmpty()) {
+                Object[] slots = branches.peek();
+                int i = positions.pop();
+                if (i == slots.length) {
+                    branches.pop();
+                    continue;
+                }
+                positions.push(i + 1);
+                Object slot = slots[i];
+                if (slot instanceof Branch) {
+                    branches.push(((Branch) slot).slots);
+                    positions.push(0);
+                } else if (slot instanceof Leaf) {
+                    next = (Leaf) slot;
+                    return;
+                } else {
+                    leaves = ((Collision) slot).leaves;
+                    next = leaves[0];
+                    leafIndex = 1;
+                    return;
+                }
+            }
+            next = null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            K key = (K) next.key;
+            advance();
+            return key;
+        }
+    }
+}
@@ -0,0 +1,580 @@
+package graph;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * This class represents a graph that changes through a sequence of immutable
+ * versions. Readers call snapshot() and query that version without taking any
+ * lock; it never changes, however many updates are published after it.
+ * Writers describe a change as a Batch, which is applied on top of the
+ * current version and published atomically as the next version.
+ *
+ * Versions share structure: each version maps nodes to their edge sets in
+ * a PersistentMap, and an update copies only the edge sets it touches,
+ * once each, plus the few trie branches above them. Everything else is
+ * shared with the version before, so an update costs time in proportion
+ * to the size of the change, not of the graph. Each version also keeps
+ * the edges into every node, so removing a node costs its degree rather
+ * than a scan of the graph.
+ */
+
+public class VersionedGraph<T,E> {
+
+    // Rep invariant:
+    //     current != null and current.get() != null
+    //     versions are numbered 0, 1, 2, ... in publication order
+
+    // Abstract function:
+    //    AF(this) = the directed graph current.get(), whose history is the
+    //    sequence of snapshots published before it
+
+    private final AtomicReference<Snapshot<T,E>> current;
+    private final Object writeLock = new Object();
+
+    /**
+     * Constructor that initiates a versioned graph with an empty version 0.
+     *
+     * @spec.effects creates an empty graph
+     */
+    public VersionedGraph() {
+        this.current = new AtomicReference<>(
+                new Snapshot<>(0, PersistentMap.empty(), PersistentMap.empty()));
+    }
+
+    /**
+     * Constructor that initiates a versioned graph whose version 0 holds the
+     * same nodes and edges as g.
+     *
+     * @param g the graph to copy
+     * @spec.requires g != null
+     * @spec.effects creates a graph whose first version is a copy of <var>g</var>
+     */
+    public VersionedGraph(Graph<T,E> g) {
+        if (g == null) throw new IllegalArgumentException("g can not be null");
+        Batch<T,E> batch = new Batch<>(new Snapshot<>(-1, PersistentMap.empty(), PersistentMap.empty()));
+        for (Node<T> n : g.nodeView()) {
+            batch.addNode(n);
+            for (Edge<T,E> e : g.edgeView(n)) {
+                batch.addEdge(n, e.getChildNode(), e.getLabel());
+            }
+        }
+        this.current = new AtomicReference<>(batch.publish());
+    }
+
+    /**
+     * Returns the latest published version. The returned snapshot never
+     * changes, so a query can read it many times and see one consistent graph.
+     *
+     * @return the current version of the graph
+     */
+
+    public Snapshot<T,E> snapshot() {
+        return current.get();
+    }
+
+    /**
+     * Applies a set of changes to the current version and publishes the
+     * result as the next version. Readers see either all of the changes or
+     * none of them. Writers are serialized; readers are never blocked.
+     *
+     * @param changes called once with a Batch to record changes into
+     * @spec.requires changes != null
+     * @spec.modifies this
+     * @spec.effects publishes a new version with the changes applied
+     * @return the newly published version
+     */
+
+    public Snapshot<T,E> update(Consumer<Batch<T,E>> changes) {
+        if (changes == null) throw new IllegalArgumentException("changes can not be null");
+        synchronized (writeLock) {
+            Snapshot<T,E> base = current.get();
+            Batch<T,E> batch = new Batch<>(base);
+            changes.accept(batch);
+            Snapshot<T,E> next = batch.publish();
+            current.set(next);
+            return next;
+        }
+    }
+
+    /**
+     * Adds a node as a new version. See Batch.addNode.
+     *
+     * @param n the node to add
+     * @return true if the node was not already in the graph
+     */
+
+    public boolean addNode(Node<T> n) {
+        boolean[] added = new boolean[1];
+        update(b -> added[0] = b.addNode(n));
+        return added[0];
+    }
+
+    /**
+     * Adds an edge as a new version. See Batch.addEdge.
+     *
+     * @param parent the parent node where the edge will begin
+     * @param child  the child node the edge points to
+     * @param label  the label of the edge being added
+     * @return true if the edge was not already in the graph
+     */
+
+    public boolean addEdge(Node<T> parent, Node<T> child, E label) {
+        boolean[] added = new boolean[1];
+        update(b -> added[0] = b.addEdge(parent, child, label));
+        return added[0];
+    }
+
+    /**
+     * Removes an edge as a new version. See Batch.removeEdge.
+     *
+     * @param parent starting node where the edge begins
+     * @param child  ending node where the edge ends
+     * @param label  the label of the edge to be removed
+     * @return true if the edge was in the graph
+     */
+
+    public boolean removeEdge(Node<T> parent, Node<T> child, E label) {
+        boolean[] removed = new boolean[1];
+        update(b -> removed[0] = b.removeEdge(parent, child, label));
+        return removed[0];
+    }
+
+    /**
+     * Removes a node and every edge into or out of it as a new version.
+     * See Batch.removeNode.
+     *
+     * @param n the node to remove
+     * @return true if the node was in the graph
+     */
+
+    public boolean removeNode(Node<T> n) {
+        boolean[] removed = new boolean[1];
+        update(b -> removed[0] = b.removeNode(n));
+        return removed[0];
+    }
+
+    /**
+     * This class represents one immutable version of a VersionedGraph.
+     */
+    public static final class Snapshot<T,E> implements GraphView<T,E> {
+
+        // Rep invariant:
+        //     edges != null and parents != null
+        //     every value of edges and parents is an unmodifiable set
+        //     (p, label) is in parents.get(c) iff (c, label) is in edges.get(p)
+        //     parents has no empty set
+
+        // Abstract function:
+        //    AF(this) = directed graph g such that
+        //    All Nodes in g = the keys of edges
+        //    All Edges starting from n = edges.get(n)
+
+        private final long version;
+        private final PersistentMap<Node<T>, Set<Edge<T,E>>> edges;
+        // the edges into every node that has any, as (parent, label) pairs
+        private final PersistentMap<Node<T>, Set<Edge<T,E>>> parents;
+
+        private Snapshot(long version, PersistentMap<Node<T>, Set<Edge<T,E>>> edges,
+                         PersistentMap<Node<T>, Set<Edge<T,E>>> parents) {
+            this.version = version;
+            this.edges = edges;
+            this.parents = parents;
+        }
+
+        /**
+         * Returns the edge set of n, checking that n is in this version
+         */
+        private Set<Edge<T,E>> edgesOf(Node<T> n) {
+            if (n == null) throw new IllegalArgumentException("n can not be null");
+            Set<Edge<T,E>> set = edges.get(n);
+            if (set == null) throw new IllegalArgumentException("n is not in the graph");
+            return set;
+        }
+
+        /**
+         * Returns the version number of this snapshot
+         *
+         * @return the number of updates published before this version
+         */
+
+        public long version() {
+            return version;
+        }
+
+        /**
+         * Returns true if Node <var>n</var> is in this version
+         *
+         * @param n the Node to find in the graph
+         * @return boolean: true if Node <var>n</var> is in the graph
+         * @throws IllegalArgumentException if the Node <var>n</var> is null.
+         */
+
+        public boolean containsNode(Node<T> n) {
+            if (n == null) throw new IllegalArgumentException("n cannot be null");
+            return edges.containsKey(n);
+        }
+
+        /**
+         * Given a Node n, get the edges leaving it in this version. The set
+         * is read-only and is not a copy.
+         *
+         * @param n Node n to get the edges from
+         * @return unmodifiable set of edges for <var>n</var>
+         * @throws IllegalArgumentException if n is null or not in the graph
+         */
+
+        public Set<Edge<T,E>> getEdges(Node<T> n) {
+            return edgesOf(n);
+        }
+
+        /**
+         * Calls visitor once for every node in the graph
+         *
+         * @param visitor called with each node
+         * @spec.requires visitor does not modify the graph
+         * @throws IllegalArgumentException if visitor is null
+         */
+
+        public void forEachNode(Consumer<? super Node<T>> visitor) {
+            if (visitor == null) throw new IllegalArgumentException("visitor can not be null");
+            edges.forEach((n, set) -> visitor.accept(n));
+        }
+
+        /**
+         * Calls visitor once for every edge leaving Node n, passing the child
+         * node and the label of the edge.
+         *
+         * @param n Node n to visit the edges of
+         * @param visitor called with (child, label) for each edge of <var>n</var>
+         * @throws IllegalArgumentException if n or visitor is null, or n is not in the graph
+         */
+
+        public void forEachEdge(Node<T> n, BiConsumer<? super Node<T>, ? super E> visitor) {
+            if (visitor == null) throw new IllegalArgumentException("visitor can not be null");
+            for (Edge<T,E> e : edgesOf(n)) {
+                visitor.accept(e.getChildNode(), e.getLabel());
+            }
+        }
+
+        /**
+         * Returns the number of edges leaving Node n
+         *
+         * @param n, a node
+         * @return the out-degree of Node <var>n</var>
+         * @throws IllegalArgumentException if n is null or not in the graph
+         */
+
+        public int degree(Node<T> n) {
+            return edgesOf(n).size();
+        }
+
+        /**
+         * Given a Node n, return all of its children nodes
+         *
+         * @param n, a node
+         * @return a set of all child nodes of Node <var>n</var>
+         * @throws IllegalArgumentException if n is null or not in the graph
+         */
+
+        public HashSet<Node<T>> getChildren(Node<T> n) {
+            HashSet<Node<T>> set = new HashSet<>();
+            for (Edge<T,E> e : edgesOf(n)) {
+                set.add(e.getChildNode());
+            }
+            return set;
+        }
+
+        /**
+         * Return the set of all nodes in this version. The set is a
+         * read-only view of the version, not a copy.
+         *
+         * @return set of nodes in this
+         */
+
+        public Set<Node<T>> getNodes() {
+            return new AbstractSet<Node<T>>() {
+                @Override
+                public Iterator<Node<T>> iterator() {
+                    return edges.keys();
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return o != null && edges.containsKey(o);
+                }
+
+                @Override
+                public int size() {
+                    return edges.size();
+                }
+            };
+        }
+
+        /**
+         * returns the number of nodes in this version
+         *
+         * @return number of nodes in the graph
+         */
+
+        public int size() {
+            return edges.size();
+        }
+
+        /**
+         * Returns true is this version is empty
+         *
+         * @return boolean: true is graph is empty, false otherwise
+         */
+
+        public boolean isEmpty() {
+            return edges.size() == 0;
+        }
+
+        /**
+         * Compiles this version into a read-only graph in compressed sparse row form.
+         *
+         * @return a frozen copy of this version
+         */
+
+        public ImmutableGraph<T,E> freeze() {
+            Map<Node<T>, Set<Edge<T,E>>> flat = new HashMap<>();
+            edges.forEach(flat::put);
+            return new ImmutableGraph<>(flat);
+        }
+    }
+
+    /**
+     * This class collects the changes of one update. Reads through a Batch
+     * see the version it was started from plus the changes made so far.
+     * A Batch must only be used inside the update call that created it.
+     *
+     * The first change to a node's edges copies its set from the base
+     * version; later changes in the same batch edit that copy in place, so
+     * each touched set is copied once per batch.
+     */
+    public static final class Batch<T,E> {
+
+        // Rep invariant:
+        //     base != null, edges != null, parents != null
+        //     edges and parents hold the same facts as in Snapshot
+        //     for every key n of ownEdges, edges.get(n) is an unmodifiable view of ownEdges.get(n),
+        //         and likewise for ownParents and parents
+        //     no set in ownEdges or ownParents is reachable from base
+        //     after publish, published is true and nothing changes
+
+        private final Snapshot<T,E> base;
+        private PersistentMap<Node<T>, Set<Edge<T,E>>> edges;
+        private PersistentMap<Node<T>, Set<Edge<T,E>>> parents;
+        // the sets this batch has copied, which it may change in place
+        private final Map<Node<T>, HashSet<Edge<T,E>>> ownEdges;
+        private final Map<Node<T>, HashSet<Edge<T,E>>> ownParents;
+        private boolean published;
+
+        private Batch(Snapshot<T,E> base) {
+            this.base = base;
+            this.edges = base.edges;
+            this.parents = base.parents;
+            this.ownEdges = new HashMap<>();
+            this.ownParents = new HashMap<>();
+        }
+
+        /**
+         * Ends the batch and returns the version holding its changes
+         */
+        private Snapshot<T,E> publish() {
+            checkOpen();
+            published = true;
+            return new Snapshot<>(base.version + 1, edges, parents);
+        }
+
+        /**
+         * Throws if the batch has already been published
+         */
+        private void checkOpen() {
+            if (published) throw new IllegalStateException("the batch has already been published");
+        }
+
+        /**
+         * Returns the edges of n, copied into this batch so they can be changed
+         */
+        private HashSet<Edge<T,E>> ownEdgesOf(Node<T> n) {
+            HashSet<Edge<T,E>> own = ownEdges.get(n);
+            if (own == null) {
+                own = new HashSet<>(edges.get(n));
+                ownEdges.put(n, own);
+                edges = edges.put(n, Collections.unmodifiableSet(own));
+            }
+            return own;
+        }
+
+        /**
+         * Returns the edges into n, copied into this batch so they can be changed
+         */
+        private HashSet<Edge<T,E>> ownParentsOf(Node<T> n) {
+            HashSet<Edge<T,E>> own = ownParents.get(n);
+            if (own == null) {
+                Set<Edge<T,E>> old = parents.get(n);
+                own = old == null ? new HashSet<>() : new HashSet<>(old);
+                ownParents.put(n, own);
+                parents = parents.put(n, Collections.unmodifiableSet(own));
+            }
+            return own;
+        }
+
+        /**
+         * Removes the edge (parent, label) from the edges into child
+         */
+        private void removeParent(Node<T> child, Node<T> parent, E label) {
+            HashSet<Edge<T,E>> into = ownParentsOf(child);
+            into.remove(new Edge<>(parent, label));
+            if (into.isEmpty()) {
+                ownParents.remove(child);
+                parents = parents.remove(child);
+            }
+        }
+
+        /**
+         * Returns true if Node <var>n</var> is in the graph as of this batch
+         *
+         * @param n the Node to find in the graph
+         * @return boolean: true if Node <var>n</var> is in the graph
+         * @throws IllegalArgumentException if the Node <var>n</var> is null.
+         */
+
+        public boolean containsNode(Node<T> n) {
+            if (n == null) throw new IllegalArgumentException("n cannot be null");
+            return edges.containsKey(n);
+        }
+
+        /**
+         * Add a node to the graph and return true if the node gets added
+         * successfully, otherwise return false
+         *
+         * @param n node to be added to the graph
+         * @return boolean: returns true if node is successfully added. false otherwiese
+         * @spec.requires n is not null
+         * @spec.modifies this
+         * @spec.effects adds a new node to the graph if it is not already in the graph
+         */
+
+        public boolean addNode(Node<T> n) {
+            if (n == null) throw new IllegalArgumentException("data can not be null");
+            checkOpen();
+            if (edges.containsKey(n)) {
+                return false;
+            }
+            edges = edges.put(n, Collections.emptySet());
+            return true;
+        }
+
+        /**
+         * Create an edge between two nodes, adding the parent node first if
+         * it is not in the graph. Only the edges of parent and the edges into
+         * child are copied.
+         *
+         * @param parent the parent node where the edge will begin
+         * @param child  the child node to which parent node will be connect through the edge
+         * @param label  the label of the edge being added
+         * @spec.requires parent, child and label != null
+         * @spec.modifies this
+         * @spec.effects adds a new edge that connects <var>parent</var> to <var>child</var>
+         * @return boolean: returns true is the edge is successfully added. false otherwise
+         */
+
+        public boolean addEdge(Node<T> parent, Node<T> child, E label) {
+            if (parent == null || child == null) {
+                throw new IllegalArgumentException("Node can not be null");
+            }
+            if (label == null) {
+                throw new IllegalArgumentException("label can not be null");
+            }
+            addNode(parent);
+            Edge<T,E> newEdge = new Edge<>(child, label);
+            if (edges.get(parent).contains(newEdge)) {
+                return false;
+            }
+            ownEdgesOf(parent).add(newEdge);
+            ownParentsOf(child).add(new Edge<>(parent, label));
+            return true;
+        }
+
+        /**
+         * Remove an edge along with its label starting from parent node and
+         * ending at child node, if the edge exists.
+         *
+         * @param parent starting node where the edge begins
+         * @param child  ending node where the edge ends
+         * @param label  the label of the edge to be removed
+         * @return boolean: true if the edge successfully gets removed, false otherwise
+         * @spec.requires parent != null, child != null, and label != null
+         * @spec.modifies this
+         * @spec.effects remove the edge indicated by the label, starting node and ending node.
+         */
+
+        public boolean removeEdge(Node<T> parent, Node<T> child, E label) {
+            if (parent == null || child == null) {
+                throw new IllegalArgumentException("node can not be null");
+            }
+            if (label == null) {
+                throw new IllegalArgumentException("label can not be null");
+            }
+            checkOpen();
+            Set<Edge<T,E>> out = edges.get(parent);
+            Edge<T,E> edge = new Edge<>(child, label);
+            if (out == null || !out.contains(edge)) {
+                return false;
+            }
+            ownEdgesOf(parent).remove(edge);
+            removeParent(child, parent, label);
+            return true;
+        }
+
+        /**
+         * Remove a given node n and all edges into or out of it. Only the
+         * edges of its parents and the edges into its children are copied.
+         *
+         * @param n the node 'n' that needs to be removed from the graph
+         * @return boolean: true if specified node successfully gets removed, false otherwise
+         * @spec.requires n != null
+         * @spec.modifies this
+         * @spec.effects delete n from the graph if it is in the graph
+         */
+
+        public boolean removeNode(Node<T> n) {
+            if (n == null) throw new IllegalArgumentException("n can not be null");
+            checkOpen();
+            Set<Edge<T,E>> out = edges.get(n);
+            if (out == null) {
+                return false;
+            }
+            Set<Edge<T,E>> in = parents.get(n);
+            if (in != null) {
+                for (Edge<T,E> e : in) {
+                    // a self loop goes with the edges of n
+                    if (!e.getChildNode().equals(n)) {
+                        ownEdgesOf(e.getChildNode()).remove(new Edge<>(n, e.getLabel()));
+                    }
+                }
+            }
+            for (Edge<T,E> e : out) {
+                if (!e.getChildNode().equals(n)) {
+                    removeParent(e.getChildNode(), n, e.getLabel());
+                }
+            }
+            ownEdges.remove(n);
+            ownParents.remove(n);
+            edges = edges.remove(n);
+            parents = parents.remove(n);
+            return true;
+        }
+    }
+}
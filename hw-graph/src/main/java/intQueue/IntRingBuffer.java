@@ -0,0 +1,245 @@
+package intQueue;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * IntRingBuffer is a first-in, first-out queue of primitive ints that grows
+ * as needed. Unlike IntQueue1 and IntQueue2 it never boxes: enqueue and
+ * dequeue allocate nothing unless the buffer has to grow, so it can serve as
+ * the frontier of a graph search over int node ids.
+ *
+ * <p>An IntRingBuffer can be described as [n1, n2, ..., n_k], where n1 is the
+ * least-recently-added item in the queue and is the next item to be removed.
+ * n_k is the most-recently-added and will be the last of the current elements
+ * to be removed.
+ */
+public final class IntRingBuffer {
+    // The values live in a circular array whose length is a power of two, so
+    // positions wrap with a mask instead of a modulo. head and tail count the
+    // values ever removed and added; they may overflow, since only their
+    // difference and their low bits are used.
+    //
+    // Rep invariant:
+    //     entries != null and entries.length is a power of two
+    //     0 <= tail - head <= entries.length
+    //     mask == entries.length - 1
+    //
+    // Abstract function:
+    //     AF(this) = [entries[head & mask], entries[(head + 1) & mask], ...,
+    //                 entries[(tail - 1) & mask]]
+
+    /**
+     * Starting size for the array.
+     */
+    private static final int INITIAL_SIZE = 16;
+
+    private int[] entries;
+    private int mask;
+    private int head;
+    private int tail;
+
+    /**
+     * @spec.effects constructs an empty queue
+     */
+    public IntRingBuffer() {
+        this(INITIAL_SIZE);
+    }
+
+    /**
+     * @param expectedSize the number of items the queue should hold without growing
+     * @throws IllegalArgumentException if expectedSize is negative
+     * @spec.effects constructs an empty queue
+     */
+    public IntRingBuffer(int expectedSize) {
+        if (expectedSize < 0) throw new IllegalArgumentException("expectedSize can not be negative");
+        entries = new int[capacityFor(expectedSize)];
+        mask = entries.length - 1;
+    }
+
+    /**
+     * Returns the smallest power of two that is at least n, and at least 2
+     */
+    static int capacityFor(int n) {
+        if (n > 1 << 30) throw new IllegalArgumentException("capacity too large: " + n);
+        return Math.max(2, Integer.highestOneBit(Math.max(1, n - 1)) << 1);
+    }
+
+    /**
+     * Enqueue an item.
+     *
+     * @param entry item to be added to the queue
+     * @spec.modifies this
+     * @spec.effects places entry at the end of the queue
+     */
+    public void enqueue(int entry) {
+        if (tail - head == entries.length) {
+            grow(entries.length + 1);
+        }
+        entries[tail & mask] = entry;
+        tail++;
+    }
+
+    /**
+     * Enqueue every item of values, in order.
+     *
+     * @param values the items to be added to the queue
+     * @throws IllegalArgumentException if values is null
+     * @spec.modifies this
+     * @spec.effects places the items of values at the end of the queue
+     */
+    public void addAll(int[] values) {
+        if (values == null) throw new IllegalArgumentException("values can not be null");
+        addAll(values, 0, values.length);
+    }
+
+    /**
+     * Enqueue values[from], ..., values[to - 1], in order.
+     *
+     * @param values the array holding the items
+     * @param from the index of the first item to add
+     * @param to one past the index of the last item to add
+     * @throws IllegalArgumentException if values is null
+     * @throws IndexOutOfBoundsException if from and to are not a range of values
+     * @spec.modifies this
+     * @spec.effects places the items at the end of the queue
+     */
+    public void addAll(int[] values, int from, int to) {
+        if (values == null) throw new IllegalArgumentException("values can not be null");
+        if (from < 0 || to > values.length || from > to) {
+            throw new IndexOutOfBoundsException("bad range [" + from + ", " + to + ")");
+        }
+        int count = to - from;
+        if (tail - head + count > entries.length) {
+            grow(tail - head + count);
+        }
+        // copy in at most two pieces: up to the end of the array, then from its start
+        int start = tail & mask;
+        int first = Math.min(count, entries.length - start);
+        System.arraycopy(values, from, entries, start, first);
+        System.arraycopy(values, from + first, entries, 0, count - first);
+        tail += count;
+    }
+
+    /**
+     * Dequeue an item.
+     *
+     * @return the item that was first in the queue
+     * @throws NoSuchElementException if the queue is empty
+     * @spec.modifies this
+     * @spec.effects removes the item at the front of the queue
+     */
+    public int dequeue() {
+        if (head == tail) throw new NoSuchElementException("queue is empty");
+        return entries[head++ & mask];
+    }
+
+    /**
+     * Dequeue up to dest.length items into dest, in order.
+     *
+     * @param dest the array to copy the items into, starting at index 0
+     * @return the number of items moved
+     * @throws IllegalArgumentException if dest is null
+     * @spec.modifies this, dest
+     * @spec.effects removes the first min(size(), dest.length) items and stores them in dest
+     */
+    public int drainTo(int[] dest) {
+        if (dest == null) throw new IllegalArgumentException("dest can not be null");
+        return drainTo(dest, 0, dest.length);
+    }
+
+    /**
+     * Dequeue up to max items into dest, starting at index offset.
+     *
+     * @param dest the array to copy the items into
+     * @param offset the index in dest of the first item moved
+     * @param max the most items to move
+     * @return the number of items moved
+     * @throws IllegalArgumentException if dest is null
+     * @throws IndexOutOfBoundsException if offset and max are not a range of dest
+     * @spec.modifies this, dest
+     * @spec.effects removes the first min(size(), max) items and stores them in dest
+     */
+    public int drainTo(int[] dest, int offset, int max) {
+        if (dest == null) throw new IllegalArgumentException("dest can not be null");
+        if (offset < 0 || max < 0 || offset > dest.length - max) {
+            throw new IndexOutOfBoundsException("bad range " + offset + " + " + max);
+        }
+        int count = Math.min(max, tail - head);
+        int start = head & mask;
+        int first = Math.min(count, entries.length - start);
+        System.arraycopy(entries, start, dest, offset, first);
+        System.arraycopy(entries, 0, dest, offset + first, count - first);
+        head += count;
+        return count;
+    }
+
+    /**
+     * See the next item without removing it.
+     *
+     * @return the item currently first in the queue
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public int front() {
+        if (head == tail) throw new NoSuchElementException("queue is empty");
+        return entries[head & mask];
+    }
+
+    /**
+     * Removes every item, keeping the array for reuse.
+     *
+     * @spec.modifies this
+     * @spec.effects makes the queue empty
+     */
+    public void clear() {
+        head = 0;
+        tail = 0;
+    }
+
+    /**
+     * @return number of elements in the queue
+     */
+    public int size() {
+        return tail - head;
+    }
+
+    /**
+     * @return size() == 0
+     */
+    public boolean isEmpty() {
+        return head == tail;
+    }
+
+    /**
+     * @return the number of elements the queue can hold before it grows
+     */
+    public int capacity() {
+        return entries.length;
+    }
+
+    /**
+     * Moves the items into a new array with room for at least needed items,
+     * unwrapping them to start at index 0
+     */
+    private void grow(int needed) {
+        int size = tail - head;
+        int[] newEntries = new int[capacityFor(Math.max(needed, entries.length * 2))];
+        int start = head & mask;
+        int first = Math.min(size, entries.length - start);
+        System.arraycopy(entries, start, newEntries, 0, first);
+        System.arraycopy(entries, 0, newEntries, first, size - first);
+        entries = newEntries;
+        mask = entries.length - 1;
+        head = 0;
+        tail = size;
+    }
+
+    @Override
+    public String toString() {
+        int[] items = new int[size()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = entries[(head + i) & mask];
+        }
+        return Arrays.toString(items);
+    }
+}
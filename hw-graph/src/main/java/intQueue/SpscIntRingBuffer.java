@@ -0,0 +1,191 @@
+package intQueue;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SpscIntRingBuffer is a bounded first-in, first-out queue of primitive ints
+ * that one producer thread and one consumer thread can use at the same time
+ * without locks. Only the producer may call offer and offerAll, and only the
+ * consumer may call poll, drainTo and front; size and isEmpty may be called
+ * by either, and see a recent state of the queue.
+ *
+ * <p>The producer publishes items by advancing tail with a release store
+ * after writing them, and the consumer frees slots by advancing head the
+ * same way, so each side only reads the other's counter, never writes it.
+ * Each side keeps a cached copy of the other's counter and only re-reads it
+ * when the cache says the queue is full (producer) or empty (consumer).
+ *
+ * <p>An SpscIntRingBuffer can be described as [n1, n2, ..., n_k], where n1 is
+ * the least-recently-added item in the queue and is the next item to be
+ * removed, and k &lt;= capacity().
+ */
+public final class SpscIntRingBuffer {
+    // Rep invariant:
+    //     entries != null and entries.length is a power of two
+    //     mask == entries.length - 1
+    //     0 <= tail - head <= entries.length
+    //     headCache <= head and tailCache <= tail
+    //
+    // Abstract function:
+    //     AF(this) = [entries[head & mask], ..., entries[(tail - 1) & mask]]
+
+    private final int[] entries;
+    private final int mask;
+    // the count of items ever removed; written only by the consumer
+    private final AtomicLong head = new AtomicLong();
+    // the count of items ever added; written only by the producer
+    private final AtomicLong tail = new AtomicLong();
+    // the producer's last read of head
+    private long headCache;
+    // the consumer's last read of tail
+    private long tailCache;
+
+    /**
+     * @param capacity the most items the queue holds; rounded up to a power of two
+     * @throws IllegalArgumentException if capacity is not positive or larger than 2^30
+     * @spec.effects constructs an empty queue
+     */
+    public SpscIntRingBuffer(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        entries = new int[IntRingBuffer.capacityFor(capacity)];
+        mask = entries.length - 1;
+    }
+
+    /**
+     * Enqueue an item if there is room. Producer only.
+     *
+     * @param entry item to be added to the queue
+     * @return true if the item was added, false if the queue is full
+     * @spec.modifies this
+     * @spec.effects places entry at the end of the queue if it is not full
+     */
+    public boolean offer(int entry) {
+        long t = tail.get();
+        if (t - headCache == entries.length) {
+            headCache = head.get();
+            if (t - headCache == entries.length) {
+                return false;
+            }
+        }
+        entries[(int) t & mask] = entry;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Enqueue as many of values[from], ..., values[to - 1] as there is room
+     * for, in order. Producer only.
+     *
+     * @param values the array holding the items
+     * @param from the index of the first item to add
+     * @param to one past the index of the last item to add
+     * @return the number of items added
+     * @throws IllegalArgumentException if values is null
+     * @throws IndexOutOfBoundsException if from and to are not a range of values
+     * @spec.modifies this
+     * @spec.effects places the first items of the range at the end of the queue
+     */
+    public int offerAll(int[] values, int from, int to) {
+        if (values == null) throw new IllegalArgumentException("values can not be null");
+        if (from < 0 || to > values.length || from > to) {
+            throw new IndexOutOfBoundsException("bad range [" + from + ", " + to + ")");
+        }
+        long t = tail.get();
+        if (t - headCache + (to - from) > entries.length) {
+            headCache = head.get();
+        }
+        int count = (int) Math.min(to - from, entries.length - (t - headCache));
+        int start = (int) t & mask;
+        int first = Math.min(count, entries.length - start);
+        System.arraycopy(values, from, entries, start, first);
+        System.arraycopy(values, from + first, entries, 0, count - first);
+        tail.lazySet(t + count);
+        return count;
+    }
+
+    /**
+     * Dequeue an item. Consumer only.
+     *
+     * @return the item that was first in the queue
+     * @throws NoSuchElementException if the queue is empty
+     * @spec.modifies this
+     * @spec.effects removes the item at the front of the queue
+     */
+    public int poll() {
+        long h = head.get();
+        if (h == tailCache) {
+            tailCache = tail.get();
+            if (h == tailCache) {
+                throw new NoSuchElementException("queue is empty");
+            }
+        }
+        int entry = entries[(int) h & mask];
+        head.lazySet(h + 1);
+        return entry;
+    }
+
+    /**
+     * Dequeue up to dest.length items into dest, in order. Consumer only.
+     *
+     * @param dest the array to copy the items into, starting at index 0
+     * @return the number of items moved
+     * @throws IllegalArgumentException if dest is null
+     * @spec.modifies this, dest
+     * @spec.effects removes the first min(size(), dest.length) items and stores them in dest
+     */
+    public int drainTo(int[] dest) {
+        if (dest == null) throw new IllegalArgumentException("dest can not be null");
+        long h = head.get();
+        if (tailCache - h < dest.length) {
+            tailCache = tail.get();
+        }
+        int count = (int) Math.min(dest.length, tailCache - h);
+        int start = (int) h & mask;
+        int first = Math.min(count, entries.length - start);
+        System.arraycopy(entries, start, dest, 0, first);
+        System.arraycopy(entries, 0, dest, first, count - first);
+        head.lazySet(h + count);
+        return count;
+    }
+
+    /**
+     * See the next item without removing it. Consumer only.
+     *
+     * @return the item currently first in the queue
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public int front() {
+        long h = head.get();
+        if (h == tailCache) {
+            tailCache = tail.get();
+            if (h == tailCache) {
+                throw new NoSuchElementException("queue is empty");
+            }
+        }
+        return entries[(int) h & mask];
+    }
+
+    /**
+     * @return number of elements in the queue
+     */
+    public int size() {
+        // read head first: it only grows, so tail read after it is never behind it
+        long h = head.get();
+        return (int) (tail.get() - h);
+    }
+
+    /**
+     * @return size() == 0
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @return the most items the queue holds
+     */
+    public int capacity() {
+        return entries.length;
+    }
+}
@@ -0,0 +1,78 @@
+package graph.benchmarks;
+import graph.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures how ConcurrentGraph.addEdge throughput scales with the number of
+ * writer threads. Run it with the benchmarkConcurrentGraph task; it is kept
+ * out of the unit suite because its timings depend on the machine.
+ */
+public class ConcurrentGraphBenchmark {
+
+	private static final int NODES = 2000;
+	private static final int EDGES_PER_THREAD = 200_000;
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) throws Exception {
+		System.out.printf("ConcurrentGraph addEdge, %d cores, %d edges per thread, best of %d%n",
+				Runtime.getRuntime().availableProcessors(), EDGES_PER_THREAD, ROUNDS);
+		double single = 0;
+		for (int threads = 1; threads <= 8; threads *= 2) {
+			// one untimed round lets the JIT compile addEdge first
+			run(threads);
+			long best = Long.MAX_VALUE;
+			for (int r = 0; r < ROUNDS; r++) {
+				best = Math.min(best, run(threads));
+			}
+			double perSecond = (double) threads * EDGES_PER_THREAD / (best / 1e9);
+			if (threads == 1) {
+				single = perSecond;
+			}
+			System.out.printf("%d threads: %,12.0f adds/sec  (%.2fx one thread)%n",
+					threads, perSecond, perSecond / single);
+		}
+	}
+
+	/**
+	 * Adds EDGES_PER_THREAD distinct edges from each of threads writers to a
+	 * new graph, checks that none were lost, and returns the nanoseconds taken
+	 */
+	private static long run(int threads) throws Exception {
+		ConcurrentGraph<String, String> g = new ConcurrentGraph<>(NODES);
+		List<Node<String>> nodes = new ArrayList<>();
+		for (int i = 0; i < NODES; i++) {
+			nodes.add(new Node<>("n" + i));
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<?>> futures = new ArrayList<>();
+		long start = System.nanoTime();
+		for (int t = 0; t < threads; t++) {
+			int id = t;
+			futures.add(pool.submit(() -> {
+				for (int i = 0; i < EDGES_PER_THREAD; i++) {
+					Node<String> parent = nodes.get((i * 31 + id) % NODES);
+					Node<String> child = nodes.get((i * 17 + 7 * id) % NODES);
+					g.addEdge(parent, child, id + ":" + i);
+				}
+			}));
+		}
+		for (Future<?> f : futures) {
+			f.get();
+		}
+		long nanos = System.nanoTime() - start;
+		pool.shutdown();
+		long edges = 0;
+		for (Node<String> n : nodes) {
+			edges += g.degree(n);
+		}
+		if (edges != (long) threads * EDGES_PER_THREAD) {
+			throw new IllegalStateException("expected " + threads * EDGES_PER_THREAD + " edges, found " + edges);
+		}
+		return nanos;
+	}
+}
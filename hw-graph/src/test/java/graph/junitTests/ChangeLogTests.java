@@ -0,0 +1,189 @@
+package graph.junitTests;
+import graph.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+
+
+public class ChangeLogTests {
+	@Rule public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+	private final Node<String> NODE_A = new Node<>("a");
+	private final Node<String> NODE_B = new Node<>("b");
+	private final Node<String> NODE_C = new Node<>("c");
+
+	private Path directory;
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = Files.createTempDirectory("changelog");
+	}
+
+	@After
+	public void deleteDirectory() throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+		}
+	}
+
+	private ChangeLog<String, String> open(int compactEvery) throws IOException {
+		return ChangeLog.open(directory, GraphFile.STRINGS, GraphFile.STRINGS, compactEvery);
+	}
+
+	/**
+	 * Makes a few changes through log, leaving a with edges to b and c
+	 */
+	private void makeChanges(ChangeLog<String, String> log) throws IOException {
+		log.addNode(NODE_A);
+		log.addNode(NODE_B);
+		log.addNode(NODE_C);
+		log.addEdge(NODE_A, NODE_B, "AB");
+		log.addEdge(NODE_A, NODE_C, "AC");
+		log.addEdge(NODE_B, NODE_C, "BC");
+		log.removeEdge(NODE_B, NODE_C, "BC");
+	}
+
+	private void assertRecovered(Graph<String, String> g) {
+		assertEquals(3, g.size());
+		assertEquals(2, g.getEdges(NODE_A).size());
+		assertTrue(g.getEdges(NODE_B).isEmpty());
+	}
+
+	@Test
+	public void testEmptyDirectory() throws IOException {
+		try (ChangeLog<String, String> log = open(0)) {
+			assertTrue(log.graph().isEmpty());
+			assertEquals(0, log.generation());
+		}
+	}
+
+	@Test
+	public void testReplayAfterReopen() throws IOException {
+		try (ChangeLog<String, String> log = open(0)) {
+			makeChanges(log);
+			assertEquals(7, log.pending());
+		}
+		try (ChangeLog<String, String> log = open(0)) {
+			assertRecovered(log.graph());
+			assertEquals(7, log.pending());
+		}
+	}
+
+	@Test
+	public void testUnchangedOperationsAreNotLogged() throws IOException {
+		try (ChangeLog<String, String> log = open(0)) {
+			assertTrue(log.addNode(NODE_A));
+			assertFalse(log.addNode(NODE_A));
+			assertFalse(log.removeEdge(NODE_A, NODE_B, "AB"));
+			assertEquals(1, log.pending());
+		}
+	}
+
+	@Test
+	public void testRemoveNodeIsReplayed() throws IOException {
+		try (ChangeLog<String, String> log = open(0)) {
+			makeChanges(log);
+			log.removeNode(NODE_C);
+		}
+		try (ChangeLog<String, String> log = open(0)) {
+			assertEquals(2, log.graph().size());
+			assertEquals(1, log.graph().getEdges(NODE_A).size());
+		}
+	}
+
+	@Test
+	public void testCompact() throws IOException {
+		try (ChangeLog<String, String> log = open(0)) {
+			makeChanges(log);
+			log.compact();
+			assertEquals(1, log.generation());
+			assertEquals(0, log.pending());
+			log.addEdge(NODE_C, NODE_A, "CA");
+		}
+		try (ChangeLog<String, String> log = open(0)) {
+			assertEquals(1, log.generation());
+			assertEquals(1, log.pending());
+			assertEquals(1, log.graph().getEdges(NODE_C).size());
+		}
+		try (Stream<Path> files = Files.list(directory)) {
+			// only the snapshot and log of generation 1 are kept
+			assertEquals(2, files.count());
+		}
+	}
+
+	@Test
+	public void testCompactsPeriodically() throws IOException {
+		try (ChangeLog<String, String> log = open(3)) {
+			makeChanges(log);
+			assertEquals(2, log.generation());
+			assertEquals(1, log.pending());
+		}
+		try (ChangeLog<String, String> log = open(3)) {
+			assertRecovered(log.graph());
+		}
+	}
+
+	@Test
+	public void testTornRecordIsDropped() throws IOException {
+		try (ChangeLog<String, String> log = open(0)) {
+			makeChanges(log);
+		}
+		Path file = directory.resolve("changes-0.log");
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			// cut the last record, the removal of BC, in half
+			channel.truncate(channel.size() - 5);
+		}
+		try (ChangeLog<String, String> log = open(0)) {
+			assertEquals(6, log.pending());
+			assertEquals(1, log.graph().getEdges(NODE_B).size());
+			log.removeEdge(NODE_B, NODE_C, "BC");
+		}
+		try (ChangeLog<String, String> log = open(0)) {
+			assertRecovered(log.graph());
+		}
+	}
+
+	@Test
+	public void testCorruptRecordStopsReplay() throws IOException {
+		try (ChangeLog<String, String> log = open(0)) {
+			makeChanges(log);
+		}
+		Path file = directory.resolve("changes-0.log");
+		byte[] bytes = Files.readAllBytes(file);
+		// flip a byte in the body of the last record, so its CRC no longer matches
+		bytes[bytes.length - 6] ^= 1;
+		Files.write(file, bytes);
+		try (ChangeLog<String, String> log = open(0)) {
+			assertEquals(6, log.pending());
+		}
+	}
+
+	@Test
+	public void testDoubleLabels() throws IOException {
+		Node<String> a = NODE_A;
+		try (ChangeLog<String, Double> log = ChangeLog.open(directory, GraphFile.STRINGS, GraphFile.DOUBLES, 0)) {
+			log.addEdge(a, a, 0.1);
+		}
+		try (ChangeLog<String, Double> log = ChangeLog.open(directory, GraphFile.STRINGS, GraphFile.DOUBLES, 0)) {
+			assertTrue(log.graph().getEdges(a).contains(new Edge<>(a, 0.1)));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeCompactEvery() throws IOException {
+		open(-1);
+	}
+}
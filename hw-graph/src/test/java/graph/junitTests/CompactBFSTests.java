@@ -0,0 +1,102 @@
+package graph.junitTests;
+import graph.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+
+
+public class CompactBFSTests {
+	@Rule public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+	private static final Comparator<Edge<String, String>> ALPHABETICAL =
+			Comparator.comparing((Edge<String, String> e) -> e.getChildNode().getData())
+					.thenComparing(Edge::getLabel);
+
+	private static final int NODES = 500;
+
+	private final Graph<String, String> graph = new Graph<>(false);
+
+	/**
+	 * Builds a random directed graph with few labels, so nodes are often
+	 * joined by several edges, and a node nothing reaches
+	 */
+	@Before
+	public void buildGraph() {
+		Random random = new Random(24);
+		for (int i = 0; i < NODES; i++) {
+			graph.addNode(new Node<>("n" + i));
+		}
+		for (int k = 0; k < 3 * NODES; k++) {
+			graph.addEdge(new Node<>("n" + random.nextInt(NODES)), new Node<>("n" + random.nextInt(NODES)),
+					"l" + random.nextInt(3));
+		}
+		graph.addNode(new Node<>("island"));
+	}
+
+	private CompactBFS<String, String> engine() {
+		return new CompactBFS<>(graph, Comparator.naturalOrder(), Comparator.naturalOrder());
+	}
+
+	@Test
+	public void testMatchesGraphAlgorithmsBfs() {
+		CompactBFS<String, String> bfs = engine();
+		Random random = new Random(8);
+		// one engine answers every query, reusing its arrays
+		for (int q = 0; q < 300; q++) {
+			Node<String> start = new Node<>("n" + random.nextInt(NODES));
+			Node<String> dest = new Node<>("n" + random.nextInt(NODES));
+			assertEquals(GraphAlgorithms.bfs(graph, start, dest, ALPHABETICAL), bfs.shortestPath(start, dest));
+		}
+	}
+
+	@Test
+	public void testSmallestLabelAndChild() {
+		Graph<String, String> small = new Graph<>(true);
+		small.addEdge(new Node<>("a"), new Node<>("c"), "2");
+		small.addEdge(new Node<>("a"), new Node<>("c"), "1");
+		small.addEdge(new Node<>("a"), new Node<>("b"), "9");
+		small.addEdge(new Node<>("b"), new Node<>("d"), "z");
+		small.addEdge(new Node<>("c"), new Node<>("d"), "a");
+		CompactBFS<String, String> bfs = new CompactBFS<>(small, Comparator.naturalOrder(), Comparator.naturalOrder());
+		List<Edge<String, String>> path = bfs.shortestPath(new Node<>("a"), new Node<>("d"));
+		assertEquals(new Edge<>(new Node<>("b"), "9"), path.get(0));
+		assertEquals("1", bfs.shortestPath(new Node<>("a"), new Node<>("c")).get(0).getLabel());
+	}
+
+	@Test
+	public void testSameNodeAndNoPath() {
+		CompactBFS<String, String> bfs = engine();
+		assertEquals(new ArrayList<>(), bfs.shortestPath(new Node<>("n1"), new Node<>("n1")));
+		assertNull(bfs.shortestPath(new Node<>("n1"), new Node<>("island")));
+		// a failed query leaves nothing behind for the next one
+		assertEquals(GraphAlgorithms.bfs(graph, new Node<>("n1"), new Node<>("n2"), ALPHABETICAL),
+				bfs.shortestPath(new Node<>("n1"), new Node<>("n2")));
+	}
+
+	@Test
+	public void testLaterChangesAreNotSeen() {
+		CompactBFS<String, String> bfs = engine();
+		graph.addEdge(new Node<>("n1"), new Node<>("island"), "new");
+		assertNull(bfs.shortestPath(new Node<>("n1"), new Node<>("island")));
+		assertEquals(NODES + 1, bfs.size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownNode() {
+		engine().shortestPath(new Node<>("n1"), new Node<>("nobody"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNullGraph() {
+		new CompactBFS<String, String>(null, Comparator.naturalOrder(), Comparator.naturalOrder());
+	}
+}
@@ -0,0 +1,164 @@
+package graph.junitTests;
+import graph.*;
+
+import java.util.Comparator;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+
+
+public class ComponentIndexTests {
+	@Rule public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+	private final Node<String> NODE_A = new Node<>("a");
+	private final Node<String> NODE_B = new Node<>("b");
+	private final Node<String> NODE_C = new Node<>("c");
+	private final Node<String> NODE_D = new Node<>("d");
+	private final Node<String> NODE_E = new Node<>("e");
+
+	private final Graph<String, String> graph = new Graph<>(true);
+	private ComponentIndex<String> index;
+
+	@Before
+	public void buildGraph() {
+		index = graph.enableComponentIndex();
+		graph.addNode(NODE_A);
+		graph.addNode(NODE_B);
+		graph.addNode(NODE_C);
+		graph.addNode(NODE_D);
+		graph.addEdge(NODE_A, NODE_B, "AB");
+		graph.addEdge(NODE_C, NODE_B, "CB");
+	}
+
+	@Test
+	public void testComponents() {
+		assertEquals(2, index.componentCount());
+		assertEquals(3, index.componentSize(NODE_A));
+		assertEquals(1, index.componentSize(NODE_D));
+	}
+
+	@Test
+	public void testConnectedIgnoresDirection() {
+		assertTrue(index.connected(NODE_A, NODE_C));
+		assertTrue(index.connected(NODE_C, NODE_A));
+		assertFalse(index.connected(NODE_A, NODE_D));
+	}
+
+	@Test
+	public void testNodeNotInGraph() {
+		assertFalse(index.connected(NODE_A, NODE_E));
+		assertEquals(0, index.componentSize(NODE_E));
+	}
+
+	@Test
+	public void testEnableTwiceReturnsSameIndex() {
+		assertSame(index, graph.enableComponentIndex());
+		assertSame(index, graph.components());
+	}
+
+	@Test
+	public void testFollowsAddedEdges() {
+		graph.addEdge(NODE_D, NODE_E, "DE");
+		assertEquals(2, index.componentCount());
+		assertTrue(index.connected(NODE_D, NODE_E));
+		graph.addEdge(NODE_E, NODE_A, "EA");
+		assertEquals(1, index.componentCount());
+		assertTrue(index.connected(NODE_D, NODE_B));
+	}
+
+	@Test
+	public void testJoinsManyComponents() {
+		// join pairs, then pairs of pairs, so both small and large components get relabelled
+		for (int i = 0; i < 64; i++) {
+			graph.addNode(new Node<>("n" + i));
+		}
+		for (int step = 1; step < 64; step *= 2) {
+			for (int i = 0; i + step < 64; i += 2 * step) {
+				graph.addEdge(new Node<>("n" + (i + step)), new Node<>("n" + i), "join");
+			}
+			assertEquals(2 * step, index.componentSize(new Node<>("n0")));
+			assertFalse(index.connected(new Node<>("n0"), new Node<>("n" + (2 * step))));
+		}
+		assertEquals(64, index.componentSize(new Node<>("n63")));
+		assertTrue(index.connected(new Node<>("n63"), new Node<>("n0")));
+	}
+
+	@Test
+	public void testRemoveEdgeSplitsComponent() {
+		graph.removeEdge(NODE_C, NODE_B, "CB");
+		assertFalse(index.connected(NODE_A, NODE_C));
+		assertEquals(3, index.componentCount());
+	}
+
+	@Test
+	public void testRemoveEdgesWithLabelRebuildsOnce() {
+		Graph<String, String> books = new Graph<>(false);
+		books.enableLabelIndex();
+		// a clique of five characters from one book, and a second book joining two of them to e
+		String[] chars = {"v", "w", "x", "y", "z"};
+		for (String p : chars) {
+			for (String c : chars) {
+				if (!p.equals(c)) {
+					books.addEdge(new Node<>(p), new Node<>(c), "book1");
+				}
+			}
+		}
+		books.addEdge(new Node<>("v"), new Node<>("e"), "book2");
+		ComponentIndex<String> components = books.enableComponentIndex();
+		long before = components.rebuilds();
+		assertEquals(20, books.removeEdgesWithLabel("book1"));
+		assertEquals(before + 1, components.rebuilds());
+		assertEquals(5, components.componentCount());
+		assertTrue(components.connected(new Node<>("v"), new Node<>("e")));
+		assertFalse(components.connected(new Node<>("v"), new Node<>("w")));
+		// removing nothing does not rebuild
+		assertEquals(0, books.removeEdgesWithLabel("book1"));
+		assertEquals(before + 1, components.rebuilds());
+	}
+
+	@Test
+	public void testRemoveNodeSplitsComponent() {
+		graph.removeNode(NODE_B);
+		assertFalse(index.connected(NODE_A, NODE_C));
+		assertFalse(index.connected(NODE_B, NODE_B));
+	}
+
+	@Test
+	public void testIndexOfView() {
+		ComponentIndex<String> frozen = ComponentIndex.of(graph.freeze());
+		assertEquals(2, frozen.componentCount());
+		assertTrue(frozen.connected(NODE_A, NODE_C));
+	}
+
+	@Test
+	public void testSearchSkipsOtherComponent() {
+		GraphMetrics metrics = graph.enableMetrics();
+		assertNull(GraphAlgorithms.bfs(graph, NODE_A, NODE_D, Comparator.comparing(Edge::getLabel)));
+		assertNull(GraphAlgorithms.dijkstra(graph, NODE_A, NODE_D, label -> 1.0));
+		assertEquals(0, metrics.getQueries());
+		// same component but no directed path: the search still runs
+		assertNull(GraphAlgorithms.bfs(graph, NODE_A, NODE_C, Comparator.comparing(Edge::getLabel)));
+		assertEquals(1, metrics.getQueries());
+	}
+
+	@Test
+	public void testDoubleWeightedGraph() {
+		DoubleWeightedGraph<String> weighted = new DoubleWeightedGraph<>();
+		ComponentIndex<String> weightedIndex = weighted.enableComponentIndex();
+		int a = weighted.addNode("a");
+		int b = weighted.addNode("b");
+		assertNull(weighted.shortestPath(a, b));
+		weighted.addEdge(a, b, 2.0);
+		assertTrue(weightedIndex.connected(NODE_A, NODE_B));
+		assertEquals(2.0, weighted.shortestPath(a, b).cost(), 0.0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNullNode() {
+		index.connected(null, NODE_A);
+	}
+}
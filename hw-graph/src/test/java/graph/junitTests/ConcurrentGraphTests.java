@@ -0,0 +1,167 @@
+package graph.junitTests;
+import graph.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+
+
+public class ConcurrentGraphTests {
+	@Rule public Timeout globalTimeout = Timeout.seconds(30); // 30 seconds max per method tested
+
+	private static final int NODES = 200;
+	private static final int EDGES_PER_THREAD = 20000;
+
+	private final Node<String> NODE_A = new Node<>("a");
+	private final Node<String> NODE_B = new Node<>("b");
+
+	private final ConcurrentGraph<String, String> graph = new ConcurrentGraph<>();
+
+	@Test
+	public void testIsEmptyWhenConstructed() {
+		assertTrue(graph.isEmpty());
+		assertEquals(0, graph.size());
+	}
+
+	@Test
+	public void testAddEdgeAddsParent() {
+		assertTrue(graph.addEdge(NODE_A, NODE_B, "AB"));
+		assertFalse(graph.addEdge(NODE_A, NODE_B, "AB"));
+		assertTrue(graph.containsNode(NODE_A));
+		assertEquals(1, graph.degree(NODE_A));
+	}
+
+	@Test
+	public void testRemoveNodeRemovesIncomingEdges() {
+		graph.addEdge(NODE_A, NODE_B, "AB");
+		graph.addEdge(NODE_B, NODE_A, "BA");
+		assertTrue(graph.removeNode(NODE_B));
+		assertFalse(graph.containsNode(NODE_B));
+		assertTrue(graph.getChildren(NODE_A).isEmpty());
+	}
+
+	@Test
+	public void testRemoveEdge() {
+		graph.addEdge(NODE_A, NODE_B, "AB");
+		assertFalse(graph.removeEdge(NODE_A, NODE_B, "BA"));
+		assertTrue(graph.removeEdge(NODE_A, NODE_B, "AB"));
+		assertEquals(0, graph.degree(NODE_A));
+	}
+
+	@Test
+	public void testToGraphMatches() {
+		graph.addEdge(NODE_A, NODE_B, "AB");
+		graph.addEdge(NODE_A, NODE_A, "AA");
+		graph.addNode(NODE_B);
+		Graph<String, String> copy = graph.toGraph();
+		assertEquals(graph.getNodes(), copy.getNodes());
+		assertEquals(graph.getEdges(NODE_A), copy.getEdges(NODE_A));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testGetEdgesOfMissingNode() {
+		graph.getEdges(NODE_A);
+	}
+
+	@Test
+	public void testParallelAddEdgeLosesNothing() throws Exception {
+		int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+		runWriters(graph, threads);
+		int edges = 0;
+		for (Node<String> n : graph.getNodes()) {
+			edges += graph.degree(n);
+		}
+		// every thread writes its own labels, so no two threads add the same edge
+		assertEquals(threads * EDGES_PER_THREAD, edges);
+		assertEquals(NODES, graph.size());
+	}
+
+	@Test
+	public void testReadersDuringWrites() throws Exception {
+		AtomicBoolean done = new AtomicBoolean(false);
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		Future<Integer> reader = pool.submit(() -> {
+			int reads = 0;
+			while (!done.get()) {
+				for (Node<String> n : graph.nodeView()) {
+					HashSet<Edge<String, String>> edges = graph.getEdges(n);
+					assertNotNull(edges);
+					reads++;
+				}
+			}
+			return reads;
+		});
+		runWriters(graph, 2);
+		done.set(true);
+		reader.get();
+		pool.shutdown();
+	}
+
+	@Test
+	public void testAddEdgeDuringRemoveNode() throws Exception {
+		AtomicBoolean done = new AtomicBoolean(false);
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		// b keeps being removed, taking the edges into it, and added back
+		Future<?> remover = pool.submit(() -> {
+			while (!done.get()) {
+				graph.removeNode(NODE_B);
+				graph.addNode(NODE_B);
+			}
+		});
+		int added = 0;
+		for (int i = 0; i < EDGES_PER_THREAD; i++) {
+			if (graph.addEdge(NODE_A, NODE_B, "l" + i)) {
+				added++;
+			}
+			graph.addEdge(NODE_A, NODE_A, "l" + i);
+		}
+		done.set(true);
+		remover.get();
+		pool.shutdown();
+		assertEquals(EDGES_PER_THREAD, added);
+		// the edges of a, which is never removed, are all kept
+		int loops = 0;
+		for (Edge<String, String> e : graph.edgeView(NODE_A)) {
+			if (e.getChildNode().equals(NODE_A)) {
+				loops++;
+			}
+		}
+		assertEquals(EDGES_PER_THREAD, loops);
+		// once the writers are done, removing b leaves no edge into it
+		assertTrue(graph.removeNode(NODE_B));
+		assertEquals(EDGES_PER_THREAD, graph.degree(NODE_A));
+	}
+
+	private static void runWriters(ConcurrentGraph<String, String> g, int threads) throws Exception {
+		List<Node<String>> nodes = new ArrayList<>();
+		for (int i = 0; i < NODES; i++) {
+			nodes.add(new Node<>("n" + i));
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			int id = t;
+			futures.add(pool.submit(() -> {
+				for (int i = 0; i < EDGES_PER_THREAD; i++) {
+					Node<String> parent = nodes.get((i * 31 + id) % NODES);
+					Node<String> child = nodes.get((i * 17 + 7 * id) % NODES);
+					g.addEdge(parent, child, id + ":" + i);
+				}
+			}));
+		}
+		for (Future<?> f : futures) {
+			f.get();
+		}
+		pool.shutdown();
+	}
+}
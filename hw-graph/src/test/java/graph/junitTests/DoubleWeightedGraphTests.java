@@ -0,0 +1,85 @@
+package graph.junitTests;
+import graph.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+
+import static org.junit.Assert.*;
+
+public class DoubleWeightedGraphTests {
+	@Rule public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+	private static final double DELTA = 1e-9;
+
+	private final DoubleWeightedGraph<String> graph = new DoubleWeightedGraph<>();
+
+	@Before
+	public void buildGraph() {
+		// the cheapest path from A to B is longer than the direct edge
+		graph.addEdge("A", "B", 10.0);
+		graph.addEdge("A", "C", 1.0);
+		graph.addEdge("C", "D", 1.0);
+		graph.addEdge("D", "B", 1.0);
+		graph.addNode("E");
+	}
+
+	@Test
+	public void testSizeAndEdgeCount() {
+		assertEquals(5, graph.size());
+		assertEquals(4, graph.edgeCount());
+		assertEquals(2, graph.degree(graph.handleOf("A")));
+	}
+
+	@Test
+	public void testDuplicateEdgeIsIgnored() {
+		assertFalse(graph.addEdge("A", "B", 10.0));
+		assertTrue(graph.addEdge("A", "B", 11.0));
+	}
+
+	@Test
+	public void testShortestPathTakesCheaperRoute() {
+		DoubleWeightedGraph.Route route = graph.shortestPath(graph.handleOf("A"), graph.handleOf("B"));
+		assertEquals(3.0, route.cost(), DELTA);
+		assertEquals(3, route.length());
+		assertEquals("A", graph.node(route.node(0)).getData());
+		assertEquals("C", graph.node(route.node(1)).getData());
+		assertEquals("D", graph.node(route.node(2)).getData());
+		assertEquals("B", graph.node(route.node(3)).getData());
+		assertEquals(1.0, route.stepCost(2), DELTA);
+	}
+
+	@Test
+	public void testShortestPathToSelf() {
+		DoubleWeightedGraph.Route route = graph.shortestPath(graph.handleOf("A"), graph.handleOf("A"));
+		assertEquals(0, route.length());
+		assertEquals(0.0, route.cost(), DELTA);
+	}
+
+	@Test
+	public void testNoPath() {
+		assertNull(graph.shortestPath(graph.handleOf("A"), graph.handleOf("E")));
+		assertNull(graph.shortestPath(graph.handleOf("B"), graph.handleOf("A")));
+	}
+
+	@Test
+	public void testCopyOfGraph() {
+		Graph<String, Double> g = new Graph<>(false);
+		g.addEdge(new Node<>("A"), new Node<>("B"), 2.0);
+		g.addEdge(new Node<>("B"), new Node<>("A"), 3.0);
+		DoubleWeightedGraph<String> copy = DoubleWeightedGraph.of(g);
+		assertEquals(2, copy.edgeCount());
+		assertEquals(3.0, copy.shortestPath(copy.handleOf("B"), copy.handleOf("A")).cost(), DELTA);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeWeight() {
+		graph.addEdge("A", "B", -1.0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownHandle() {
+		graph.shortestPath(0, 99);
+	}
+}
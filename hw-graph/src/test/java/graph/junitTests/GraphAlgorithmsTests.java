@@ -0,0 +1,300 @@
+package graph.junitTests;
+import graph.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+
+
+public class GraphAlgorithmsTests {
+	@Rule public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+	private static final Comparator<Edge<String, String>> ALPHABETICAL =
+			Comparator.comparing((Edge<String, String> e) -> e.getChildNode().getData())
+					.thenComparing(Edge::getLabel);
+
+	private final Node<String> NODE_A = new Node<>("a");
+	private final Node<String> NODE_B = new Node<>("b");
+	private final Node<String> NODE_C = new Node<>("c");
+	private final Node<String> NODE_D = new Node<>("d");
+	private final Node<String> NODE_E = new Node<>("e");
+	private final Node<String> NODE_F = new Node<>("f");
+
+	private final Graph<String, String> graph = new Graph<>(true);
+	private final Graph<String, Double> weighted = new Graph<>(true);
+
+	@Before
+	public void buildGraphs() {
+		for (Node<String> n : Arrays.asList(NODE_A, NODE_B, NODE_C, NODE_D, NODE_E, NODE_F)) {
+			graph.addNode(n);
+			weighted.addNode(n);
+		}
+		graph.addEdge(NODE_A, NODE_C, "ac");
+		graph.addEdge(NODE_A, NODE_B, "ab");
+		graph.addEdge(NODE_B, NODE_D, "bd");
+		graph.addEdge(NODE_C, NODE_D, "cd");
+		graph.addEdge(NODE_D, NODE_E, "de");
+		graph.addEdge(NODE_D, NODE_E, "dd");
+
+		weighted.addEdge(NODE_A, NODE_B, 1.0);
+		weighted.addEdge(NODE_A, NODE_C, 4.0);
+		weighted.addEdge(NODE_B, NODE_C, 2.0);
+		weighted.addEdge(NODE_B, NODE_D, 5.0);
+		weighted.addEdge(NODE_C, NODE_D, 1.0);
+		// a cheap dead end that only dijkstra settles
+		weighted.addEdge(NODE_A, NODE_E, 1.0);
+	}
+
+	@SafeVarargs
+	private static List<Edge<String, String>> path(Edge<String, String>... edges) {
+		return new ArrayList<>(Arrays.asList(edges));
+	}
+
+	/////////////////////////////////////////////////////////////////////////////////////
+	////  bfs
+	/////////////////////////////////////////////////////////////////////////////////////
+
+	@Test
+	public void testBfsFollowsEdgeOrder() {
+		assertEquals(path(new Edge<>(NODE_B, "ab"), new Edge<>(NODE_D, "bd"), new Edge<>(NODE_E, "dd")),
+				GraphAlgorithms.bfs(graph, NODE_A, NODE_E, ALPHABETICAL));
+	}
+
+	@Test
+	public void testBfsSameNodeIsEmptyPath() {
+		assertEquals(new ArrayList<>(), GraphAlgorithms.bfs(graph, NODE_A, NODE_A, ALPHABETICAL));
+	}
+
+	@Test
+	public void testBfsNoPath() {
+		assertNull(GraphAlgorithms.bfs(graph, NODE_A, NODE_F, ALPHABETICAL));
+		assertNull(GraphAlgorithms.bfs(graph, NODE_E, NODE_A, null));
+	}
+
+	@Test
+	public void testBfsNodeNotInGraph() {
+		assertNull(GraphAlgorithms.bfs(graph, NODE_A, new Node<>("z"), ALPHABETICAL));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBfsNullStart() {
+		GraphAlgorithms.bfs(graph, null, NODE_A, ALPHABETICAL);
+	}
+
+	@Test
+	public void testBfsSameOnEveryBackend() throws IOException {
+		List<Edge<String, String>> expected = GraphAlgorithms.bfs(graph, NODE_A, NODE_E, ALPHABETICAL);
+		ConcurrentGraph<String, String> concurrent = new ConcurrentGraph<>();
+		VersionedGraph<String, String> versioned = new VersionedGraph<>(graph);
+		Path file = Files.createTempFile("graph", ".bin");
+		try (OffHeapGraph<String, String> offHeap = OffHeapGraph.of(graph)) {
+			for (Node<String> n : graph.getNodes()) {
+				concurrent.addNode(n);
+				for (Edge<String, String> e : graph.getEdges(n)) {
+					concurrent.addEdge(n, e.getChildNode(), e.getLabel());
+				}
+			}
+			GraphFile.write(graph.freeze(), file, GraphFile.STRINGS, GraphFile.STRINGS);
+			List<GraphView<String, String>> views = Arrays.asList(concurrent, graph.freeze(),
+					versioned.snapshot(), offHeap, GraphFile.map(file, GraphFile.STRINGS, GraphFile.STRINGS));
+			for (GraphView<String, String> view : views) {
+				assertEquals(expected, GraphAlgorithms.bfs(view, NODE_A, NODE_E, ALPHABETICAL));
+			}
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	public void testBfsOnSortedEdges() {
+		List<Edge<String, String>> expected = GraphAlgorithms.bfs(graph, NODE_A, NODE_E, ALPHABETICAL);
+		graph.enableSortedEdges(ALPHABETICAL);
+		// walked as they come when the orders match, and sorted when they do not
+		assertEquals(expected, GraphAlgorithms.bfs(graph, NODE_A, NODE_E, ALPHABETICAL));
+		assertEquals(expected, GraphAlgorithms.bfs(graph, NODE_A, NODE_E,
+				Comparator.comparing((Edge<String, String> e) -> e.getChildNode().getData())
+						.thenComparing(Edge::getLabel)));
+		graph.enableSortedEdges(ALPHABETICAL.reversed());
+		assertEquals(path(new Edge<>(NODE_C, "ac"), new Edge<>(NODE_D, "cd"), new Edge<>(NODE_E, "de")),
+				GraphAlgorithms.bfs(graph, NODE_A, NODE_E, null));
+	}
+
+	@Test
+	public void testBfsReportsMetrics() {
+		GraphMetrics metrics = graph.enableMetrics();
+		GraphAlgorithms.bfs(graph, NODE_A, NODE_E, ALPHABETICAL);
+		assertEquals(1, metrics.getQueries());
+		assertEquals(5, metrics.getNodesSettled());
+	}
+
+	/////////////////////////////////////////////////////////////////////////////////////
+	////  bidirectionalBfs
+	/////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Builds a random graph in which every edge has a twin going back,
+	 * with few labels so that nodes are often joined by several edges
+	 */
+	private static Graph<String, String> symmetricGraph(Random random, int nodes, int edges) {
+		Graph<String, String> g = new Graph<>(false);
+		for (int i = 0; i < nodes; i++) {
+			g.addNode(new Node<>("n" + i));
+		}
+		for (int k = 0; k < edges; k++) {
+			Node<String> u = new Node<>("n" + random.nextInt(nodes));
+			Node<String> v = new Node<>("n" + random.nextInt(nodes));
+			String label = "l" + random.nextInt(3);
+			g.addEdge(u, v, label);
+			g.addEdge(v, u, label);
+		}
+		return g;
+	}
+
+	@Test
+	public void testBidirectionalBfsMatchesBfs() {
+		Random random = new Random(23);
+		for (int trial = 0; trial < 20; trial++) {
+			int nodes = 5 + random.nextInt(60);
+			Graph<String, String> g = symmetricGraph(random, nodes, random.nextInt(3 * nodes));
+			for (int q = 0; q < 50; q++) {
+				Node<String> start = new Node<>("n" + random.nextInt(nodes));
+				Node<String> dest = new Node<>("n" + random.nextInt(nodes));
+				assertEquals(GraphAlgorithms.bfs(g, start, dest, ALPHABETICAL),
+						GraphAlgorithms.bidirectionalBfs(g, start, dest, Comparator.naturalOrder(),
+								Comparator.naturalOrder()));
+			}
+		}
+	}
+
+	@Test
+	public void testBidirectionalBfsSettlesFewerNodes() {
+		// a path a - b - ... - dest through a wide fan around a
+		Graph<String, String> g = new Graph<>(false);
+		for (int i = 0; i < 100; i++) {
+			g.addEdge(NODE_A, new Node<>("fan" + i), "x");
+			g.addEdge(new Node<>("fan" + i), NODE_A, "x");
+		}
+		for (Node<String>[] pair : pairs(NODE_A, NODE_B, NODE_C, NODE_D)) {
+			g.addEdge(pair[0], pair[1], "y");
+			g.addEdge(pair[1], pair[0], "y");
+		}
+		GraphMetrics metrics = g.enableMetrics();
+		List<Edge<String, String>> expected = GraphAlgorithms.bfs(g, NODE_A, NODE_D, ALPHABETICAL);
+		long bfsSettled = metrics.getNodesSettled();
+		assertEquals(expected, GraphAlgorithms.bidirectionalBfs(g, NODE_A, NODE_D,
+				Comparator.naturalOrder(), Comparator.naturalOrder()));
+		assertTrue(metrics.getNodesSettled() - bfsSettled < bfsSettled);
+	}
+
+	@SafeVarargs
+	private static List<Node<String>[]> pairs(Node<String>... chain) {
+		List<Node<String>[]> pairs = new ArrayList<>();
+		for (int i = 0; i + 1 < chain.length; i++) {
+			pairs.add(Arrays.copyOfRange(chain, i, i + 2));
+		}
+		return pairs;
+	}
+
+	@Test
+	public void testBidirectionalBfsSameNodeAndNoPath() {
+		assertEquals(new ArrayList<>(), GraphAlgorithms.bidirectionalBfs(graph, NODE_A, NODE_A,
+				Comparator.naturalOrder(), Comparator.naturalOrder()));
+		assertNull(GraphAlgorithms.bidirectionalBfs(graph, NODE_A, NODE_F,
+				Comparator.naturalOrder(), Comparator.naturalOrder()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBidirectionalBfsNullOrder() {
+		GraphAlgorithms.bidirectionalBfs(graph, NODE_A, NODE_B, null, Comparator.naturalOrder());
+	}
+
+	/////////////////////////////////////////////////////////////////////////////////////
+	////  dijkstra and aStar
+	/////////////////////////////////////////////////////////////////////////////////////
+
+	@Test
+	public void testDijkstraFindsCheapestPath() {
+		List<Edge<String, Double>> expected = new ArrayList<>(Arrays.asList(
+				new Edge<>(NODE_B, 1.0), new Edge<>(NODE_C, 2.0), new Edge<>(NODE_D, 1.0)));
+		assertEquals(expected, GraphAlgorithms.dijkstra(weighted, NODE_A, NODE_D, Double::doubleValue));
+	}
+
+	@Test
+	public void testDijkstraSameOnDoubleWeightedGraph() {
+		assertEquals(GraphAlgorithms.dijkstra(weighted, NODE_A, NODE_D, Double::doubleValue),
+				GraphAlgorithms.dijkstra(DoubleWeightedGraph.of(weighted), NODE_A, NODE_D, Double::doubleValue));
+	}
+
+	@Test
+	public void testDijkstraNoPath() {
+		assertNull(GraphAlgorithms.dijkstra(weighted, NODE_D, NODE_A, Double::doubleValue));
+		assertEquals(new ArrayList<>(), GraphAlgorithms.dijkstra(weighted, NODE_D, NODE_D, Double::doubleValue));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDijkstraNullWeight() {
+		GraphAlgorithms.dijkstra(weighted, NODE_A, NODE_D, null);
+	}
+
+	@Test
+	public void testAStarSettlesFewerNodes() {
+		// exact remaining costs, which are a consistent heuristic
+		Map<Node<String>, Double> remaining = new HashMap<>();
+		remaining.put(NODE_A, 4.0);
+		remaining.put(NODE_B, 3.0);
+		remaining.put(NODE_C, 1.0);
+		remaining.put(NODE_D, 0.0);
+		remaining.put(NODE_E, 100.0);
+		GraphMetrics metrics = weighted.enableMetrics();
+
+		List<Edge<String, Double>> dijkstra = GraphAlgorithms.dijkstra(weighted, NODE_A, NODE_D, Double::doubleValue);
+		long dijkstraSettled = metrics.getNodesSettled();
+		List<Edge<String, Double>> aStar = GraphAlgorithms.aStar(weighted, NODE_A, NODE_D, Double::doubleValue,
+				n -> remaining.getOrDefault(n, 0.0));
+		long aStarSettled = metrics.getNodesSettled() - dijkstraSettled;
+
+		assertEquals(dijkstra, aStar);
+		assertEquals(4, dijkstraSettled);
+		assertEquals(3, aStarSettled);
+	}
+
+	/////////////////////////////////////////////////////////////////////////////////////
+	////  dfs
+	/////////////////////////////////////////////////////////////////////////////////////
+
+	@Test
+	public void testDfsPreorder() {
+		assertEquals(Arrays.asList(NODE_A, NODE_B, NODE_D, NODE_E, NODE_C),
+				GraphAlgorithms.dfs(graph, NODE_A, ALPHABETICAL));
+	}
+
+	@Test
+	public void testDfsReversedOrder() {
+		assertEquals(Arrays.asList(NODE_A, NODE_C, NODE_D, NODE_E, NODE_B),
+				GraphAlgorithms.dfs(graph, NODE_A, ALPHABETICAL.reversed()));
+	}
+
+	@Test
+	public void testDfsIsolatedNode() {
+		assertEquals(Arrays.asList(NODE_F), GraphAlgorithms.dfs(graph, NODE_F, null));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDfsStartNotInGraph() {
+		GraphAlgorithms.dfs(graph, new Node<>("z"), ALPHABETICAL);
+	}
+}
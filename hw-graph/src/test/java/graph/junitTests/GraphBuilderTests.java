@@ -0,0 +1,151 @@
+package graph.junitTests;
+import graph.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+
+
+public class GraphBuilderTests {
+	@Rule public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+	private final Node<String> NODE_A = new Node<>("a");
+	private final Node<String> NODE_B = new Node<>("b");
+	private final Node<String> NODE_C = new Node<>("c");
+
+	@Test
+	public void testBuildEmptyGraph() {
+		assertTrue(new Graph.Builder<String, String>().build().isEmpty());
+	}
+
+	@Test
+	public void testAddNodeAndEdge() {
+		Graph.Builder<String, String> builder = new Graph.Builder<>(2, 1);
+		builder.addNode("a");
+		builder.addEdge("a", "b", "AB");
+		Graph<String, String> graph = builder.checkRep(true).build();
+		assertEquals(2, graph.size());
+		HashSet<Edge<String, String>> edges = new HashSet<>();
+		edges.add(new Edge<>(NODE_B, "AB"));
+		assertEquals(edges, graph.getEdges(NODE_A));
+	}
+
+	@Test
+	public void testDuplicateEdgesAreRemoved() {
+		Graph<String, String> graph = new Graph.Builder<String, String>()
+				.addEdge("a", "b", "AB")
+				.addEdge("a", "b", "AB")
+				.addEdge("a", "b", "AB2")
+				.build();
+		assertEquals(2, graph.degree(NODE_A));
+	}
+
+	@Test
+	public void testAddEdgesFromOneParent() {
+		Graph<String, String> graph = new Graph.Builder<String, String>()
+				.addEdges("a", Arrays.asList("a", "b", "c"), "X")
+				.build();
+		assertEquals(3, graph.degree(NODE_A));
+		assertEquals(0, graph.degree(NODE_C));
+	}
+
+	@Test
+	public void testConnectAllMatchesAddEdge() {
+		Graph<String, String> built = new Graph.Builder<String, String>()
+				.connectAll(Arrays.asList("a", "b", "c", "a"), "X")
+				.build();
+		Graph<String, String> expected = new Graph<>(false);
+		for (Node<String> p : Arrays.asList(NODE_A, NODE_B, NODE_C)) {
+			for (Node<String> c : Arrays.asList(NODE_A, NODE_B, NODE_C)) {
+				if (!p.equals(c)) {
+					expected.addEdge(p, c, "X");
+				}
+			}
+		}
+		assertEquals(expected.getNodes(), built.getNodes());
+		for (Node<String> n : expected.getNodes()) {
+			assertEquals(expected.getEdges(n), built.getEdges(n));
+		}
+	}
+
+	@Test
+	public void testParallelBuildMatchesSequential() {
+		// enough groups and edges that the work is split across tasks
+		Random random = new Random(5);
+		Map<String, List<String>> groups = new LinkedHashMap<>();
+		for (int g = 0; g < 400; g++) {
+			List<String> members = new ArrayList<>();
+			int size = random.nextInt(40);
+			for (int i = 0; i < size; i++) {
+				members.add("n" + random.nextInt(300));
+			}
+			groups.put("g" + g, members);
+		}
+		Graph.Builder<String, String> sequential = new Graph.Builder<>();
+		sequential.addEdge("n0", "n1", "first");
+		for (Map.Entry<String, List<String>> entry : groups.entrySet()) {
+			sequential.connectAll(entry.getValue(), entry.getKey());
+		}
+		Graph<String, String> expected = sequential.build();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			Graph.Builder<String, String> parallel = new Graph.Builder<>();
+			parallel.addEdge("n0", "n1", "first");
+			Graph<String, String> built = parallel.connectAll(groups, pool).build(pool);
+			assertEquals(expected.getNodes(), built.getNodes());
+			for (Node<String> n : expected.getNodes()) {
+				assertEquals(expected.handleOf(n.getData()), built.handleOf(n.getData()));
+				assertEquals(expected.getEdges(n), built.getEdges(n));
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testParallelConnectAllNullPool() {
+		new Graph.Builder<String, String>().connectAll(new LinkedHashMap<String, List<String>>(), null);
+	}
+
+	@Test
+	public void testHandlesCarryOverToGraph() {
+		Graph.Builder<String, String> builder = new Graph.Builder<>();
+		int b = builder.addNode("b");
+		Graph<String, String> graph = builder.build();
+		assertEquals(b, graph.handleOf("b"));
+		assertEquals(NODE_B, graph.node(b));
+		int a = graph.intern("a");
+		assertTrue(graph.addEdge(a, b, "AB"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownHandle() {
+		new Graph.Builder<String, String>().addEdge(0, 1, "AB");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNullLabel() {
+		new Graph.Builder<String, String>().addEdge("a", "b", null);
+	}
+
+	@Test
+	public void testEdgesShareLabelInstance() {
+		Graph<String, String> graph = new Graph.Builder<String, String>()
+				.addEdge("a", "b", new String("X"))
+				.addEdge("b", "a", new String("X"))
+				.build();
+		assertSame(graph.edgeView(NODE_A).iterator().next().getLabel(),
+				graph.edgeView(NODE_B).iterator().next().getLabel());
+	}
+}
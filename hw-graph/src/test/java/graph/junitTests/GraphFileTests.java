@@ -0,0 +1,187 @@
+package graph.junitTests;
+import graph.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+
+
+public class GraphFileTests {
+	@Rule public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+	private final Node<String> NODE_A = new Node<>("a");
+	private final Node<String> NODE_B = new Node<>("b");
+	private final Node<String> NODE_C = new Node<>("c");
+	private final Node<String> NODE_E = new Node<>("\u00e9");
+
+	private final Graph<String, String> graph = new Graph<>(true);
+	private Path file;
+
+	@Before
+	public void buildGraph() throws IOException {
+		graph.addNode(NODE_C);
+		graph.addNode(NODE_A);
+		graph.addNode(NODE_B);
+		graph.addNode(NODE_E);
+		graph.addEdge(NODE_A, NODE_A, "AA");
+		graph.addEdge(NODE_A, NODE_B, "AB");
+		graph.addEdge(NODE_A, NODE_B, "AB2");
+		graph.addEdge(NODE_B, NODE_C, "BC");
+		graph.addEdge(NODE_C, NODE_E, "AB");
+		file = Files.createTempFile("graph", ".bin");
+	}
+
+	@After
+	public void deleteFile() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	private GraphFile.MappedGraph<String, String> roundTrip() throws IOException {
+		GraphFile.write(graph.freeze(), file, GraphFile.STRINGS, GraphFile.STRINGS);
+		return GraphFile.map(file, GraphFile.STRINGS, GraphFile.STRINGS);
+	}
+
+	@Test
+	public void testCounts() throws IOException {
+		GraphFile.MappedGraph<String, String> mapped = roundTrip();
+		assertEquals(4, mapped.size());
+		assertEquals(5, mapped.edgeCount());
+	}
+
+	@Test
+	public void testIndexOfFindsEveryNode() throws IOException {
+		GraphFile.MappedGraph<String, String> mapped = roundTrip();
+		for (Node<String> n : graph.getNodes()) {
+			int id = mapped.indexOf(n);
+			assertTrue(id >= 0);
+			assertEquals(n, mapped.node(id));
+		}
+		assertFalse(mapped.containsNode(new Node<>("d")));
+		assertFalse(mapped.containsNode(new Node<>("")));
+	}
+
+	@Test
+	public void testIdsFollowByteOrder() throws IOException {
+		GraphFile.MappedGraph<String, String> mapped = roundTrip();
+		assertEquals(0, mapped.indexOf(NODE_A));
+		assertEquals(1, mapped.indexOf(NODE_B));
+		assertEquals(2, mapped.indexOf(NODE_C));
+		assertEquals(3, mapped.indexOf(NODE_E));
+	}
+
+	@Test
+	public void testEdgesMatchGraph() throws IOException {
+		GraphFile.MappedGraph<String, String> mapped = roundTrip();
+		for (Node<String> n : graph.getNodes()) {
+			assertEquals(graph.getEdges(n), mapped.getEdges(n));
+		}
+	}
+
+	@Test
+	public void testDegree() throws IOException {
+		GraphFile.MappedGraph<String, String> mapped = roundTrip();
+		assertEquals(3, mapped.degree(mapped.indexOf(NODE_A)));
+		assertEquals(0, mapped.degree(mapped.indexOf(NODE_E)));
+	}
+
+	@Test
+	public void testToGraph() throws IOException {
+		Graph<String, String> copy = roundTrip().toGraph();
+		assertEquals(graph.getNodes(), copy.getNodes());
+		for (Node<String> n : graph.getNodes()) {
+			assertEquals(graph.getEdges(n), copy.getEdges(n));
+		}
+	}
+
+	@Test
+	public void testDoubleLabels() throws IOException {
+		Graph<String, Double> weighted = new Graph<>(true);
+		weighted.addNode(NODE_A);
+		weighted.addNode(NODE_B);
+		weighted.addEdge(NODE_A, NODE_B, 0.1 + 0.2);
+		GraphFile.write(weighted.freeze(), file, GraphFile.STRINGS, GraphFile.DOUBLES);
+		GraphFile.MappedGraph<String, Double> mapped = GraphFile.map(file, GraphFile.STRINGS, GraphFile.DOUBLES);
+		assertEquals(weighted.getEdges(NODE_A), mapped.getEdges(NODE_A));
+	}
+
+	@Test
+	public void testEmptyGraph() throws IOException {
+		GraphFile.write(new Graph<String, String>(false).freeze(), file, GraphFile.STRINGS, GraphFile.STRINGS);
+		GraphFile.MappedGraph<String, String> mapped = GraphFile.map(file, GraphFile.STRINGS, GraphFile.STRINGS);
+		assertEquals(0, mapped.size());
+		assertEquals(-1, mapped.indexOf(NODE_A));
+	}
+
+	@Test(expected = IOException.class)
+	public void testBadMagic() throws IOException {
+		Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20});
+		GraphFile.map(file, GraphFile.STRINGS, GraphFile.STRINGS);
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncatedFile() throws IOException {
+		GraphFile.write(graph.freeze(), file, GraphFile.STRINGS, GraphFile.STRINGS);
+		byte[] bytes = Files.readAllBytes(file);
+		Files.write(file, java.util.Arrays.copyOf(bytes, bytes.length - 1));
+		GraphFile.map(file, GraphFile.STRINGS, GraphFile.STRINGS);
+	}
+
+	@Test
+	public void testCutAnywhere() throws IOException {
+		GraphFile.write(graph.freeze(), file, GraphFile.STRINGS, GraphFile.STRINGS);
+		byte[] bytes = Files.readAllBytes(file);
+		// a cut before the pools leaves their start tables pointing past the end
+		for (int length = 20; length < bytes.length; length++) {
+			Files.write(file, java.util.Arrays.copyOf(bytes, length));
+			try {
+				GraphFile.map(file, GraphFile.STRINGS, GraphFile.STRINGS);
+				fail("mapped a file cut to " + length + " bytes");
+			} catch (IOException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testHugeNodeCount() throws IOException {
+		GraphFile.write(graph.freeze(), file, GraphFile.STRINGS, GraphFile.STRINGS);
+		byte[] bytes = Files.readAllBytes(file);
+		// (N + 1) * 4 overflows an int
+		java.nio.ByteBuffer.wrap(bytes).putInt(8, Integer.MAX_VALUE);
+		Files.write(file, bytes);
+		GraphFile.map(file, GraphFile.STRINGS, GraphFile.STRINGS);
+	}
+
+	@Test
+	public void testNodesDecodedOnce() throws IOException {
+		GraphFile.write(graph.freeze(), file, GraphFile.STRINGS, GraphFile.STRINGS);
+		GraphFile.MappedGraph<String, String> mapped = GraphFile.map(file, GraphFile.STRINGS, GraphFile.STRINGS);
+		int a = mapped.indexOf(NODE_A);
+		assertSame(mapped.node(a), mapped.node(a));
+		mapped.forEachEdge(NODE_A, (child, label) -> assertSame(mapped.node(mapped.indexOf(child)), child));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDuplicateEncodings() throws IOException {
+		GraphFile.Codec<String> constant = new GraphFile.Codec<String>() {
+			@Override
+			public String encode(String value) {
+				return "x";
+			}
+
+			@Override
+			public String decode(String text) {
+				return text;
+			}
+		};
+		GraphFile.write(graph.freeze(), file, constant, GraphFile.STRINGS);
+	}
+}
@@ -0,0 +1,164 @@
+package graph.junitTests;
+import graph.*;
+
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+
+
+public class GraphMetricsTests {
+	@Rule public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+	private final Node<String> NODE_A = new Node<>("a");
+	private final Node<String> NODE_B = new Node<>("b");
+	private final Node<String> NODE_C = new Node<>("c");
+
+	private final Graph<String, String> graph = new Graph<>(true);
+	private GraphMetrics metrics;
+
+	@Before
+	public void buildGraph() {
+		metrics = graph.enableMetrics();
+		graph.addNode(NODE_A);
+		graph.addNode(NODE_B);
+		graph.addNode(NODE_C);
+		graph.addEdge(NODE_A, NODE_B, "AB");
+		graph.addEdge(NODE_A, NODE_C, "AC");
+		graph.addEdge(NODE_A, NODE_A, "AA");
+		graph.addEdge(NODE_B, NODE_C, "BC");
+	}
+
+	@Test
+	public void testOffByDefault() {
+		assertNull(new Graph<String, String>(false).metrics());
+	}
+
+	@Test
+	public void testEnableReturnsSameMetrics() {
+		assertSame(metrics, graph.enableMetrics());
+		assertSame(metrics, graph.metrics());
+	}
+
+	@Test
+	public void testCountsAdds() {
+		assertEquals(3, metrics.getNodesAdded());
+		assertEquals(4, metrics.getEdgesAdded());
+		// repeated adds are not counted
+		graph.addNode(NODE_A);
+		graph.addEdge(NODE_A, NODE_B, "AB");
+		assertEquals(3, metrics.getNodesAdded());
+		assertEquals(4, metrics.getEdgesAdded());
+	}
+
+	@Test
+	public void testCountsLookups() {
+		metrics.reset();
+		graph.containsNode(NODE_A);
+		graph.getEdges(NODE_A);
+		graph.edgeView(NODE_B);
+		graph.degree(NODE_C);
+		assertEquals(4, metrics.getLookups());
+	}
+
+	@Test
+	public void testSizes() {
+		assertEquals(3, metrics.getNodeCount());
+		assertEquals(4, metrics.getEdgeCount());
+		long before = metrics.getEstimatedBytes();
+		graph.addEdge(NODE_C, NODE_A, "CA");
+		assertTrue(metrics.getEstimatedBytes() > before);
+	}
+
+	@Test
+	public void testDegreeHistogram() {
+		// degrees: c = 0, b = 1, a = 3 (in [2, 4))
+		assertArrayEquals(new long[] {1, 1, 1}, metrics.getDegreeHistogram());
+	}
+
+	@Test
+	public void testFollowsRemovals() {
+		graph.removeEdge(NODE_A, NODE_C, "AC");
+		// degrees: c = 0, b = 1, a = 2
+		assertArrayEquals(new long[] {1, 1, 1}, metrics.getDegreeHistogram());
+		graph.removeNode(NODE_C);
+		// the edge b -> c goes too, leaving b = 0 and a = 2
+		assertEquals(2, metrics.getNodeCount());
+		assertEquals(2, metrics.getEdgeCount());
+		assertArrayEquals(new long[] {1, 0, 1}, metrics.getDegreeHistogram());
+	}
+
+	@Test
+	public void testCountsExistingGraph() {
+		Graph<String, String> copy = new Graph<>(false);
+		copy.addEdge(NODE_A, NODE_B, "AB");
+		copy.addEdge(NODE_A, NODE_C, "AC");
+		GraphMetrics late = copy.enableMetrics();
+		assertEquals(1, late.getNodeCount());
+		assertEquals(2, late.getEdgeCount());
+		assertArrayEquals(new long[] {0, 0, 1}, late.getDegreeHistogram());
+		// the counters only count what happens after enableMetrics
+		assertEquals(0, late.getEdgesAdded());
+	}
+
+	@Test
+	public void testDoubleWeightedGraph() {
+		DoubleWeightedGraph<String> weighted = new DoubleWeightedGraph<>();
+		GraphMetrics campus = weighted.enableMetrics();
+		weighted.addEdge("a", "b", 1.0);
+		weighted.addEdge("b", "c", 1.0);
+		weighted.addEdge("a", "c", 5.0);
+		assertEquals(3, campus.getNodeCount());
+		assertEquals(3, campus.getEdgeCount());
+		assertArrayEquals(new long[] {1, 1, 1}, campus.getDegreeHistogram());
+		weighted.shortestPath(weighted.handleOf("a"), weighted.handleOf("c"));
+		assertEquals(1, campus.getQueries());
+		// a and b are settled before c is taken off the queue
+		assertEquals(2, campus.getNodesSettled());
+		assertEquals(3, campus.getEdgesExpanded());
+		assertEquals(2, campus.getMaxQueuePeak());
+	}
+
+	@Test
+	public void testRecordQuery() {
+		metrics.recordQuery(5, 2, 10);
+		metrics.recordQuery(3, 7, 4);
+		assertEquals(2, metrics.getQueries());
+		assertEquals(8, metrics.getNodesSettled());
+		assertEquals(14, metrics.getEdgesExpanded());
+		assertEquals(5, metrics.getMaxNodesSettled());
+		assertEquals(7, metrics.getMaxQueuePeak());
+		metrics.reset();
+		assertEquals(0, metrics.getQueries());
+		assertEquals(0, metrics.getMaxQueuePeak());
+	}
+
+	@Test
+	public void testRegisterWithJmx() throws Exception {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = metrics.register("test graph");
+		try {
+			assertEquals(3, server.getAttribute(name, "NodeCount"));
+			assertEquals(4L, server.getAttribute(name, "EdgesAdded"));
+		} finally {
+			metrics.unregister();
+		}
+		assertFalse(server.isRegistered(name));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testRegisterTwice() {
+		metrics.register("twice");
+		try {
+			metrics.register("twice");
+		} finally {
+			metrics.unregister();
+		}
+	}
+}
@@ -1,7 +1,11 @@
 package graph.junitTests;
 import graph.*;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -257,4 +261,316 @@ public class GraphTests {
 		assertEquals(childrenOfB, graph.getChildren(NODE_A));
 	}
 		
+	@Test
+	public void testGetParentsWithoutIndex() {
+		testMakingAGraphWithTwoNodesAndFourEdges();
+		assertEquals(nodes2, graph.getParents(NODE_A));
+		assertEquals(2, graph.inDegree(NODE_B));
+	}
+
+	@Test
+	public void testGetParentsWithIndex() {
+		testMakingAGraphWithTwoNodesAndFourEdges();
+		graph.enableParentIndex();
+		assertTrue(graph.hasParentIndex());
+		assertEquals(nodes2, graph.getParents(NODE_A));
+		assertEquals(2, graph.inDegree(NODE_B));
+	}
+
+	@Test
+	public void testParentIndexFollowsAddAndRemoveEdge() {
+		graph.enableParentIndex();
+		testAddingOneEdgeBetweenTwoNodes();
+		assertEquals(1, graph.inDegree(NODE_B));
+		assertTrue(graph.removeEdge(NODE_A, NODE_B, "AB"));
+		assertEquals(0, graph.inDegree(NODE_B));
+		assertTrue(graph.getParents(NODE_B).isEmpty());
+	}
+
+	@Test
+	public void testRemoveNodeWithIndexRemovesIncomingEdges() {
+		Graph<String, String> indexed = new Graph<>(true);
+		indexed.enableParentIndex();
+		indexed.addNode(NODE_A);
+		indexed.addNode(NODE_B);
+		indexed.addEdge(NODE_A, NODE_B, "AB");
+		indexed.addEdge(NODE_B, NODE_A, "BA");
+		indexed.addEdge(NODE_B, NODE_B, "BB");
+		assertTrue(indexed.removeNode(NODE_B));
+		assertTrue(indexed.getChildren(NODE_A).isEmpty());
+		assertEquals(0, indexed.inDegree(NODE_A));
+	}
+
+	@Test
+	public void testRemoveNodeWithManyIncomingEdges() {
+		testMakingAGraphWithTwoNodesAndFourEdges();
+		assertTrue(graph.addEdge(NODE_A, NODE_B, "AB2"));
+		assertTrue(graph.removeNode(NODE_B));
+		HashSet<Node<String>> childrenOfA = new HashSet<>();
+		childrenOfA.add(NODE_A);
+		assertEquals(childrenOfA, graph.getChildren(NODE_A));
+	}
+
+	/**
+	 * Builds a graph of two books: "b1" with a, b and c, "b2" with c and d
+	 */
+	private Graph<String, String> books(boolean labelIndex) {
+		Graph<String, String> g = new Graph<>(true);
+		if (labelIndex) {
+			g.enableLabelIndex();
+		}
+		Node<String> c = new Node<>("c");
+		Node<String> d = new Node<>("d");
+		g.addEdge(NODE_A, NODE_B, "b1");
+		g.addEdge(NODE_B, c, "b1");
+		g.addEdge(c, NODE_A, "b1");
+		g.addEdge(c, d, "b2");
+		g.addEdge(d, c, "b2");
+		g.addNode(d);
+		return g;
+	}
+
+	@Test
+	public void testNodesWithLabel() {
+		for (boolean labelIndex : new boolean[] {false, true}) {
+			Graph<String, String> g = books(labelIndex);
+			assertEquals(labelIndex, g.hasLabelIndex());
+			Set<Node<String>> expected = new HashSet<>();
+			expected.add(new Node<>("c"));
+			expected.add(new Node<>("d"));
+			assertEquals(expected, g.nodesWithLabel("b2"));
+			assertEquals(3, g.nodesWithLabel("b1").size());
+			assertTrue(g.nodesWithLabel("b3").isEmpty());
+		}
+	}
+
+	@Test
+	public void testEdgesWithLabel() {
+		Graph<String, String> g = books(true);
+		assertEquals(3, g.edgesWithLabel("b1").size());
+		assertTrue(g.edgesWithLabel("b1").get(NODE_A).contains(NODE_B));
+		// the result is a copy
+		g.edgesWithLabel("b1").clear();
+		assertEquals(3, g.edgesWithLabel("b1").size());
+	}
+
+	@Test
+	public void testRemoveEdgesWithLabel() {
+		for (boolean labelIndex : new boolean[] {false, true}) {
+			Graph<String, String> g = books(labelIndex);
+			assertEquals(3, g.removeEdgesWithLabel("b1"));
+			assertTrue(g.nodesWithLabel("b1").isEmpty());
+			assertTrue(g.getChildren(NODE_A).isEmpty());
+			assertEquals(2, g.nodesWithLabel("b2").size());
+			assertEquals(0, g.removeEdgesWithLabel("b1"));
+			assertTrue(g.containsNode(NODE_A));
+		}
+	}
+
+	@Test
+	public void testLabelIndexFollowsRemoveNode() {
+		Graph<String, String> g = books(true);
+		g.enableParentIndex();
+		assertTrue(g.removeNode(new Node<>("c")));
+		assertTrue(g.nodesWithLabel("b2").isEmpty());
+		assertEquals(2, g.nodesWithLabel("b1").size());
+		Graph<String, String> unindexed = books(true);
+		assertTrue(unindexed.removeNode(new Node<>("c")));
+		assertTrue(unindexed.nodesWithLabel("b2").isEmpty());
+		unindexed.validate();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNodesWithNullLabel() {
+		graph.nodesWithLabel(null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testGetParentsOfMissingNode() {
+		graph.getParents(NODE_A);
+	}
+
+	@Test
+	public void testDegreeMatchesGetEdges() {
+		testMakingAGraphWithTwoNodesAndFourEdges();
+		assertEquals(graph.getEdges(NODE_A).size(), graph.degree(NODE_A));
+		assertEquals(2, graph.degree(NODE_B));
+	}
+
+	@Test
+	public void testForEachEdgeVisitsEveryEdge() {
+		testMakingAGraphWithTwoNodesAndFourEdges();
+		HashSet<Edge<String, String>> visited = new HashSet<>();
+		graph.forEachEdge(NODE_A, (child, label) -> visited.add(new Edge<>(child, label)));
+		assertEquals(graph.getEdges(NODE_A), visited);
+	}
+
+	private static final Comparator<Edge<String, String>> ALPHABETICAL =
+			Comparator.comparing((Edge<String, String> e) -> e.getChildNode().getData())
+					.thenComparing(Edge::getLabel);
+
+	/**
+	 * Returns the edges of n in the order forEachEdge visits them
+	 */
+	private static List<Edge<String, String>> visitOrder(Graph<String, String> g, Node<String> n) {
+		List<Edge<String, String>> visited = new ArrayList<>();
+		g.forEachEdge(n, (child, label) -> visited.add(new Edge<>(child, label)));
+		return visited;
+	}
+
+	/**
+	 * Returns the edges of n sorted alphabetically
+	 */
+	private static List<Edge<String, String>> sortedEdges(Graph<String, String> g, Node<String> n) {
+		List<Edge<String, String>> edges = new ArrayList<>(g.getEdges(n));
+		edges.sort(ALPHABETICAL);
+		return edges;
+	}
+
+	@Test
+	public void testSortedEdgesFollowChanges() {
+		for (boolean parentIndex : new boolean[] {false, true}) {
+			Graph<String, String> g = books(false);
+			if (parentIndex) {
+				g.enableParentIndex();
+			}
+			g.enableSortedEdges(ALPHABETICAL);
+			assertEquals(ALPHABETICAL, g.edgeOrder());
+			Node<String> c = new Node<>("c");
+			g.addEdge(c, new Node<>("e"), "b3");
+			g.addEdge(c, NODE_B, "b0");
+			g.addEdge(c, NODE_A, "b0");
+			g.removeEdge(c, NODE_A, "b1");
+			g.removeNode(new Node<>("d"));
+			for (Node<String> n : g.getNodes()) {
+				assertEquals(sortedEdges(g, n), visitOrder(g, n));
+			}
+			g.validate();
+		}
+	}
+
+	@Test
+	public void testEdgeOrderIsNullUntilEnabled() {
+		assertEquals(null, graph.edgeOrder());
+		graph.enableSortedEdges(ALPHABETICAL);
+		graph.addEdge(NODE_A, NODE_B, "2");
+		graph.addEdge(NODE_A, NODE_B, "1");
+		graph.addEdge(NODE_A, NODE_A, "3");
+		assertEquals(sortedEdges(graph, NODE_A), visitOrder(graph, NODE_A));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEnableSortedEdgesWithNullOrder() {
+		graph.enableSortedEdges(null);
+	}
+
+	@Test
+	public void testEdgeViewIsLive() {
+		testAddingTwoDifferentNodes();
+		Set<Edge<String, String>> view = graph.edgeView(NODE_A);
+		assertTrue(view.isEmpty());
+		graph.addEdge(NODE_A, NODE_B, "AB");
+		assertEquals(1, view.size());
+	}
+
+	@Test
+	public void testNodeViewIsLive() {
+		Set<Node<String>> view = graph.nodeView();
+		testAddingTwoDifferentNodes();
+		assertEquals(nodes2, view);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testEdgeViewIsReadOnly() {
+		testAddingOneEdgeBetweenTwoNodes();
+		graph.edgeView(NODE_A).clear();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDegreeOfMissingNode() {
+		graph.degree(NODE_A);
+	}
+
+	@Test
+	public void testInternAddsNode() {
+		int a = graph.intern("a");
+		assertEquals(a, graph.intern("a"));
+		assertTrue(graph.containsNode(NODE_A));
+		assertEquals(NODE_A, graph.node(a));
+		assertEquals(a, graph.handleOf("a"));
+		assertEquals(-1, graph.handleOf("b"));
+	}
+
+	@Test
+	public void testAddEdgeByHandle() {
+		int a = graph.intern("a");
+		int b = graph.intern("b");
+		assertTrue(graph.addEdge(a, b, "AB"));
+		assertFalse(graph.addEdge(NODE_A, NODE_B, "AB"));
+		assertEquals(graph.getNodes(), nodes2);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAddEdgeWithUnknownHandle() {
+		graph.addEdge(0, 1, "AB");
+	}
+
+	@Test
+	public void testCheckModes() {
+		assertEquals(Graph.CheckMode.OFF, graph.checkMode());
+		assertEquals(Graph.CheckMode.FULL, new Graph<String, String>(true).checkMode());
+		assertEquals(Graph.CheckMode.INCREMENTAL,
+				new Graph<String, String>(Graph.CheckMode.INCREMENTAL).checkMode());
+	}
+
+	@Test
+	public void testIncrementalModeLoadsLargeGraph() {
+		Graph<Integer, Integer> g = new Graph<>(Graph.CheckMode.INCREMENTAL);
+		g.enableParentIndex();
+		for (int i = 0; i < 20000; i++) {
+			g.addEdge(new Node<>(i), new Node<>((i * 7) % 20000), i % 10);
+			g.addEdge(new Node<>(i), new Node<>((i + 1) % 20000), i % 3);
+		}
+		g.removeNode(new Node<>(5));
+		g.removeEdge(new Node<>(6), new Node<>(7), 0);
+		g.validate();
+		assertEquals(19999, g.size());
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testIncrementalModeChecksTouchedSet() {
+		Graph<String, String> g = new Graph<>(Graph.CheckMode.INCREMENTAL, 1000);
+		g.addNode(NODE_A);
+		g.getGraph().get(NODE_A).add(null);
+		g.addEdge(NODE_A, NODE_B, "AB");
+	}
+
+	@Test
+	public void testIncrementalModeSweepsEveryInterval() {
+		Graph<String, String> g = new Graph<>(Graph.CheckMode.INCREMENTAL, 3);
+		g.addNode(NODE_A);
+		// corrupt a set that later mutations do not touch
+		g.getGraph().get(NODE_A).add(null);
+		g.addNode(NODE_B);
+		try {
+			g.addNode(new Node<>("c"));
+			g.addNode(new Node<>("d"));
+		} catch (RuntimeException e) {
+			return;
+		}
+		throw new AssertionError("the sweep did not find the null edge");
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testValidateSweepsInAnyMode() {
+		graph.addNode(NODE_A);
+		graph.getGraph().get(NODE_A).add(null);
+		graph.validate();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeSweepInterval() {
+		new Graph<String, String>(Graph.CheckMode.INCREMENTAL, -1);
+	}
+
 }
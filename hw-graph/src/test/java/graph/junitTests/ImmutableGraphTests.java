@@ -0,0 +1,129 @@
+package graph.junitTests;
+import graph.*;
+
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+
+
+public class ImmutableGraphTests {
+	@Rule public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+	private final Node<String> NODE_A = new Node<>("a");
+	private final Node<String> NODE_B = new Node<>("b");
+	private final Node<String> NODE_C = new Node<>("c");
+
+	private final Graph<String, String> graph = new Graph<>(true);
+
+	@Before
+	public void buildGraph() {
+		graph.addNode(NODE_A);
+		graph.addNode(NODE_B);
+		graph.addEdge(NODE_A, NODE_A, "AA");
+		graph.addEdge(NODE_A, NODE_B, "AB");
+		graph.addEdge(NODE_A, NODE_B, "AB2");
+		// c is only ever a child
+		graph.addEdge(NODE_B, NODE_C, "BC");
+	}
+
+	@Test
+	public void testFreezeEmptyGraph() {
+		ImmutableGraph<String, String> frozen = new Graph<String, String>(false).freeze();
+		assertTrue(frozen.isEmpty());
+		assertEquals(0, frozen.edgeCount());
+	}
+
+	@Test
+	public void testSizeIncludesChildOnlyNodes() {
+		ImmutableGraph<String, String> frozen = graph.freeze();
+		assertEquals(3, frozen.size());
+		assertEquals(4, frozen.edgeCount());
+		assertTrue(frozen.containsNode(NODE_C));
+	}
+
+	@Test
+	public void testIdsAreDense() {
+		ImmutableGraph<String, String> frozen = graph.freeze();
+		HashSet<Integer> ids = new HashSet<>();
+		for (Node<String> n : graph.getNodes()) {
+			int id = frozen.indexOf(n);
+			assertEquals(n, frozen.node(id));
+			ids.add(id);
+		}
+		ids.add(frozen.indexOf(NODE_C));
+		assertEquals(3, ids.size());
+		assertEquals(-1, frozen.indexOf(new Node<>("d")));
+	}
+
+	@Test
+	public void testDegree() {
+		ImmutableGraph<String, String> frozen = graph.freeze();
+		assertEquals(3, frozen.degree(frozen.indexOf(NODE_A)));
+		assertEquals(1, frozen.degree(frozen.indexOf(NODE_B)));
+		assertEquals(0, frozen.degree(frozen.indexOf(NODE_C)));
+	}
+
+	@Test
+	public void testEdgesMatchGraph() {
+		ImmutableGraph<String, String> frozen = graph.freeze();
+		for (Node<String> n : graph.getNodes()) {
+			assertEquals(graph.getEdges(n), frozen.getEdges(n));
+		}
+	}
+
+	@Test
+	public void testEdgeSliceMatchesGraph() {
+		ImmutableGraph<String, String> frozen = graph.freeze();
+		int b = frozen.indexOf(NODE_B);
+		int k = frozen.edgeStart(b);
+		assertEquals(k + 1, frozen.edgeEnd(b));
+		assertEquals(NODE_C, frozen.node(frozen.target(k)));
+		assertEquals("BC", frozen.label(k));
+	}
+
+	@Test
+	public void testFreezeIsASnapshot() {
+		ImmutableGraph<String, String> frozen = graph.freeze();
+		graph.addEdge(NODE_C, NODE_A, "CA");
+		assertEquals(0, frozen.degree(frozen.indexOf(NODE_C)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testGetEdgesOfMissingNode() {
+		graph.freeze().getEdges(new Node<>("d"));
+	}
+
+	@Test
+	public void testEdgesWithSameLabelShareId() {
+		graph.addEdge(NODE_C, NODE_A, "AB");
+		ImmutableGraph<String, String> frozen = graph.freeze();
+		int c = frozen.indexOf(NODE_C);
+		int k = frozen.edgeStart(c);
+		assertEquals(frozen.labelTable().idOf("AB"), frozen.labelId(k));
+		assertEquals(4, frozen.labelTable().size());
+	}
+
+	@Test
+	public void testOrderedFreeze() {
+		graph.addEdge(NODE_C, NODE_B, "CB");
+		graph.addEdge(NODE_C, NODE_A, "CA2");
+		graph.addEdge(NODE_C, NODE_A, "CA1");
+		ImmutableGraph<String, String> frozen = graph.freeze(java.util.Comparator.naturalOrder(),
+				java.util.Comparator.naturalOrder());
+		assertEquals(0, frozen.indexOf(NODE_A));
+		assertEquals(1, frozen.indexOf(NODE_B));
+		assertEquals(2, frozen.indexOf(NODE_C));
+		int k = frozen.edgeStart(2);
+		assertEquals("CA1", frozen.label(k));
+		assertEquals("CA2", frozen.label(k + 1));
+		assertEquals("CB", frozen.label(k + 2));
+		for (Node<String> n : graph.getNodes()) {
+			assertEquals(graph.getEdges(n), frozen.getEdges(n));
+		}
+	}
+}
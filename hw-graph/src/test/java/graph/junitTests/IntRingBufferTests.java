@@ -0,0 +1,122 @@
+package graph.junitTests;
+import intQueue.IntRingBuffer;
+
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+
+
+public class IntRingBufferTests {
+	@Rule public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+	private final IntRingBuffer queue = new IntRingBuffer(4);
+
+	@Test
+	public void testEmpty() {
+		assertTrue(queue.isEmpty());
+		assertEquals(0, queue.size());
+		assertEquals("[]", queue.toString());
+	}
+
+	@Test
+	public void testFirstInFirstOut() {
+		queue.enqueue(1);
+		queue.enqueue(2);
+		queue.enqueue(3);
+		assertEquals(1, queue.front());
+		assertEquals(1, queue.dequeue());
+		assertEquals(2, queue.dequeue());
+		assertEquals(3, queue.dequeue());
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void testGrowsWhileWrapped() {
+		for (int i = 0; i < 3; i++) {
+			queue.enqueue(i);
+		}
+		queue.dequeue();
+		queue.dequeue();
+		// the next items wrap around the end of the array before it grows
+		for (int i = 3; i < 10; i++) {
+			queue.enqueue(i);
+		}
+		assertEquals("[2, 3, 4, 5, 6, 7, 8, 9]", queue.toString());
+		assertEquals(8, queue.capacity());
+	}
+
+	@Test
+	public void testCapacityIsPowerOfTwo() {
+		assertEquals(16, new IntRingBuffer(9).capacity());
+		assertEquals(2, new IntRingBuffer(0).capacity());
+	}
+
+	@Test
+	public void testAddAllAndDrainTo() {
+		queue.enqueue(-1);
+		queue.dequeue();
+		queue.addAll(new int[] {1, 2, 3, 4, 5, 6});
+		queue.addAll(new int[] {7, 8, 9}, 1, 3);
+		int[] dest = new int[5];
+		assertEquals(5, queue.drainTo(dest));
+		assertArrayEquals(new int[] {1, 2, 3, 4, 5}, dest);
+		dest = new int[10];
+		assertEquals(3, queue.drainTo(dest, 2, 8));
+		assertArrayEquals(new int[] {0, 0, 6, 8, 9, 0, 0, 0, 0, 0}, dest);
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void testMatchesArrayDeque() {
+		ArrayDeque<Integer> expected = new ArrayDeque<>();
+		Random random = new Random(5);
+		int[] batch = new int[7];
+		for (int step = 0; step < 20000; step++) {
+			int op = random.nextInt(4);
+			if (op == 0) {
+				int v = random.nextInt();
+				queue.enqueue(v);
+				expected.add(v);
+			} else if (op == 1 && !expected.isEmpty()) {
+				assertEquals((int) expected.remove(), queue.dequeue());
+			} else if (op == 2) {
+				for (int i = 0; i < batch.length; i++) {
+					batch[i] = random.nextInt();
+					expected.add(batch[i]);
+				}
+				queue.addAll(batch);
+			} else {
+				int moved = queue.drainTo(batch);
+				for (int i = 0; i < moved; i++) {
+					assertEquals((int) expected.remove(), batch[i]);
+				}
+			}
+			assertEquals(expected.size(), queue.size());
+		}
+	}
+
+	@Test
+	public void testClear() {
+		queue.addAll(new int[] {1, 2, 3});
+		queue.clear();
+		assertTrue(queue.isEmpty());
+		queue.enqueue(4);
+		assertEquals(4, queue.dequeue());
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testDequeueEmpty() {
+		queue.dequeue();
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testAddAllBadRange() {
+		queue.addAll(new int[2], 1, 3);
+	}
+}
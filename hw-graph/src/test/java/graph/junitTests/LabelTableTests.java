@@ -0,0 +1,46 @@
+package graph.junitTests;
+import graph.*;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+
+import static org.junit.Assert.*;
+
+public class LabelTableTests {
+	@Rule public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+	private final LabelTable<String> table = new LabelTable<>();
+
+	@Test
+	public void testEmptyWhenConstructed() {
+		assertEquals(0, table.size());
+		assertEquals(-1, table.idOf("X:PRIME"));
+	}
+
+	@Test
+	public void testIdsAreDense() {
+		assertEquals(0, table.id("A 100"));
+		assertEquals(1, table.id("X:PRIME"));
+		assertEquals(0, table.id("A 100"));
+		assertEquals(2, table.size());
+		assertEquals("X:PRIME", table.label(1));
+	}
+
+	@Test
+	public void testInternReturnsSharedInstance() {
+		String first = table.intern(new String("A 100"));
+		assertSame(first, table.intern(new String("A 100")));
+		assertSame(first, table.label(table.idOf("A 100")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownId() {
+		table.label(0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNullLabel() {
+		table.id(null);
+	}
+}
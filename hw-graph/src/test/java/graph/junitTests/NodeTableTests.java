@@ -0,0 +1,46 @@
+package graph.junitTests;
+import graph.*;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+
+import static org.junit.Assert.*;
+
+public class NodeTableTests {
+	@Rule public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+	private final NodeTable<String> table = new NodeTable<>();
+
+	@Test
+	public void testEmptyWhenConstructed() {
+		assertEquals(0, table.size());
+		assertEquals(-1, table.handleOf("a"));
+	}
+
+	@Test
+	public void testHandlesAreDense() {
+		assertEquals(0, table.handle("a"));
+		assertEquals(1, table.handle("b"));
+		assertEquals(0, table.handle("a"));
+		assertEquals(2, table.size());
+	}
+
+	@Test
+	public void testInternReturnsCanonicalNode() {
+		Node<String> first = table.intern("a");
+		assertSame(first, table.intern(new String("a")));
+		assertSame(first, table.node(table.handleOf("a")));
+		assertEquals(new Node<>("a"), first);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownHandle() {
+		table.node(0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNullData() {
+		table.handle(null);
+	}
+}
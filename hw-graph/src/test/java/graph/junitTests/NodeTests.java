@@ -30,4 +30,9 @@ public class NodeTests {
 		assertNotEquals(n2, n3);
 	}
 
+	@Test
+	public void testEqualNodesHaveEqualHashCodes() {
+		assertEquals(n2.hashCode(), n4.hashCode());
+	}
+
 }
@@ -0,0 +1,136 @@
+package graph.junitTests;
+import graph.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+
+
+public class OffHeapGraphTests {
+	@Rule public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+	// off-heap bytes written by testLargerThanHeap
+	private static final long LARGE_BYTES = 64L << 20;
+
+	private final Node<String> NODE_A = new Node<>("a");
+	private final Node<String> NODE_B = new Node<>("b");
+	private final Node<String> NODE_C = new Node<>("c");
+
+	private final Graph<String, String> graph = new Graph<>(true);
+
+	@Before
+	public void buildGraph() {
+		graph.addNode(NODE_A);
+		graph.addNode(NODE_B);
+		graph.addEdge(NODE_A, NODE_A, "AA");
+		graph.addEdge(NODE_A, NODE_B, "AB");
+		graph.addEdge(NODE_A, NODE_B, "AB2");
+		graph.addEdge(NODE_B, NODE_C, "BC");
+	}
+
+	@Test
+	public void testCopyMatchesGraph() throws IOException {
+		try (OffHeapGraph<String, String> offHeap = OffHeapGraph.of(graph)) {
+			assertEquals(3, offHeap.size());
+			assertEquals(4, offHeap.edgeCount());
+			for (Node<String> n : graph.getNodes()) {
+				assertEquals(graph.getEdges(n), offHeap.getEdges(n));
+			}
+			assertTrue(offHeap.getEdges(NODE_C).isEmpty());
+		}
+	}
+
+	@Test
+	public void testUnknownNode() throws IOException {
+		try (OffHeapGraph<String, String> offHeap = OffHeapGraph.of(graph)) {
+			assertFalse(offHeap.containsNode(new Node<>("d")));
+			assertEquals(-1, offHeap.indexOf(new Node<>("d")));
+		}
+	}
+
+	@Test
+	public void testEdgesAreSortedWithoutDuplicates() throws IOException {
+		OffHeapGraph.Builder<String, String> builder = new OffHeapGraph.Builder<>();
+		builder.addEdge("a", "c", "x");
+		builder.addEdge("a", "b", "y");
+		builder.addEdge("a", "b", "x");
+		builder.addEdge("a", "c", "x");
+		try (OffHeapGraph<String, String> offHeap = builder.build()) {
+			int a = offHeap.indexOf(NODE_A);
+			assertEquals(3, offHeap.degree(a));
+			assertEquals(3, offHeap.edgeCount());
+			long k = offHeap.edgeStart(a);
+			assertEquals(NODE_C, offHeap.node(offHeap.target(k)));
+			assertEquals(NODE_B, offHeap.node(offHeap.target(k + 1)));
+			assertEquals("x", offHeap.label(k + 1));
+			assertEquals("y", offHeap.label(k + 2));
+		}
+	}
+
+	@Test
+	public void testInterleavedParents() throws IOException {
+		OffHeapGraph.Builder<String, String> builder = new OffHeapGraph.Builder<>();
+		builder.addEdge("a", "b", "1");
+		builder.addEdge("b", "c", "2");
+		builder.addEdge("a", "c", "3");
+		builder.addEdge("c", "a", "4");
+		builder.addEdge("b", "a", "5");
+		try (OffHeapGraph<String, String> offHeap = builder.build()) {
+			assertEquals(2, offHeap.getEdges(NODE_A).size());
+			assertEquals(2, offHeap.getEdges(NODE_B).size());
+			assertEquals(1, offHeap.getEdges(NODE_C).size());
+			assertTrue(offHeap.getEdges(NODE_B).contains(new Edge<>(NODE_A, "5")));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownId() {
+		new OffHeapGraph.Builder<String, String>().addEdge(0, 1, "x");
+	}
+
+	/**
+	 * Writes a fixed LARGE_BYTES of edges. The largeGraphTests task runs this
+	 * under a heap smaller than that; under any bigger heap it is skipped.
+	 */
+	@Test
+	public void testLargerThanHeap() throws IOException {
+		// each edge takes 8 bytes off-heap: a child id and a label id
+		int nodes = 1 << 16;
+		int perNode = (int) (LARGE_BYTES / Integer.BYTES / 2 / nodes);
+		assumeTrue(Runtime.getRuntime().maxMemory() < LARGE_BYTES);
+		Path dir = Files.createTempDirectory("offheap");
+		try {
+			OffHeapGraph.Builder<Integer, String> builder = new OffHeapGraph.Builder<>(dir);
+			for (int i = 0; i < nodes; i++) {
+				builder.addNode(i);
+			}
+			String[] labels = {"w", "x", "y", "z"};
+			for (int i = 0; i < nodes; i++) {
+				for (int j = perNode - 1; j >= 0; j--) {
+					builder.addEdge(i, (i + j) % nodes, labels[j % labels.length]);
+				}
+			}
+			try (OffHeapGraph<Integer, String> offHeap = builder.build()) {
+				assertEquals(LARGE_BYTES, offHeap.edgeCount() * 2 * Integer.BYTES);
+				assertEquals((long) nodes * perNode, offHeap.edgeCount());
+				for (int i = 0; i < nodes - perNode; i += 997) {
+					assertEquals(perNode, offHeap.degree(i));
+					// children i .. i + perNode - 1 do not wrap around, so the last edge has j == perNode - 1
+					long k = offHeap.edgeEnd(i) - 1;
+					assertEquals(i + perNode - 1, offHeap.target(k));
+					assertEquals(labels[(perNode - 1) % labels.length], offHeap.label(k));
+				}
+			}
+		} finally {
+			Files.delete(dir);
+		}
+	}
+}
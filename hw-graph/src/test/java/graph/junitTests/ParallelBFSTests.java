@@ -0,0 +1,195 @@
+package graph.junitTests;
+import graph.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+
+
+public class ParallelBFSTests {
+	@Rule public Timeout globalTimeout = Timeout.seconds(30); // 30 seconds max per method tested
+
+	private static final int NODES = 3000;
+	private static final int BOOKS = 1500;
+	private static final int QUERIES = 40;
+
+	private final Graph<String, String> graph = new Graph<>(false);
+
+	/**
+	 * Builds a co-appearance graph like the Marvel one: random "books"
+	 * connect every two of their characters in both directions
+	 */
+	@Before
+	public void buildGraph() {
+		Random random = new Random(331);
+		Graph.Builder<String, String> builder = new Graph.Builder<>();
+		for (int i = 0; i < NODES; i++) {
+			builder.addNode("n" + i);
+		}
+		for (int b = 0; b < BOOKS; b++) {
+			List<String> members = new ArrayList<>();
+			int size = 2 + random.nextInt(5);
+			for (int i = 0; i < size; i++) {
+				members.add("n" + random.nextInt(NODES));
+			}
+			builder.connectAll(members, "b" + random.nextInt(BOOKS / 3));
+		}
+		// a pair that nothing else reaches
+		builder.addEdge("island", "isle", "x");
+		graph.addNode(new Node<>("unused"));
+		Graph<String, String> built = builder.build();
+		for (Node<String> n : built.nodeView()) {
+			graph.addNode(n);
+			for (Edge<String, String> e : built.edgeView(n)) {
+				graph.addEdge(n, e.getChildNode(), e.getLabel());
+			}
+		}
+	}
+
+	/**
+	 * The sequential search of MarvelPaths.BFS, kept here as the reference
+	 */
+	private static List<Edge<String, String>> sequentialBFS(Graph<String, String> g, Node<String> start,
+	                                                          Node<String> dest) {
+		Queue<Node<String>> queue = new LinkedList<>();
+		Map<Node<String>, List<Edge<String, String>>> paths = new HashMap<>();
+		queue.add(start);
+		paths.put(start, new ArrayList<>());
+		while (!queue.isEmpty()) {
+			Node<String> parent = queue.remove();
+			if (parent.equals(dest)) {
+				return paths.get(parent);
+			}
+			TreeSet<Edge<String, String>> sorted = new TreeSet<>(
+					Comparator.comparing((Edge<String, String> e) -> e.getChildNode().getData())
+							.thenComparing(Edge::getLabel));
+			sorted.addAll(g.getEdges(parent));
+			for (Edge<String, String> e : sorted) {
+				if (!paths.containsKey(e.getChildNode())) {
+					List<Edge<String, String>> path = new ArrayList<>(paths.get(parent));
+					path.add(e);
+					paths.put(e.getChildNode(), path);
+					queue.add(e.getChildNode());
+				}
+			}
+		}
+		return null;
+	}
+
+	private ParallelBFS<String, String> engine(ForkJoinPool pool) {
+		return new ParallelBFS<>(graph, Comparator.naturalOrder(), Comparator.naturalOrder(), pool);
+	}
+
+	@Test
+	public void testMatchesSequentialSearch() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			ParallelBFS<String, String> bfs = engine(pool);
+			Random random = new Random(17);
+			for (int q = 0; q < QUERIES; q++) {
+				Node<String> start = new Node<>("n" + random.nextInt(NODES));
+				Node<String> dest = new Node<>("n" + random.nextInt(NODES));
+				assertEquals(sequentialBFS(graph, start, dest), bfs.shortestPath(start, dest));
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testSameNode() {
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			assertTrue(engine(pool).shortestPath(new Node<>("n1"), new Node<>("n1")).isEmpty());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testNoPath() {
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			ParallelBFS<String, String> bfs = engine(pool);
+			assertNull(bfs.shortestPath(new Node<>("n1"), new Node<>("island")));
+			assertNull(bfs.shortestPath(new Node<>("isle"), new Node<>("island")));
+			assertNull(bfs.shortestPath(new Node<>("unused"), new Node<>("n1")));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testSmallestLabelAndChild() {
+		Graph<String, String> small = new Graph<>(true);
+		small.addEdge(new Node<>("a"), new Node<>("c"), "2");
+		small.addEdge(new Node<>("a"), new Node<>("c"), "1");
+		small.addEdge(new Node<>("a"), new Node<>("b"), "9");
+		small.addEdge(new Node<>("b"), new Node<>("d"), "z");
+		small.addEdge(new Node<>("c"), new Node<>("d"), "a");
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			ParallelBFS<String, String> bfs = new ParallelBFS<>(small, Comparator.naturalOrder(),
+					Comparator.naturalOrder(), pool);
+			List<Edge<String, String>> path = bfs.shortestPath(new Node<>("a"), new Node<>("d"));
+			assertEquals(sequentialBFS(small, new Node<>("a"), new Node<>("d")), path);
+			assertEquals(new Edge<>(new Node<>("b"), "9"), path.get(0));
+			assertEquals("1", bfs.shortestPath(new Node<>("a"), new Node<>("c")).get(0).getLabel());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownNode() {
+		ForkJoinPool pool = new ForkJoinPool(1);
+		try {
+			engine(pool).shortestPath(new Node<>("n1"), new Node<>("nobody"));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testSamePathsForEveryPoolSize() {
+		Random random = new Random(5);
+		List<Node<String>> starts = new ArrayList<>();
+		List<Node<String>> dests = new ArrayList<>();
+		for (int q = 0; q < QUERIES; q++) {
+			starts.add(new Node<>("n" + random.nextInt(NODES)));
+			// unreachable queries walk the whole component
+			dests.add(q % 4 == 0 ? new Node<>("island") : new Node<>("n" + random.nextInt(NODES)));
+		}
+		List<List<Edge<String, String>>> expected = null;
+		for (int threads = 1; threads <= 8; threads *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			try {
+				ParallelBFS<String, String> bfs = engine(pool);
+				List<List<Edge<String, String>>> paths = new ArrayList<>();
+				for (int q = 0; q < QUERIES; q++) {
+					paths.add(bfs.shortestPath(starts.get(q), dests.get(q)));
+				}
+				if (expected == null) {
+					expected = paths;
+				}
+				assertEquals(expected, paths);
+			} finally {
+				pool.shutdown();
+			}
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package graph.junitTests;
+import intQueue.SpscIntRingBuffer;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+
+
+public class SpscIntRingBufferTests {
+	@Rule public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+	private final SpscIntRingBuffer queue = new SpscIntRingBuffer(4);
+
+	@Test
+	public void testOfferUntilFull() {
+		for (int i = 0; i < 4; i++) {
+			assertTrue(queue.offer(i));
+		}
+		assertFalse(queue.offer(4));
+		assertEquals(4, queue.size());
+		assertEquals(0, queue.poll());
+		assertTrue(queue.offer(4));
+		assertEquals(1, queue.front());
+	}
+
+	@Test
+	public void testOfferAllTakesWhatFits() {
+		assertEquals(3, queue.offerAll(new int[] {1, 2, 3}, 0, 3));
+		assertEquals(1, queue.offerAll(new int[] {4, 5, 6}, 0, 3));
+		int[] dest = new int[3];
+		assertEquals(3, queue.drainTo(dest));
+		assertArrayEquals(new int[] {1, 2, 3}, dest);
+		// the next batch wraps around the end of the array
+		assertEquals(3, queue.offerAll(new int[] {5, 6, 7}, 0, 3));
+		assertEquals(4, queue.poll());
+		assertEquals(3, queue.drainTo(dest));
+		assertArrayEquals(new int[] {5, 6, 7}, dest);
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testPollEmpty() {
+		queue.poll();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testZeroCapacity() {
+		new SpscIntRingBuffer(0);
+	}
+
+	@Test
+	public void testProducerAndConsumerThreads() throws InterruptedException {
+		final int count = 200_000;
+		SpscIntRingBuffer shared = new SpscIntRingBuffer(64);
+		AtomicReference<String> failure = new AtomicReference<>();
+		Thread producer = new Thread(() -> {
+			int[] batch = new int[5];
+			int next = 0;
+			while (next < count) {
+				if (next % 3 == 0) {
+					int n = Math.min(batch.length, count - next);
+					for (int i = 0; i < n; i++) {
+						batch[i] = next + i;
+					}
+					int moved = shared.offerAll(batch, 0, n);
+					next += moved;
+					if (moved == 0) {
+						// the ring is full: let the consumer run, even on one core
+						Thread.yield();
+					}
+				} else if (shared.offer(next)) {
+					next++;
+				} else {
+					Thread.yield();
+				}
+			}
+		});
+		Thread consumer = new Thread(() -> {
+			int[] batch = new int[7];
+			int expected = 0;
+			while (expected < count) {
+				if (expected % 2 == 0) {
+					int moved = shared.drainTo(batch);
+					for (int i = 0; i < moved; i++) {
+						if (batch[i] != expected++) {
+							failure.compareAndSet(null, "out of order at " + expected);
+						}
+					}
+					if (moved == 0) {
+						// the ring is empty: let the producer run, even on one core
+						Thread.yield();
+					}
+				} else if (!shared.isEmpty()) {
+					if (shared.poll() != expected++) {
+						failure.compareAndSet(null, "out of order at " + expected);
+					}
+				} else {
+					Thread.yield();
+				}
+			}
+		});
+		producer.start();
+		consumer.start();
+		producer.join();
+		consumer.join();
+		assertNull(failure.get());
+		assertTrue(shared.isEmpty());
+	}
+}
@@ -0,0 +1,197 @@
+package graph.junitTests;
+import graph.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+
+
+public class VersionedGraphTests {
+	@Rule public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+	private final Node<String> NODE_A = new Node<>("a");
+	private final Node<String> NODE_B = new Node<>("b");
+	private final Node<String> NODE_C = new Node<>("c");
+
+	private final VersionedGraph<String, String> graph = new VersionedGraph<>();
+
+	@Test
+	public void testEmptyWhenConstructed() {
+		assertTrue(graph.snapshot().isEmpty());
+		assertEquals(0, graph.snapshot().version());
+	}
+
+	@Test
+	public void testEachUpdateIsANewVersion() {
+		assertTrue(graph.addNode(NODE_A));
+		assertTrue(graph.addEdge(NODE_A, NODE_B, "AB"));
+		assertFalse(graph.addEdge(NODE_A, NODE_B, "AB"));
+		assertEquals(3, graph.snapshot().version());
+		assertEquals(1, graph.snapshot().degree(NODE_A));
+	}
+
+	@Test
+	public void testOldSnapshotDoesNotChange() {
+		graph.addEdge(NODE_A, NODE_B, "AB");
+		VersionedGraph.Snapshot<String, String> before = graph.snapshot();
+		graph.addEdge(NODE_A, NODE_C, "AC");
+		graph.removeEdge(NODE_A, NODE_B, "AB");
+		assertEquals(1, before.degree(NODE_A));
+		assertEquals(new Edge<>(NODE_B, "AB"), before.getEdges(NODE_A).iterator().next());
+		assertEquals(new Edge<>(NODE_C, "AC"), graph.snapshot().getEdges(NODE_A).iterator().next());
+	}
+
+	@Test
+	public void testBatchIsPublishedAtOnce() {
+		VersionedGraph.Snapshot<String, String> before = graph.snapshot();
+		VersionedGraph.Snapshot<String, String> after = graph.update(b -> {
+			b.addEdge(NODE_A, NODE_B, "AB");
+			b.addEdge(NODE_B, NODE_C, "BC");
+			b.addNode(NODE_C);
+		});
+		assertEquals(before.version() + 1, after.version());
+		assertTrue(before.isEmpty());
+		assertEquals(3, after.size());
+		assertSame(after, graph.snapshot());
+	}
+
+	@Test
+	public void testRemoveNodeRemovesIncomingEdges() {
+		graph.update(b -> {
+			b.addEdge(NODE_A, NODE_B, "AB");
+			b.addEdge(NODE_B, NODE_A, "BA");
+			b.addEdge(NODE_C, NODE_A, "CA");
+		});
+		assertTrue(graph.removeNode(NODE_A));
+		assertFalse(graph.snapshot().containsNode(NODE_A));
+		assertTrue(graph.snapshot().getEdges(NODE_B).isEmpty());
+		assertTrue(graph.snapshot().getEdges(NODE_C).isEmpty());
+		assertEquals(2, graph.snapshot().size());
+	}
+
+	@Test
+	public void testCopiesGraph() {
+		Graph<String, String> g = new Graph<>(false);
+		g.addEdge(NODE_A, NODE_B, "AB");
+		g.addNode(NODE_B);
+		VersionedGraph<String, String> versioned = new VersionedGraph<>(g);
+		assertEquals(g.getNodes(), versioned.snapshot().getNodes());
+		assertEquals(g.getEdges(NODE_A), versioned.snapshot().getEdges(NODE_A));
+	}
+
+	@Test
+	public void testManyVersionsMatchPlainGraph() {
+		Graph<String, String> expected = new Graph<>(false);
+		Random random = new Random(331);
+		for (int i = 0; i < 2000; i++) {
+			Node<String> parent = new Node<>("n" + random.nextInt(30));
+			Node<String> child = new Node<>("n" + random.nextInt(30));
+			String label = "l" + random.nextInt(3);
+			int op = random.nextInt(10);
+			if (op < 6) {
+				assertEquals(expected.addEdge(parent, child, label), graph.addEdge(parent, child, label));
+			} else if (op < 9) {
+				assertEquals(expected.removeEdge(parent, child, label), graph.removeEdge(parent, child, label));
+			} else {
+				assertEquals(expected.removeNode(parent), graph.removeNode(parent));
+			}
+		}
+		VersionedGraph.Snapshot<String, String> snapshot = graph.snapshot();
+		assertEquals(expected.getNodes(), snapshot.getNodes());
+		assertEquals(expected.size(), snapshot.size());
+		for (Node<String> n : expected.getNodes()) {
+			assertEquals(expected.getEdges(n), new HashSet<>(snapshot.getEdges(n)));
+		}
+	}
+
+	@Test
+	public void testUpdateSharesUntouchedEdges() {
+		graph.update(b -> {
+			b.addEdge(NODE_A, NODE_B, "AB");
+			b.addEdge(NODE_C, NODE_A, "CA");
+		});
+		VersionedGraph.Snapshot<String, String> before = graph.snapshot();
+		graph.addEdge(NODE_A, NODE_C, "AC");
+		assertSame(before.getEdges(NODE_C), graph.snapshot().getEdges(NODE_C));
+		assertNotSame(before.getEdges(NODE_A), graph.snapshot().getEdges(NODE_A));
+	}
+
+	@Test
+	public void testManyNodesAndOldVersionsMatchPlainGraph() {
+		// "Aa" and "BB" have the same hash, so these names collide in groups of 8
+		String[] pairs = {"Aa", "BB"};
+		List<Node<String>> pool = new ArrayList<>();
+		for (int i = 0; i < 400; i++) {
+			pool.add(new Node<>("n" + i));
+		}
+		for (int i = 0; i < 8; i++) {
+			pool.add(new Node<>(pairs[i & 1] + pairs[(i >> 1) & 1] + pairs[(i >> 2) & 1]));
+		}
+		Graph<String, String> expected = new Graph<>(false);
+		Random random = new Random(5);
+		VersionedGraph.Snapshot<String, String> middle = null;
+		Graph<String, String> expectedMiddle = null;
+		for (int i = 0; i < 6000; i++) {
+			Node<String> parent = pool.get(random.nextInt(pool.size()));
+			Node<String> child = pool.get(random.nextInt(pool.size()));
+			String label = "l" + random.nextInt(2);
+			int op = random.nextInt(20);
+			if (op < 12) {
+				assertEquals(expected.addEdge(parent, child, label), graph.addEdge(parent, child, label));
+			} else if (op < 18) {
+				assertEquals(expected.removeEdge(parent, child, label), graph.removeEdge(parent, child, label));
+			} else {
+				assertEquals(expected.removeNode(parent), graph.removeNode(parent));
+			}
+			if (i == 3000) {
+				middle = graph.snapshot();
+				expectedMiddle = new Graph<>(false);
+				for (Node<String> n : expected.getNodes()) {
+					expectedMiddle.addNode(n);
+					for (Edge<String, String> e : expected.getEdges(n)) {
+						expectedMiddle.addEdge(n, e.getChildNode(), e.getLabel());
+					}
+				}
+			}
+		}
+		assertSameGraph(expected, graph.snapshot());
+		assertSameGraph(expectedMiddle, middle);
+	}
+
+	private static void assertSameGraph(Graph<String, String> expected, VersionedGraph.Snapshot<String, String> snapshot) {
+		assertEquals(expected.getNodes(), snapshot.getNodes());
+		assertEquals(expected.size(), snapshot.size());
+		for (Node<String> n : expected.getNodes()) {
+			assertTrue(snapshot.containsNode(n));
+			assertEquals(expected.getEdges(n), new HashSet<>(snapshot.getEdges(n)));
+		}
+		int[] visited = new int[1];
+		snapshot.forEachNode(n -> visited[0]++);
+		assertEquals(expected.size(), visited[0]);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testBatchIsClosedAfterUpdate() {
+		List<VersionedGraph.Batch<String, String>> kept = new ArrayList<>();
+		graph.update(kept::add);
+		kept.get(0).addNode(NODE_A);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testSnapshotEdgesAreReadOnly() {
+		graph.addEdge(NODE_A, NODE_B, "AB");
+		graph.snapshot().getEdges(NODE_A).clear();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testGetEdgesOfMissingNode() {
+		graph.snapshot().getEdges(NODE_A);
+	}
+}
@@ -15,6 +15,7 @@ import com.opencsv.bean.CsvToBeanBuilder;
 
 import java.io.*;
 import java.util.*;
+import java.util.function.BiConsumer;
 
 /**
  * Parser utility to load the Marvel Comics dataset.
@@ -81,4 +82,163 @@ public class MarvelParser {
         // TODO: Complete this method
         // Hint: You might want to create a new bean class to use with the OpenCSV Parser
     }
-}
\ No newline at end of file
+
+    /**
+     * Reads the Marvel Universe dataset like parseData, but hands each (character, book) pair
+     * to <var>sink</var> as soon as its line is read, in file order, instead of collecting
+     * them. Lines are split by a hand-written tokenizer rather than bound to a bean, so no
+     * object is made per line beyond the two strings.
+     *
+     * The file is read the way parseData reads it: the first non-empty line names the
+     * columns, and the hero and book columns are found by name, ignoring case; empty lines
+     * are skipped; whitespace before a quoted field is dropped; quotes around a field are
+     * removed, and a doubled quote inside them stands for one quote.
+     *
+     * @param filename the file that will be read
+     * @param sink called with the character and the book of every line
+     * @throws IllegalArgumentException if an argument is null, the file can not be found,
+     *         the header has no hero or book column, or a line is missing one of them
+     * @throws UncheckedIOException if the file can not be read
+     */
+    public static void streamData(String filename, BiConsumer<String, String> sink) {
+        if (filename == null || sink == null) {
+            throw new IllegalArgumentException("filename and sink can not be null");
+        }
+        InputStream stream = MarvelParser.class.getResourceAsStream("/data/" + filename);
+        if (stream == null) {
+            throw new IllegalArgumentException("provided an invalid file name");
+        }
+        // same charset as parseData, so undecodable bytes become the same characters
+        try (Reader reader = new InputStreamReader(stream)) {
+            TabTokenizer tokens = new TabTokenizer(reader);
+            List<String> fields = new ArrayList<>();
+            if (!tokens.nextRow(fields)) {
+                return;
+            }
+            int heroColumn = -1;
+            int bookColumn = -1;
+            for (int i = 0; i < fields.size(); i++) {
+                String column = fields.get(i).trim();
+                if (heroColumn < 0 && column.equalsIgnoreCase("hero")) {
+                    heroColumn = i;
+                } else if (bookColumn < 0 && column.equalsIgnoreCase("book")) {
+                    bookColumn = i;
+                }
+            }
+            if (heroColumn < 0 || bookColumn < 0) {
+                throw new IllegalArgumentException(filename + " has no hero or book column");
+            }
+            int needed = Math.max(heroColumn, bookColumn) + 1;
+            while (tokens.nextRow(fields)) {
+                if (fields.size() < needed) {
+                    throw new IllegalArgumentException(filename + " line " + tokens.line()
+                            + " has " + fields.size() + " fields, not " + needed);
+                }
+                sink.accept(fields.get(heroColumn), fields.get(bookColumn));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Splits tab separated text into rows of fields, reading through its own buffer.
+     */
+    private static final class TabTokenizer {
+        private static final int EOF = -1;
+
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder field = new StringBuilder();
+        private int position;
+        private int limit;
+        // the number of line breaks read so far
+        private int lines;
+
+        TabTokenizer(Reader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * Returns the number of the line the last row ended on, counting from 1
+         */
+        int line() {
+            return lines;
+        }
+
+        private int read() throws IOException {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return EOF;
+                }
+            }
+            return buffer[position++];
+        }
+
+        private static boolean endsField(int c) {
+            return c == '\t' || c == '\n' || c == '\r' || c == EOF;
+        }
+
+        /**
+         * Reads the next non-empty row into fields, replacing what it held
+         *
+         * @return false if there are no more rows
+         */
+        boolean nextRow(List<String> fields) throws IOException {
+            fields.clear();
+            int c = read();
+            while (c == '\n' || c == '\r') {
+                if (c == '\n') {
+                    lines++;
+                }
+                c = read();
+            }
+            if (c == EOF) {
+                return false;
+            }
+            while (true) {
+                field.setLength(0);
+                while (!endsField(c) && c != '"' && Character.isWhitespace(c)) {
+                    field.append((char) c);
+                    c = read();
+                }
+                if (c == '"') {
+                    // the whitespace only led up to the quote
+                    field.setLength(0);
+                    c = read();
+                    while (true) {
+                        if (c == EOF) {
+                            throw new IllegalArgumentException("unterminated quote on line " + (lines + 1));
+                        } else if (c == '"') {
+                            c = read();
+                            if (c != '"') {
+                                break;
+                            }
+                        } else if (c == '\n') {
+                            lines++;
+                        }
+                        field.append((char) c);
+                        c = read();
+                    }
+                }
+                while (!endsField(c)) {
+                    field.append((char) c);
+                    c = read();
+                }
+                fields.add(field.toString());
+                if (c != '\t') {
+                    lines++;
+                    // a \r\n pair ends the row once
+                    if (c == '\r' && read() != '\n' && limit > 0) {
+                        position--;
+                    }
+                    return true;
+                }
+                c = read();
+            }
+        }
+    }
+}
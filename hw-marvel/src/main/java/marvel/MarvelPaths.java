@@ -1,51 +1,156 @@
 package marvel;
 
+import graph.CompactBFS;
 import graph.Edge;
 import graph.Graph;
+import graph.GraphAlgorithms;
+import graph.GraphFile;
+import graph.GraphView;
+import graph.IncidenceGraph;
 import graph.Node;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class MarvelPaths {
 
+    // orders edges by the name of their child, then by their book
+    private static final Comparator<Edge<String,String>> ALPHABETICAL =
+            Comparator.comparing((Edge<String,String> e) -> e.getChildNode().getData())
+                    .thenComparing(Edge::getLabel);
+
     public static Graph<String,String> buildGraph(String filename) {
         if (filename == null) {
             throw new IllegalArgumentException("filename can not be found");
         }
 
-        Graph<String,String> marvelGraph = new Graph<>(false);
+        HashMap<String, List<String>> books = readBooks(filename);
+
+        long expectedEdges = 0;
+        for (List<String> chars : books.values()) {
+            expectedEdges += (long) chars.size() * (chars.size() - 1);
+        }
+        // the counts are only hints, so a count too large for an array is capped
+        Graph.Builder<String,String> builder = new Graph.Builder<>(countCharacters(books),
+                (int) Math.min(expectedEdges, Integer.MAX_VALUE - 8));
+
+        for (String book : books.keySet()) {
+            builder.connectAll(books.get(book), book);
+        }
+        Graph<String,String> marvelGraph = builder.build();
+        // lets BFS answer characters who never meet at once
+        marvelGraph.enableComponentIndex();
+        // lets BFS walk each character's edges without sorting them
+        marvelGraph.enableSortedEdges(ALPHABETICAL);
+        return marvelGraph;
+    }
+
+    /**
+     * Builds the same graph as buildGraph(filename), but writes the edges of
+     * different books, and fills the edge sets of different characters, on
+     * the threads of pool.
+     *
+     * @param filename the tsv file in the data folder to read
+     * @param pool the pool that builds the graph
+     * @return a graph of the characters joined through the books they share
+     * @throws IllegalArgumentException if an argument is null or filename can not be found
+     */
+    public static Graph<String,String> buildGraph(String filename, ForkJoinPool pool) {
+        if (filename == null || pool == null) {
+            throw new IllegalArgumentException("filename and pool can not be null");
+        }
+        HashMap<String, List<String>> books = readBooks(filename);
+        Graph<String,String> marvelGraph = new Graph.Builder<String,String>(countCharacters(books), 0)
+                .connectAll(books, pool)
+                .build(pool);
+        marvelGraph.enableComponentIndex();
+        marvelGraph.enableSortedEdges(ALPHABETICAL);
+        return marvelGraph;
+    }
+
+    /**
+     * Returns the number of distinct characters in books
+     */
+    private static int countCharacters(Map<String, List<String>> books) {
         HashSet<String> characters = new HashSet<>();
-        HashMap<String, List<String>> books = new HashMap<>();
+        for (List<String> chars : books.values()) {
+            characters.addAll(chars);
+        }
+        return characters.size();
+    }
 
-        MarvelParser.parseData(filename, characters, books);
+    /**
+     * Reads the characters of each book. They are gathered since each book
+     * becomes a clique; every character is in a book, so connecting the
+     * books adds all of them as nodes.
+     */
+    private static HashMap<String, List<String>> readBooks(String filename) {
+        HashMap<String, List<String>> books = new HashMap<>();
+        MarvelParser.streamData(filename,
+                (hero, book) -> books.computeIfAbsent(book, b -> new ArrayList<>()).add(hero));
+        return books;
+    }
 
-        for (String hero: characters) {
-            marvelGraph.addNode(new Node<>(hero));
+    /**
+     * Builds the marvel graph without materializing a clique per book: only
+     * the books of each character and the characters of each book are kept,
+     * and co-appearances are worked out while BFS visits a character. BFS
+     * returns exactly the same paths on it as on the graph from buildGraph,
+     * which stores two edges for every pair of characters in a book.
+     *
+     * @param filename the tsv file in the data folder to read
+     * @return a graph of the characters joined through the books they share
+     * @throws IllegalArgumentException if filename is null or can not be found
+     */
+    public static IncidenceGraph<String,String> buildIncidenceGraph(String filename) {
+        if (filename == null) {
+            throw new IllegalArgumentException("filename can not be found");
         }
 
-        for (String book : books.keySet()) {
-            List<String> chars = books.get(book);
-            int i = 1;
-            for (String parent : chars) {
-                List<String> children = chars.subList(i, chars.size());
-                for (String child : children) {
-                    if (!(parent.equals(child))) {
-                        marvelGraph.addEdge(new Node<String>(parent), new Node<String>(child), book);
-                        marvelGraph.addEdge(new Node<String>(child), new Node<String>(parent), book);
-                    }
-                }
-                i++;
-            }
+        IncidenceGraph.Builder<String,String> builder = new IncidenceGraph.Builder<>();
+        MarvelParser.streamData(filename, builder::addMember);
+        return builder.build();
+    }
 
+    /**
+     * Writes a marvel graph to a graph file that loadGraph can read back.
+     *
+     * @param marvelGraph the graph to write
+     * @param file the file to write to
+     * @throws IOException if the file can not be written
+     * @throws IllegalArgumentException if an argument is null
+     */
+    public static void saveGraph(Graph<String,String> marvelGraph, Path file) throws IOException {
+        if (marvelGraph == null) {
+            throw new IllegalArgumentException("marvelGraph can not be null");
         }
-        System.out.println(marvelGraph);
+        GraphFile.write(marvelGraph.freeze(), file, GraphFile.STRINGS, GraphFile.STRINGS);
+    }
+
+    /**
+     * Loads a marvel graph from a graph file written by saveGraph, instead
+     * of parsing the tsv file again.
+     *
+     * @param file the graph file to load
+     * @return the graph held in <var>file</var>
+     * @throws IOException if the file can not be read or is not a graph file
+     * @throws IllegalArgumentException if file is null
+     */
+    public static Graph<String,String> loadGraph(Path file) throws IOException {
+        Graph<String,String> marvelGraph = GraphFile.map(file, GraphFile.STRINGS, GraphFile.STRINGS).toGraph();
+        marvelGraph.enableComponentIndex();
+        marvelGraph.enableSortedEdges(ALPHABETICAL);
         return marvelGraph;
     }
 
     /**
      * Finds the shortest path from one character to another character.
      *
-     * @param marvelGraph: the graph used to find shortest path from start to end
+     * @param marvelGraph: the graph used to find shortest path from start to end;
+     *                   any graph backend may be searched
      * @param start: start Node
      * @param dest: destination Node
      * @spec.requires graph != null and start != null and end != null
@@ -55,75 +160,68 @@ public class MarvelPaths {
      */
 
     //Breadth First Search
-    public static List<Edge<String,String>> BFS (Graph<String,String> marvelGraph, Node<String> start, Node<String> dest) {
+    public static List<Edge<String,String>> BFS (GraphView<String,String> marvelGraph, Node<String> start, Node<String> dest) {
 
         if (marvelGraph == null) throw new IllegalArgumentException("marvelGraph cannot be null");
 
         if (start == null || dest == null) throw new IllegalArgumentException("start and dest cannot be null");
 
-        if (marvelGraph.containsNode(start) && marvelGraph.containsNode(dest)) {
-            Queue<Node<String>> paths = new LinkedList<>();
-            Map<Node<String>, List<Edge<String,String>>> nodeEdges = new HashMap<>();
-
-            //put the start node in to the queue
-            paths.add(start);
-            // put the start Node and its corresponding empty set of edges into map
-            nodeEdges.put(start, new ArrayList<>());
-            while (!paths.isEmpty()) {
-                Node<String> parent = paths.remove();
-                //end Node found, return path
-                if (parent.equals(dest)) {
-                    List<Edge<String,String>> path = nodeEdges.get(parent);
-                    return new ArrayList<>(path);
-                }
+        // edges are tried in alphabetical order: the childNode
+        // of the edge first, then the label of the edge
+        return GraphAlgorithms.bfs(marvelGraph, start, dest, ALPHABETICAL);
+    }
 
-                // end node not found yet
-                HashSet<Edge<String,String>> edgeList = marvelGraph.getEdges(parent);
-                // use comparator to get edge in alphabetical order
-                // compare the childNode of edge first,
-                // then compare the label of edge
-                Set<Edge<String,String>> sortedEdges = new TreeSet<>((o1, o2) -> {
-                    if (!(o1.getChildNode().equals(o2.getChildNode()))) {
-                        return o1.getChildNode().getData().compareTo(o2.getChildNode().getData());
-                    }
-                    if (!(o1.getLabel().equals(o2.getLabel()))) {
-                        return o1.getLabel().compareTo(o2.getLabel());
-                    }
-                    return 0;
-                });
-
-                sortedEdges.addAll(edgeList);
-                // add childNodes of the Node currently pointing at
-                // to the queue if it has not been checked
-
-                for (Edge<String,String> e : sortedEdges) {
-                    Node<String> child = e.getChildNode();
-                    if (!nodeEdges.containsKey(child)) {
-                        List<Edge<String,String>> path = nodeEdges.get(parent);
-                        List<Edge<String,String>> newPath = new ArrayList<>(path);
-                        newPath.add(e);
-                        nodeEdges.put(child, newPath);
-                        paths.add(child);
-                    }
-                }
-            }
-            // no path found from start Node to the dest Node.
-            return null;
-        }
-        // start or end not in the graph
-        return null;
+    /**
+     * Makes a search engine that finds the same shortest paths as BFS, with
+     * the same alphabetical tie breaking, over int ids of the characters.
+     * It records one parent edge per character in arrays it reuses across
+     * queries, instead of allocating maps for every query.
+     *
+     * @param marvelGraph the graph to search; later changes to it are not seen
+     * @return an engine answering shortest path queries on marvelGraph
+     * @throws IllegalArgumentException if marvelGraph is null
+     */
+    public static CompactBFS<String,String> searchEngine(Graph<String,String> marvelGraph) {
+        return new CompactBFS<>(marvelGraph, Comparator.naturalOrder(), Comparator.naturalOrder());
+    }
 
+    /**
+     * Finds the same shortest path as BFS, with the same alphabetical tie
+     * breaking, by searching from both characters at once. A marvel graph
+     * joins every two characters of a book both ways, so the search from
+     * the destination can follow edges out of it; far fewer characters are
+     * reached than when searching from start alone.
+     *
+     * @param marvelGraph the graph used to find shortest path from start to end
+     * @param start start Node
+     * @param dest destination Node
+     * @spec.requires every edge of marvelGraph has a twin going the other way
+     *                with the same book, as in the graphs built by this class
+     * @return the shortest path from start to end, or null if
+     *         no path exists from start to end
+     * @throws IllegalArgumentException if an argument is null
+     */
+    public static List<Edge<String,String>> bidirectionalBFS(GraphView<String,String> marvelGraph,
+                                                             Node<String> start, Node<String> dest) {
+        if (marvelGraph == null) throw new IllegalArgumentException("marvelGraph cannot be null");
+        if (start == null || dest == null) throw new IllegalArgumentException("start and dest cannot be null");
+        return GraphAlgorithms.bidirectionalBfs(marvelGraph, start, dest,
+                Comparator.naturalOrder(), Comparator.naturalOrder());
     }
 
     /**
      * Allows user to type in two characters and find the
      * shortest path between two characters.
      *
-     * @param args unused
+     * @param args optionally, a graph file written by saveGraph to load
+     *             instead of marvel.tsv
      * @throws Exception if file cannot be found
      */
     public static void main(String[] args) throws Exception {
-        Graph<String,String> marvelGraph = buildGraph("marvel.tsv");
+        // a graph file is searched in place, without copying it into a Graph
+        GraphView<String,String> marvelGraph = args.length > 0
+                ? GraphFile.map(Paths.get(args[0]), GraphFile.STRINGS, GraphFile.STRINGS)
+                : buildGraph("marvel.tsv");
         System.out.println("Find the shortest path between 2 Marvel characters");
         Scanner reader = new Scanner(System.in);
         boolean again = true;
@@ -143,7 +241,7 @@ public class MarvelPaths {
             } else {
                 Node<String> current = new Node<String>(start);
                 StringBuilder result = new StringBuilder("path from " + start + " to " + end + ":");
-                List<Edge<String,String>> path = BFS(marvelGraph, new Node<>(start), new Node<>(end));
+                List<Edge<String,String>> path = bidirectionalBFS(marvelGraph, new Node<>(start), new Node<>(end));
                 if (path == null) {
                     result.append("\n" + "no path found");
                 } else {
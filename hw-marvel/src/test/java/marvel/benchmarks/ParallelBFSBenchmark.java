@@ -0,0 +1,68 @@
+package marvel.benchmarks;
+
+import graph.Edge;
+import graph.Graph;
+import graph.Node;
+import graph.ParallelBFS;
+import marvel.MarvelPaths;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures ParallelBFS on the Marvel graph with pools of 1, 2, 4 and 8
+ * threads, and checks that every pool size finds the same paths as
+ * MarvelPaths.BFS. Run it with the benchmarkParallelBFS task; it is kept
+ * out of the unit suite because its timings depend on the machine.
+ */
+public class ParallelBFSBenchmark {
+
+	private static final int QUERIES = 200;
+	private static final int ROUNDS = 3;
+
+	public static void main(String[] args) {
+		Graph<String, String> marvel = MarvelPaths.buildGraph("marvel.tsv");
+		List<Node<String>> characters = new ArrayList<>(marvel.getNodes());
+		characters.sort(Comparator.comparing(Node::getData));
+		Random random = new Random(12);
+		List<Node<String>> starts = new ArrayList<>();
+		List<Node<String>> dests = new ArrayList<>();
+		List<List<Edge<String, String>>> expected = new ArrayList<>();
+		for (int q = 0; q < QUERIES; q++) {
+			starts.add(characters.get(random.nextInt(characters.size())));
+			dests.add(characters.get(random.nextInt(characters.size())));
+			expected.add(MarvelPaths.BFS(marvel, starts.get(q), dests.get(q)));
+		}
+		System.out.printf("ParallelBFS on marvel.tsv, %d cores, %d queries, best of %d%n",
+				Runtime.getRuntime().availableProcessors(), QUERIES, ROUNDS);
+		for (int threads = 1; threads <= 8; threads *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			try {
+				ParallelBFS<String, String> bfs = new ParallelBFS<>(marvel,
+						Comparator.naturalOrder(), Comparator.naturalOrder(), pool);
+				long best = Long.MAX_VALUE;
+				// the first round is untimed, so the JIT has compiled the search
+				for (int r = 0; r <= ROUNDS; r++) {
+					long start = System.nanoTime();
+					for (int q = 0; q < QUERIES; q++) {
+						List<Edge<String, String>> path = bfs.shortestPath(starts.get(q), dests.get(q));
+						if (r == 0 && !Objects.equals(expected.get(q), path)) {
+							throw new IllegalStateException("different path from " + starts.get(q).getData()
+									+ " to " + dests.get(q).getData() + " with " + threads + " threads");
+						}
+					}
+					if (r > 0) {
+						best = Math.min(best, System.nanoTime() - start);
+					}
+				}
+				System.out.printf("%d threads: %8.3f ms/query%n", threads, best / 1e6 / QUERIES);
+			} finally {
+				pool.shutdown();
+			}
+		}
+	}
+}
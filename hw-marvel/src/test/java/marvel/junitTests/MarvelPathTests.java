@@ -1,11 +1,27 @@
 package marvel.junitTests;
 
+import graph.CompactBFS;
+import graph.Edge;
 import graph.Graph;
+import graph.GraphMetrics;
+import graph.IncidenceGraph;
 import graph.Node;
+import marvel.MarvelParser;
 import marvel.MarvelPaths;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 
 public class MarvelPathTests {
 	private Graph<String,String> g;
@@ -35,4 +51,114 @@ public class MarvelPathTests {
 		MarvelPaths.BFS(g, new Node<>("toyota"), null);
 	}
 
+	@Test
+	public void testBFSReportsQueryToMetrics() {
+		GraphMetrics metrics = g.enableMetrics();
+		MarvelPaths.BFS(g, new Node<>("honda"), new Node<>("toyota"));
+		assertEquals(1, metrics.getQueries());
+		assertTrue(metrics.getNodesSettled() >= 2);
+		assertTrue(metrics.getEdgesExpanded() >= 1);
+		assertTrue(metrics.getMaxQueuePeak() >= 1);
+	}
+
+	@Test
+	public void testIncidenceGraphGivesSamePaths() {
+		for (String file : new String[] {"cars.tsv", "staffSuperheroes.tsv", "ReflexiveEdge.tsv", "TwoNodeNoPath.tsv"}) {
+			Graph<String,String> cliques = MarvelPaths.buildGraph(file);
+			IncidenceGraph<String,String> incidence = MarvelPaths.buildIncidenceGraph(file);
+			assertEquals(cliques.size(), incidence.size());
+			for (Node<String> start : cliques.getNodes()) {
+				for (Node<String> dest : cliques.getNodes()) {
+					assertEquals(MarvelPaths.BFS(cliques, start, dest), MarvelPaths.BFS(incidence, start, dest));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testBidirectionalBFSGivesSamePaths() {
+		for (String file : new String[] {"cars.tsv", "staffSuperheroes.tsv", "ReflexiveEdge.tsv", "TwoNodeNoPath.tsv"}) {
+			Graph<String,String> graph = MarvelPaths.buildGraph(file);
+			IncidenceGraph<String,String> incidence = MarvelPaths.buildIncidenceGraph(file);
+			for (Node<String> start : graph.getNodes()) {
+				for (Node<String> dest : graph.getNodes()) {
+					List<Edge<String,String>> expected = MarvelPaths.BFS(graph, start, dest);
+					assertEquals(expected, MarvelPaths.bidirectionalBFS(graph, start, dest));
+					assertEquals(expected, MarvelPaths.bidirectionalBFS(incidence, start, dest));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testSearchEngineGivesSamePaths() {
+		for (String file : new String[] {"cars.tsv", "staffSuperheroes.tsv", "ReflexiveEdge.tsv", "TwoNodeNoPath.tsv"}) {
+			Graph<String,String> graph = MarvelPaths.buildGraph(file);
+			CompactBFS<String,String> engine = MarvelPaths.searchEngine(graph);
+			for (Node<String> start : graph.getNodes()) {
+				for (Node<String> dest : graph.getNodes()) {
+					assertEquals(MarvelPaths.BFS(graph, start, dest), engine.shortestPath(start, dest));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testIncidenceGraphStoresFewerEntries() {
+		IncidenceGraph<String,String> incidence = MarvelPaths.buildIncidenceGraph("staffSuperheroes.tsv");
+		assertTrue(incidence.incidenceCount() < incidence.edgeCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBuildIncidenceGraphWithNullInput() {
+		MarvelPaths.buildIncidenceGraph(null);
+	}
+
+	@Test
+	public void testParallelBuildGivesSameGraph() {
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			for (String file : new String[] {"cars.tsv", "staffSuperheroes.tsv", "ReflexiveEdge.tsv", "empty.tsv"}) {
+				Graph<String,String> sequential = MarvelPaths.buildGraph(file);
+				Graph<String,String> parallel = MarvelPaths.buildGraph(file, pool);
+				assertEquals(sequential.getNodes(), parallel.getNodes());
+				for (Node<String> n : sequential.getNodes()) {
+					assertEquals(sequential.getEdges(n), parallel.getEdges(n));
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testStreamDataMatchesParseData() {
+		for (String file : new String[] {"cars.tsv", "staffSuperheroes.tsv", "ReflexiveEdge.tsv", "TwoNodeNoPath.tsv",
+				"oneNode.tsv", "empty.tsv", "marvel.tsv"}) {
+			Set<String> characters = new HashSet<>();
+			Map<String, List<String>> books = new HashMap<>();
+			MarvelParser.parseData(file, characters, books);
+			Set<String> streamedCharacters = new HashSet<>();
+			Map<String, List<String>> streamedBooks = new HashMap<>();
+			MarvelParser.streamData(file, (hero, book) -> {
+				streamedCharacters.add(hero);
+				streamedBooks.computeIfAbsent(book, b -> new ArrayList<>()).add(hero);
+			});
+			assertEquals(file, characters, streamedCharacters);
+			assertEquals(file, books, streamedBooks);
+		}
+	}
+
+	@Test
+	public void testStreamDataRemovesQuotes() {
+		List<String> pairs = new ArrayList<>();
+		MarvelParser.streamData("oneNode.tsv", (hero, book) -> pairs.add(hero + "/" + book));
+		assertEquals(List.of("onlyNode/edge"), pairs);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testStreamDataWithInvalidFile() {
+		MarvelParser.streamData("missing.tsv", (hero, book) -> { });
+	}
+
 }
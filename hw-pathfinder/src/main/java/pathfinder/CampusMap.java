@@ -11,15 +11,16 @@
 
 package pathfinder;
 
-import graph.Edge;
-import graph.Graph;
-import graph.Node;
+import graph.DoubleWeightedGraph;
+import graph.GraphFile;
+import graph.GraphMetrics;
 import pathfinder.datastructures.Path;
 import pathfinder.datastructures.Point;
 import pathfinder.parser.CampusBuilding;
 import pathfinder.parser.CampusPath;
 import pathfinder.parser.CampusPathsParser;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,7 +28,6 @@ import java.util.Map;
 public class CampusMap implements ModelAPI {
 
     List<CampusBuilding> campusBuildings;
-    List<CampusPath> campusPaths;
 
     // a map of building's names that maps
     // building's full name to abbreviated name
@@ -37,36 +37,103 @@ public class CampusMap implements ModelAPI {
     // building's abbreviated name to full name
     Map<String, String> fullMap;
 
-    // a graph contains campus paths
-    Graph<Point, Double> graph;
+    // a graph contains campus paths, weighted by distance
+    DoubleWeightedGraph<Point> graph;
 
     // a map of building's locations that maps
     // building's abbreviated name to its location
     Map<String, Point> locMap;
 
+    // stores a Point in a graph file as "x,y"; Double.toString reads back exactly
+    private static final GraphFile.Codec<Point> POINTS = new GraphFile.Codec<Point>() {
+        @Override
+        public String encode(Point value) {
+            return value.getX() + "," + value.getY();
+        }
+
+        @Override
+        public Point decode(String text) {
+            int comma = text.indexOf(',');
+            return new Point(Double.parseDouble(text.substring(0, comma)),
+                    Double.parseDouble(text.substring(comma + 1)));
+        }
+    };
+
     public CampusMap() {
+        loadBuildings();
+        List<CampusPath> campusPaths = CampusPathsParser.parseCampusPaths("campus_paths.tsv");
+
+        graph = new DoubleWeightedGraph<>();
+
+        for (CampusPath campusPath: campusPaths) {
+            Point startPoint = new Point(campusPath.getX1(), campusPath.getY1());
+            Point endPoint = new Point(campusPath.getX2(), campusPath.getY2());
+
+            graph.addEdge(startPoint, endPoint, campusPath.getDistance());
+        }
+        // unreachable buildings are answered without a search
+        graph.enableComponentIndex();
+    }
+
+    /**
+     * Creates a campus map whose paths are read from a graph file written
+     * by savePaths, instead of parsing campus_paths.tsv.
+     *
+     * <p>Unlike a MappedGraph, the paths are decoded eagerly: every point
+     * and distance in the file is copied into a DoubleWeightedGraph here.
+     * findShortestPath runs Dijkstra over the primitive arrays of that
+     * graph, and each search touches most of the campus, so decoding on
+     * demand would only spread the same work over the first queries. The
+     * campus graph is small enough to hold in full; what the file saves is
+     * parsing and validating the TSV.
+     *
+     * @param pathsFile the graph file holding the campus paths
+     * @throws IOException if the file can not be read or is not a graph file
+     * @throws IllegalArgumentException if pathsFile is null
+     */
+    public CampusMap(java.nio.file.Path pathsFile) throws IOException {
+        if (pathsFile == null) throw new IllegalArgumentException("pathsFile can not be null");
+        loadBuildings();
+        graph = DoubleWeightedGraph.of(GraphFile.map(pathsFile, POINTS, GraphFile.DOUBLES));
+        graph.enableComponentIndex();
+    }
+
+    /**
+     * Parses campus_buildings.tsv and fills in the building maps
+     */
+    private void loadBuildings() {
         campusBuildings = CampusPathsParser.parseCampusBuildings("campus_buildings.tsv");
-        campusPaths = CampusPathsParser.parseCampusPaths("campus_paths.tsv");
 
         shortMap = new HashMap<>();
         fullMap = new HashMap<>();
         locMap = new HashMap<>();
 
-        graph = new Graph<>(false);
-
         for (CampusBuilding campusBuilding: campusBuildings) {
             shortMap.put(campusBuilding.getLongName(), campusBuilding.getShortName());
             fullMap.put(campusBuilding.getShortName(), campusBuilding.getLongName());
             locMap.put(campusBuilding.getShortName(), new Point(campusBuilding.getX(), campusBuilding.getY()));
         }
+    }
 
-        for (CampusPath campusPath: campusPaths) {
-            Point startPoint = new Point(campusPath.getX1(), campusPath.getY1());
-            Point endPoint = new Point(campusPath.getX2(), campusPath.getY2());
-
-            graph.addEdge(new Node<>(startPoint), new Node<>(endPoint), campusPath.getDistance());
-        }
+    /**
+     * Writes the campus paths to a graph file that CampusMap(pathsFile) can load.
+     *
+     * @param pathsFile the file to write to
+     * @throws IOException if the file can not be written
+     * @throws IllegalArgumentException if pathsFile is null
+     */
+    public void savePaths(java.nio.file.Path pathsFile) throws IOException {
+        GraphFile.write(graph.toGraph().freeze(), pathsFile, POINTS, GraphFile.DOUBLES);
+    }
 
+    /**
+     * Starts counting the work done by findShortestPath: the nodes each
+     * search settles, the peak size of its queue and the edges it expands.
+     *
+     * @return the metrics of the campus paths graph, for registering with JMX
+     */
+    public GraphMetrics enableMetrics() {
+        return graph.enableMetrics();
     }
 
     @Override
@@ -94,19 +161,29 @@ public class CampusMap implements ModelAPI {
     public Path<Point> findShortestPath(String startShortName, String endShortName) {
         // TODO: Implement this method exactly as it is specified in ModelAPI
         // throw new RuntimeException("Not Implemented Yet");
-        Node<Point> startNode = new Node<>(locMap.get(startShortName));
-        Node<Point> endNode = new Node<>(locMap.get(endShortName));
+        Point start = locMap.get(startShortName);
+        Point end = locMap.get(endShortName);
+        if (start == null || end == null) {
+            throw new IllegalArgumentException("unknown building");
+        }
+        int startHandle = graph.handleOf(start);
+        int endHandle = graph.handleOf(end);
+        if (startHandle < 0 || endHandle < 0) {
+            return null;
+        }
 
-        List<Edge<Point, Double>> route = CampusPaths.dijistra(startNode, endNode, graph);
+        DoubleWeightedGraph.Route route = graph.shortestPath(startHandle, endHandle);
 
         if (route == null) {
             return null;
         }
 
-        Path<Point> shortestPath = new Path<>(locMap.get(startShortName));
+        // the route starts with a zero-cost step onto the start point, as
+        // CampusPaths.dijistra's paths always have
+        Path<Point> shortestPath = new Path<>(start).extend(start, 0.0);
 
-        for (Edge<Point, Double> path: route) {
-            shortestPath = shortestPath.extend(path.getChildNode().getData(), path.getLabel());
+        for (int i = 0; i < route.length(); i++) {
+            shortestPath = shortestPath.extend(graph.node(route.node(i + 1)).getData(), route.stepCost(i));
         }
 
         return shortestPath;
@@ -1,7 +1,8 @@
 package pathfinder;
 
 import graph.Edge;
-import graph.Graph;
+import graph.GraphAlgorithms;
+import graph.GraphView;
 import graph.Node;
 
 import java.util.*;
@@ -10,7 +11,8 @@ public class CampusPaths {
 
     /**
      * Finds the minimum-cost path from one character to another character.
-     * @param g: the graph used to find shortest path from start to end
+     * @param g: the graph used to find shortest path from start to end;
+     * any graph backend may be searched
      * @param start: a character
      * @param end: another character
      * @param <T>: generic type
@@ -21,72 +23,20 @@ public class CampusPaths {
      * not in the graph
      */
 
-    public static <T> List<Edge<T, Double>> dijistra (Node<T> start, Node<T> end, Graph<T, Double> g) {
+    public static <T> List<Edge<T, Double>> dijistra (Node<T> start, Node<T> end, GraphView<T, Double> g) {
         if (g == null) {
             throw new IllegalArgumentException("graph cannot be null.");
         }
         if (start == null || end == null) {
             throw new IllegalArgumentException("start and end cannot be null.");
         }
-        if (g.containsNode(start) && g.containsNode(end)) {
-
-            PriorityQueue<List<Edge<T, Double>>> active = new PriorityQueue<>((o1, o2) -> {
-                double cost1 = 0;
-                double cost2 = 0;
-                for (Edge<T, Double> e1 : o1) {
-                    cost1 += e1.getLabel();
-                }
-                for (Edge<T, Double> e2 : o2) {
-                    cost2 += e2.getLabel();
-                }
-                int num = 0;
-                if (cost1 - cost2 > 0) {
-                    num = 1;
-                } else if (cost1 - cost2 < 0) {
-                    num = -1;
-                }
-                return num;
-            });
-
-            // finishes contains Nodes for which we have checked
-            // the minimum-cost path from start
-
-            Set<Node<T>> finished = new HashSet<>();
-
-            // put the start Node into queue and a path with cost of 0.0
-            // because there is no edge in the path
-            List<Edge<T, Double>> selfPath = new ArrayList<>();
-            selfPath.add(new Edge<>(start, 0.0));
-            active.add(selfPath);
-
-            while (!active.isEmpty()) {
-                // minPath is the lowest-cost path in active and,
-                // if minDest isn't already 'finished,' is the
-                // minimum-cost path to the node minDest
-                List<Edge<T, Double>> minPath = active.poll();
-                // minDest is the end Node of minPath
-                Node<T> minDest = minPath.get(minPath.size() - 1).getChildNode();
-                // return minPath if the end Node of minPath
-                // is equal to end passed in by client
-                if (minDest.equals(end)) {
-                    return minPath;
-
-                } else if (!finished.contains(minDest)) {
-                    for (Edge<T, Double> e: g.getEdges(minDest)) {
-                        if (!finished.contains(e.getChildNode())) {
-                            List<Edge<T, Double>> newPath = new ArrayList<>(minPath);
-                            newPath.add(e);
-                            active.add(newPath);
-                        }
-                    }
-                    // add minDest to finished after checking it
-                    finished.add(minDest);
-                }
-            }
-            // no path exist from start to end
+        List<Edge<T, Double>> path = GraphAlgorithms.dijkstra(g, start, end, Double::doubleValue);
+        if (path == null) {
+            // start or end not in graph, or no path exist from start to end
             return null;
         }
-        // start or end not in graph
-        return null;
+        // paths begin with an edge from start to itself with cost 0.0
+        path.add(0, new Edge<>(start, 0.0));
+        return path;
     }
 }
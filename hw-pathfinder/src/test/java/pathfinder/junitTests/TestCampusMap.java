@@ -0,0 +1,78 @@
+package pathfinder.junitTests;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import pathfinder.CampusMap;
+import pathfinder.datastructures.Path;
+import pathfinder.datastructures.Point;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class TestCampusMap {
+    @Rule public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+    private static final double EPSILON = Math.pow(10.0D, -9.0D); // Accuracy required to 1 PPB
+
+    // parsed once; reading campus_paths.tsv dominates the cost of these tests
+    private static CampusMap tsvMap;
+
+    private java.nio.file.Path file;
+
+    @BeforeClass
+    public static void parseCampus() {
+        tsvMap = new CampusMap();
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private CampusMap saveAndReload() throws IOException {
+        file = Files.createTempFile("campus", ".bin");
+        tsvMap.savePaths(file);
+        return new CampusMap(file);
+    }
+
+    @Test
+    public void testReloadedMapKeepsBuildings() throws IOException {
+        CampusMap loaded = saveAndReload();
+        assertEquals(tsvMap.buildingNames(), loaded.buildingNames());
+    }
+
+    @Test
+    public void testReloadedMapFindsSamePaths() throws IOException {
+        CampusMap loaded = saveAndReload();
+        for (String start : tsvMap.buildingNames().keySet()) {
+            for (String end : tsvMap.buildingNames().keySet()) {
+                Path<Point> expected = tsvMap.findShortestPath(start, end);
+                Path<Point> actual = loaded.findShortestPath(start, end);
+                if (expected == null) {
+                    assertNull(start + " -> " + end, actual);
+                    continue;
+                }
+                // equal-cost routes may be broken differently, since the file
+                // numbers points in another order than the TSV
+                assertNotNull(start + " -> " + end, actual);
+                assertEquals(start + " -> " + end, expected.getCost(), actual.getCost(), EPSILON);
+                assertEquals(expected.getStart(), actual.getStart());
+                assertEquals(expected.getEnd(), actual.getEnd());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullFileRejected() throws IOException {
+        new CampusMap(null);
+    }
+}